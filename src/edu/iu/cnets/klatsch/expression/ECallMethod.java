@@ -52,6 +52,8 @@ public class ECallMethod extends Expression
 			Throwable cause = e.getCause();
 			if (cause instanceof EvaluationException)
 				throw (EvaluationException) cause;
+			else if (cause instanceof IllegalStateException)
+				throw new EvaluationException(cause.getMessage());
 			else {
 				cause.printStackTrace();
 				throw new EvaluationException(cause.toString());
@@ -21,6 +21,7 @@ import edu.iu.cnets.klatsch.model.Event;
 import edu.iu.cnets.klatsch.model.Feed;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeTable;
 import edu.iu.cnets.klatsch.model.basic.BasicEvent;
 import edu.iu.cnets.klatsch.model.gephi.GephiEdge;
 import edu.iu.cnets.klatsch.model.gephi.GephiNode;
@@ -61,8 +62,11 @@ public class Buzz implements Feed
 	 */
 	class SqlEventIterator implements Iterator<Event>
 	{
-		ResultSet result;
-		boolean   done;
+		ResultSet            result;
+		boolean              done;
+		
+		/** the canonical node objects for the actors and memes in this query, dropped once it's read */
+		NodeTable<GephiNode> nodes = GephiNode.table();
 		
 		SqlEventIterator(ResultSet result)
 		throws SQLException
@@ -82,14 +86,16 @@ public class Buzz implements Feed
 		{
 			try {
 				int       when  = (int) (result.getTimestamp(1).getTime() / 1000);
-				GephiNode actor = new GephiNode(Node.TYPE_ACTOR, result.getInt(2));
-				GephiNode meme  = new GephiNode(Node.TYPE_MEME,  result.getInt(3));
+				GephiNode actor = nodes.get(Node.TYPE_ACTOR, result.getInt(2));
+				GephiNode meme  = nodes.get(Node.TYPE_MEME,  result.getInt(3));
 			
 				List<Edge> ls = new LinkedList<Edge>();
 				ls.add(new GephiEdge(actor, meme, when, when, 1.0, 1.0));
 
 				Event event = new BasicEvent(when, ls.toArray(new Edge[ls.size()]));
 				done = !result.next();
+				if (done)
+					nodes.clear();
 			
 				return event;
 			} catch (SQLException e) {
@@ -427,4 +433,10 @@ public class Buzz implements Feed
 	 * the Buzz feed.  This is a null operation.
 	 */
 	public void updateTrust(Graph g) {}
+	
+	
+	/**
+	 * Performs the trust update to a fixpoint, which is also a null operation.
+	 */
+	public void updateTrust(Graph g, boolean fixpoint) {}
 }
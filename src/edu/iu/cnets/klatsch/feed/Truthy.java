@@ -21,6 +21,7 @@ import edu.iu.cnets.klatsch.model.Event;
 import edu.iu.cnets.klatsch.model.Feed;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeTable;
 import edu.iu.cnets.klatsch.model.basic.BasicEvent;
 import edu.iu.cnets.klatsch.model.gephi.GephiEdge;
 import edu.iu.cnets.klatsch.model.gephi.GephiNode;
@@ -29,6 +30,8 @@ import edu.iu.cnets.klatsch.lang.VBoolean;
 import edu.iu.cnets.klatsch.lang.VDictionary;
 import edu.iu.cnets.klatsch.lang.VNumber;
 import edu.iu.cnets.klatsch.lang.VString;
+import edu.iu.cnets.klatsch.stat.Parallel;
+import edu.iu.cnets.klatsch.stat.TrustPropagation;
 
 
 /**
@@ -61,8 +64,11 @@ public class Truthy implements Feed
 	 */
 	class SqlEventIterator implements Iterator<Event>
 	{
-		ResultSet result;
-		boolean   done;
+		ResultSet            result;
+		boolean              done;
+		
+		/** the canonical node objects for the actors and memes in this query, dropped once it's read */
+		NodeTable<GephiNode> nodes = GephiNode.table();
 		
 		SqlEventIterator(ResultSet result)
 		throws SQLException
@@ -82,10 +88,10 @@ public class Truthy implements Feed
 		{
 			try {
 				int       when    = (int) (result.getTimestamp(1).getTime() / 1000);
-				GephiNode actor   = new GephiNode(Node.TYPE_ACTOR, result.getInt(2));
-				GephiNode reply   = new GephiNode(Node.TYPE_ACTOR, result.getInt(3));
-				GephiNode retweet = new GephiNode(Node.TYPE_ACTOR, result.getInt(4));
-				GephiNode meme    = new GephiNode(Node.TYPE_MEME,  result.getInt(5));
+				GephiNode actor   = nodes.get(Node.TYPE_ACTOR, result.getInt(2));
+				GephiNode reply   = nodes.get(Node.TYPE_ACTOR, result.getInt(3));
+				GephiNode retweet = nodes.get(Node.TYPE_ACTOR, result.getInt(4));
+				GephiNode meme    = nodes.get(Node.TYPE_MEME,  result.getInt(5));
 			
 				List<Edge> ls = new LinkedList<Edge>();
 				ls.add(new GephiEdge(actor, meme, when, when, 1.0, 1.0));
@@ -102,6 +108,8 @@ public class Truthy implements Feed
 
 				Event event = new BasicEvent(when, ls.toArray(new Edge[ls.size()]));
 				done = !result.next();
+				if (done)
+					nodes.clear();
 			
 				return event;
 			} catch (SQLException e) {
@@ -459,37 +467,22 @@ public class Truthy implements Feed
 	 *   An partly trusted edge becomes completely trusted.
 	 *   An actor->actor edge becomes completely trusted if it is bidirectional.
 	 *   A meme->actor edge becomes trusted if the actor has any trusted actor->actor edges.
+	 * 
+	 * Every edge is judged by the trust as it was before the update, so the result doesn't
+	 * depend on the order of the edges.  The work is done by {@link TrustPropagation}.
 	 */
 	public void updateTrust(Graph g)
 	{
-		for (Edge e : g.edges())
-			
-			if (e.trust() < e.weight()) {
-				
-				// get the endpoints of the edge 
-				GephiNode src     = (GephiNode) e.src();
-				GephiNode dst     = (GephiNode) e.dst();
-				boolean   upgrade = false;
-				
-				// a partly trusted edge becomes trusted
-				if (e.trust() > 0.0)
-					upgrade = true;
-				
-				// an actor->actor edge becomes trusted if it is bidirectional
-				if ((src.type() == Node.TYPE_ACTOR) && (dst.type() == Node.TYPE_ACTOR) && g.hasEdge(new GephiEdge(dst, src)))
-					upgrade = true;
-				
-				// a meme->actor edge becomes trusted if the actor has trusted edges to other actors
-				if ((src.type() == Node.TYPE_MEME) && (dst.type() == Node.TYPE_ACTOR))
-					for (Edge e2 : g.edgesOut(dst))
-						if ((e2.trust() > 0.0) && (e2.dst().type() == Node.TYPE_ACTOR)) {
-							upgrade = true;
-							break;
-						}
-				
-				// upgrade the edge if we should
-				if (upgrade)
-					g.add(new GephiEdge(src, dst, e.startTime(), e.endTime(), 0.0, e.weight() - e.trust()));
-			}
+		updateTrust(g, false);
+	}
+	
+	
+	/**
+	 * Performs the trust update, optionally repeating it until no more edges are upgraded,
+	 * since edges upgraded by one pass can vouch for more actors in the next.
+	 */
+	public void updateTrust(Graph g, boolean fixpoint)
+	{
+		new TrustPropagation(g.csr(), fixpoint, Parallel.threads()).apply(g);
 	}
 }
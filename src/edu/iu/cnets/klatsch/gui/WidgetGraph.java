@@ -1,12 +1,9 @@
 package edu.iu.cnets.klatsch.gui;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
 import edu.iu.cnets.klatsch.model.Edge;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeIndex;
 import edu.iu.cnets.klatsch.misc.Utility;
 
 
@@ -15,14 +12,15 @@ import edu.iu.cnets.klatsch.misc.Utility;
  */
 public class WidgetGraph extends Widget
 {
-	class Location { double x, y;  Location(double x, double y) { this.x = x;  this.y = y; } }
-	class Velocity { double x, y;  Velocity(double x, double y) { this.x = x;  this.y = y; } }
-	
 	/** the graph we're showing */
-	Graph  g;
+	Graph     g;
 	
-	/** the current layout for the graph */
-	Map<Object,Location> layout;
+	/** the dense numbering of the nodes that were in the graph when it was laid out */
+	NodeIndex index;
+	
+	/** the current layout for the graph, indexed by node number */
+	double[]  x;
+	double[]  y;
 
 	
 	/**
@@ -51,30 +49,33 @@ public class WidgetGraph extends Widget
 			
 			parent.stroke(0xff777777);
 			
-			for (Node src : g.nodes())
+			for (Node src : g.nodes()) {
+				int i = index.get(src);
+				if (i < 0)
+					continue;
 				for (Edge e : g.edgesOut(src)) {
-					Node dst = e.dst();
-					Location locSrc = layout.get(src), locDst = layout.get(dst);
-					if ((locSrc != null) && (locDst != null))
-						parent.line((float) locSrc.x, (float) locSrc.y, (float) locDst.x, (float) locDst.y);
+					int j = index.get(e.dst());
+					if (j >= 0)
+						parent.line((float) x[i], (float) y[i], (float) x[j], (float) y[j]);
 				}
+			}
 			
 			parent.fill(0xffcc3333);
 			parent.stroke(0xffff5555);
 
 			for (Node n : g.nodes()) {
-				Location loc = layout.get(n);
-				if (loc != null)
-					parent.ellipse((float) loc.x, (float) loc.y, 10, 10);
+				int i = index.get(n);
+				if (i >= 0)
+					parent.ellipse((float) x[i], (float) y[i], 10, 10);
 			}
 			
 			parent.fill(0xff33cccc);
 			parent.textAlign(KlatschGui.CENTER);
 
 			for (Node n : g.nodes()) {
-				Location loc = layout.get(n);
-				if (loc != null)
-					parent.text(n.toString(), (float) loc.x, (float) loc.y - 7);
+				int i = index.get(n);
+				if (i >= 0)
+					parent.text(n.toString(), (float) x[i], (float) y[i] - 7);
 			}
 		}
 	}
@@ -92,9 +93,9 @@ public class WidgetGraph extends Widget
 		layoutRandom();
 
 		// set initial node velocities to (0, 0)
-		Map<Node,Velocity> vels = new HashMap<Node,Velocity>();
-		for (Node n : g.nodes())
-			vels.put(n, new Velocity(0.0, 0.0));
+		int      n  = index.size();
+		double[] vx = new double[n];
+		double[] vy = new double[n];
 		
 		// the layout loop
 		double energy = 0.0;
@@ -104,48 +105,45 @@ public class WidgetGraph extends Widget
 			energy = 0.0;
 			
 			// for each node
-			for (Node n : g.nodes()) {
-				
-				// get the node's location
-				Location here = layout.get(n);
+			for (Node node : g.nodes()) {
+				int i = index.get(node);
+				if (i < 0)
+					continue;
 				
 				// net force on this node
 				double forceX = 0.0;
-			  double forceY = 0.0;
+				double forceY = 0.0;
 		
 				// for each other node
-			  for (Node other : g.nodes())
-					if (other != n) {
-						Location there  = layout.get(other);
-						double   theta  = Math.atan2(there.y - here.y, there.x - here.x);
-						double   cForce = -1e4 / ((there.y - here.y) * (there.y - here.y) + (there.x - here.x) * (there.x - here.x));
+				for (int j = 0; j < n; ++j)
+					if (j != i) {
+						double theta  = Math.atan2(y[j] - y[i], x[j] - x[i]);
+						double cForce = -1e4 / ((y[j] - y[i]) * (y[j] - y[i]) + (x[j] - x[i]) * (x[j] - x[i]));
 						forceX += cForce * Math.cos(theta);
 						forceY += cForce * Math.sin(theta);
 					}
 
 				// for each connected node
-				for (Edge e : g.edgesOut(n)) {
-					Node other = e.dst();
-					if (other != n) {
-						Location there = layout.get(other);
-						double   theta  = Math.atan2(there.y - here.y, there.x - here.x);
-						double   cForce = 1e5 * Math.sqrt((there.y - here.y) * (there.y - here.y) + (there.x - here.x) * (there.x - here.x));
+				for (Edge e : g.edgesOut(node)) {
+					int j = index.get(e.dst());
+					if ((j != i) && (j >= 0)) {
+						double theta  = Math.atan2(y[j] - y[i], x[j] - x[i]);
+						double cForce = 1e5 * Math.sqrt((y[j] - y[i]) * (y[j] - y[i]) + (x[j] - x[i]) * (x[j] - x[i]));
 						forceX += cForce * Math.cos(theta);
 						forceY += cForce * Math.sin(theta);
 					}
 				}
 			
 				// update velocity with damping = 0.99, timestep = 1.0
-				Velocity vel = vels.get(n);
-				vel.x = 0.7 * (vel.x + 1.0 * forceX);
-				vel.y = 0.7 * (vel.y + 1.0 * forceY);
+				vx[i] = 0.7 * (vx[i] + 1.0 * forceX);
+				vy[i] = 0.7 * (vy[i] + 1.0 * forceY);
 			
 				// update position with timestep = 1
-				here.x += 1.0 * vel.x;
-				here.y += 1.0 * vel.y;
+				x[i] += 1.0 * vx[i];
+				y[i] += 1.0 * vy[i];
 				
 				// update energy with mass = 1.0
-				energy += 1.0 * ((vel.x * vel.x) + (vel.y * vel.y));
+				energy += 1.0 * ((vx[i] * vx[i]) + (vy[i] * vy[i]));
 			}
 			System.err.println("E = " + energy);
 			
@@ -153,22 +151,17 @@ public class WidgetGraph extends Widget
 		
 		// get ready to rescale
 		double minX = x2, maxX = x1, minY = y2, maxY = y1;
-		Iterator<Location> iterLoc;
 		
 		// find the location extremes
-		iterLoc = layout.values().iterator();
-		while (iterLoc.hasNext()) {
-			Location loc = iterLoc.next();
-			if (loc.x < minX)  minX = loc.x;  if (loc.x > maxX)  maxX = loc.x;
-			if (loc.y < minY)  minY = loc.y;  if (loc.y > maxY)  maxY = loc.y;
+		for (int i = 0; i < n; ++i) {
+			if (x[i] < minX)  minX = x[i];  if (x[i] > maxX)  maxX = x[i];
+			if (y[i] < minY)  minY = y[i];  if (y[i] > maxY)  maxY = y[i];
 		}
 		
 		// and rescale the location
-		iterLoc = layout.values().iterator();
-		while (iterLoc.hasNext()) {
-			Location loc = iterLoc.next();
-			loc.x = x1 + (x2 - x1) * ((loc.x - minX) / (maxX - minX) * 0.90 + 0.05);
-			loc.y = y1 + (y2 - y1) * ((loc.y - minY) / (maxY - minY) * 0.90 + 0.05);
+		for (int i = 0; i < n; ++i) {
+			x[i] = x1 + (x2 - x1) * ((x[i] - minX) / (maxX - minX) * 0.90 + 0.05);
+			y[i] = y1 + (y2 - y1) * ((y[i] - minY) / (maxY - minY) * 0.90 + 0.05);
 		}
 	}
 	
@@ -181,25 +174,25 @@ public class WidgetGraph extends Widget
 		double inc = 2.0 * Math.PI / g.nodeCount();
 		double r   = Math.min(0.45 * (y2 - y1), 0.45 * (x2 - x1));
 		
-		int i = 0;
-		for (Node n : g.nodes()) {
-			Location loc = layout.get(n);
-			loc.x = x1 + (0.5 * (x2 - x1)) + r * Math.cos(inc * i);
-			loc.y = y1 + (0.5 * (y2 - y1)) + r * Math.sin(inc * i);
-			i++;
+		for (int i = 0; i < index.size(); ++i) {
+			x[i] = x1 + (0.5 * (x2 - x1)) + r * Math.cos(inc * i);
+			y[i] = y1 + (0.5 * (y2 - y1)) + r * Math.sin(inc * i);
 		}
 	}
 	
 	
 	/**
-	 * Positions the nodes randomly.
+	 * Numbers the nodes and positions them randomly.
 	 */
 	void layoutRandom()
 	{
-		layout = new HashMap<Object,Location>();
+		index = (g == null) ? new NodeIndex() : NodeIndex.of(g);
+		x     = new double[index.size()];
+		y     = new double[index.size()];
 
-		for (Node n : g.nodes())
-			layout.put(n, new Location((0.90 * Utility.rnd.nextFloat() + 0.05) * (x2 - x1) + x1,
-					                       (0.90 * Utility.rnd.nextFloat() + 0.05) * (y2 - y1) + y1));
+		for (int i = 0; i < index.size(); ++i) {
+			x[i] = (0.90 * Utility.rnd.nextFloat() + 0.05) * (x2 - x1) + x1;
+			y[i] = (0.90 * Utility.rnd.nextFloat() + 0.05) * (y2 - y1) + y1;
+		}
 	}
 }
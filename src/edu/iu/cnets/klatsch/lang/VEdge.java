@@ -2,6 +2,7 @@ package edu.iu.cnets.klatsch.lang;
 
 import edu.iu.cnets.klatsch.exception.EvaluationException;
 import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.basic.BasicEdge;
 import edu.iu.cnets.klatsch.model.gephi.GephiEdge;
 
 
@@ -32,6 +33,15 @@ public class VEdge extends Value
 	}
 	
 	
+	/**
+	 * Constructs a new edge.
+	 */
+	public VEdge(BasicEdge e)
+	{
+		this.e = e;
+	}
+	
+	
 	/**
 	 * Converts this edge into a string representation.
 	 */
@@ -184,15 +184,21 @@ public class VFeed extends Value
 	
 	
 	/**
-	 * update(g) : Applies this feed's updateTrust() rules to the given graph.
+	 * update(g, {"fixpoint": false}) : Applies this feed's updateTrust() rules to the given graph,
+	 * repeating them until no more edges are upgraded if fixpoint is true.
 	 */
 	public Value method_update_trust(Value ... args)
 	throws EvaluationException
 	{
-		requireCount(args, 1, 1);
-		Graph g = ((VGraph) args[0].requireType(VGraph.class)).g;
+		requireCount(args, 1, 2);
+		Graph       g        = ((VGraph) args[0].requireType(VGraph.class)).g;
+		VDictionary options  = VGraph.options(args.length > 1 ? new Value[] { args[1] } : new Value[0]);
+		boolean     fixpoint = false;
+		
+		if (((VBoolean) options.method_has(new VString("fixpoint"))).val)
+			fixpoint = ((VBoolean) options.method_get(new VString("fixpoint")).requireType(VBoolean.class)).val;
 		
-		f.updateTrust(g);
+		f.updateTrust(g, fixpoint);
 		return VNull.NULL;
 	}
 }
@@ -3,9 +3,24 @@ package edu.iu.cnets.klatsch.lang;
 import java.util.Iterator;
 
 import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.Event;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.basic.BasicEvent;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.model.csr.TemporalGraph;
+import edu.iu.cnets.klatsch.model.window.WindowGraph;
 import edu.iu.cnets.klatsch.exception.EvaluationException;
+import edu.iu.cnets.klatsch.stat.Betweenness;
+import edu.iu.cnets.klatsch.stat.Centrality;
+import edu.iu.cnets.klatsch.stat.HyperAnf;
+import edu.iu.cnets.klatsch.stat.Louvain;
+import edu.iu.cnets.klatsch.stat.NodeScores;
+import edu.iu.cnets.klatsch.stat.Parallel;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
+import edu.iu.cnets.klatsch.stream.SArray;
+import edu.iu.cnets.klatsch.stream.SIterator;
+import edu.iu.cnets.klatsch.stream.Stream;
 import edu.iu.cnets.klatsch.stream.SWrapperIterator;
 
 
@@ -35,7 +50,12 @@ public class VGraph extends Value
 	 */
 	public String toString()
 	{
-		return "Graph<N=" + g.nodeCount() + ", E=" + g.edgeCount() + ">";
+		// a closed graph can still be printed, e.g. through a variable that still holds it
+		try {
+			return "Graph<N=" + g.nodeCount() + ", E=" + g.edgeCount() + ">";
+		} catch (IllegalStateException e) {
+			return "Graph<closed>";
+		}
 	}
 	
 	
@@ -93,18 +113,70 @@ public class VGraph extends Value
 
 	
 	/**
-	 * add(e) : Adds the given edge to the graph.
+	 * add(e) : Adds the given edge to the graph, unless it's read-only.
 	 */
 	public Value method_add(Value ... args)
 	throws EvaluationException
 	{
 		requireCount(args, 1, 1);
 		
-		g.add(((VEdge) args[0].requireType(VEdge.class)).e);
+		try {
+			g.add(((VEdge) args[0].requireType(VEdge.class)).e);
+		} catch (UnsupportedOperationException e) {
+			throw new EvaluationException(e.getMessage());
+		}
 		return this;
 	}
 	
 
+	/**
+	 * advance(t) : Moves the clock of a sliding-window graph forward to time t, expiring any edges that fall
+	 *              out of the window.
+	 */
+	public Value method_advance(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		
+		if (!(g instanceof WindowGraph))
+			throw new EvaluationException("graph has no clock; create it with graph({\"backend\": \"window\"})");
+		
+		((WindowGraph) g).advance((int) ((VNumber) args[0].requireType(VNumber.class)).val);
+		return this;
+	}
+	
+	
+	/**
+	 * betweenness()  : Returns the betweenness centrality of each node, as a mapping from nodes to scores.
+	 * betweenness(d) : Estimates it from a random sample of source nodes instead, if d holds either:
+	 * 
+	 *   pivots     (Number) : the number of sources to sample
+	 *   error      (Number) : the largest acceptable error, as a fraction of n(n - 2), from which the number
+	 *                         of sources is worked out (see {@link Betweenness#pivots})
+	 * 
+	 * along with, optionally, the probability that every node's estimate is within the error ("confidence",
+	 * default 0.9) and the seed for the sample ("seed", default 0).
+	 */
+	public Value method_betweenness(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		VDictionary dict = options(args);
+		CsrGraph    csr  = g.csr();
+		
+		int pivots = csr.nodeCount();
+		if (((VBoolean) dict.method_has(new VString("pivots"))).val)
+			pivots = (int) number(dict, "pivots", pivots, 1, Integer.MAX_VALUE);
+		else if (((VBoolean) dict.method_has(new VString("error"))).val)
+			pivots = Betweenness.pivots(pivots, number(dict, "error",      0,   Double.MIN_VALUE, 1),
+			                                    number(dict, "confidence", 0.9, 0, 1 - 1e-12));
+		
+		long seed = (long) number(dict, "seed", 0, -Long.MAX_VALUE, Long.MAX_VALUE);
+		
+		return new VScores(new Betweenness(csr, pivots, seed, Parallel.threads()).getScores());
+	}
+	
+	
 	/**
 	 * cc() : Returns the mean clustering coefficient.
 	 */
@@ -125,11 +197,81 @@ public class VGraph extends Value
 	{
 		requireCount(args, 0, 0);
 		
-		g.clear();
+		try {
+			g.clear();
+		} catch (UnsupportedOperationException e) {
+			throw new EvaluationException(e.getMessage());
+		}
 		return this;
 	}
 	
 	
+	/**
+	 * close() : Empties the graph and releases what it holds outside the Java heap, such as a Gephi workspace,
+	 * which is kept for reuse by the next new graph.  A Gephi graph can't be used after it's closed.
+	 */
+	public Value method_close(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+		
+		g.close();
+		return VNull.NULL;
+	}
+	
+	
+	/**
+	 * communities(d) : Finds communities with the Louvain method, and returns a dictionary with their
+	 * modularity, their number, their sizes, and the community of each node (in the order of nodes()).  The
+	 * optional dictionary may set the resolution, which defaults to 1.
+	 */
+	public Value method_communities(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		
+		int[]  label;
+		double modularity;
+		
+		VDictionary dict = new VDictionary();
+		if (args.length > 0)
+			dict = (VDictionary) args[0].requireType(VDictionary.class);
+		
+		if (((VBoolean) dict.method_has(new VString("resolution"))).val) {
+			double  resolution = ((VNumber) dict.method_get(new VString("resolution")).requireType(VNumber.class))
+			                     .requireRange(Double.MIN_VALUE, Double.MAX_VALUE).val;
+			Louvain louvain    = new Louvain(g.csr(), resolution, Parallel.threads());
+			label      = louvain.getCommunities();
+			modularity = louvain.getModularity();
+		} else {
+			label      = g.communities();
+			modularity = g.statModularity();
+		}
+		
+		int count = 0;
+		for (int c : label)
+			count = Math.max(count, c + 1);
+		
+		int[]   size   = new int[count];
+		Value[] vLabel = new Value[label.length];
+		for (int i = 0; i < label.length; ++i) {
+			++size[label[i]];
+			vLabel[i] = new VNumber(label[i]);
+		}
+		
+		Value[] vSize = new Value[count];
+		for (int c = 0; c < count; ++c)
+			vSize[c] = new VNumber(size[c]);
+		
+		VDictionary result = new VDictionary();
+		result.set(new VString("modularity"), new VNumber(modularity));
+		result.set(new VString("count"),      new VNumber(count));
+		result.set(new VString("sizes"),      new VList(vSize));
+		result.set(new VString("labels"),     new VList(vLabel));
+		return result;
+	}
+	
+	
 	/**
 	 * comp(n) : Returns component #n in the graph.  
 	 */
@@ -155,6 +297,19 @@ public class VGraph extends Value
 	}
 	
 	
+	/**
+	 * comp_of(n) : Returns the number of the component containing node n, or -1 if it isn't in the graph.
+	 */
+	public Value method_comp_of(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		Node n = ((VNode) args[0].requireType(VNode.class)).n;
+		
+		return new VNumber(g.componentOf(n));
+	}
+	
+	
 	/**
 	 * comp_size() : Returns a list containing the size of each connected component.
 	 */
@@ -173,14 +328,55 @@ public class VGraph extends Value
 	
 	
 	/**
-	 * diameter() : Returns the graph diameter.
+	 * cores() : Returns a stream of the core numbers of the nodes, in the same order as nodes().  Edge
+	 *           directions are ignored, so a node's degree is its number of distinct neighbors.
 	 */
-	public Value method_diameter(Value ... args)
+	public Value method_cores(Value ... args)
 	throws EvaluationException
 	{
 		requireCount(args, 0, 0);
-
-		return new VNumber(g.statDiameter());
+		
+		return new VStream(new SArray(g.cores()));
+	}
+	
+	
+	/**
+	 * degeneracy() : Returns the largest core number of any node.
+	 */
+	public Value method_degeneracy(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+		
+		int degeneracy = 0;
+		for (int core : g.cores())
+			degeneracy = Math.max(degeneracy, core);
+		
+		return new VNumber(degeneracy);
+	}
+	
+	
+	/**
+	 * diameter()  : Returns the graph diameter.
+	 * diameter(d) : With {"approx": true} in d, estimates it with HyperANF instead (see {@link #approximate}),
+	 *               and returns a dictionary holding a lower bound on the diameter ("value"), the 90%
+	 *               effective diameter ("effective"), and the relative standard error of the estimates
+	 *               ("error").
+	 */
+	public Value method_diameter(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		
+		HyperAnf anf = approximate(args);
+		if (anf == null)
+			return new VNumber(g.statDiameter());
+		
+		VDictionary result = new VDictionary();
+		result.set(new VString("value"),     new VNumber(anf.getDiameter()));
+		result.set(new VString("effective"), new VNumber(anf.getEffectiveDiameter(0.9)));
+		result.set(new VString("error"),     new VNumber(anf.getRelativeError()));
+		return result;
 	}
 
 	
@@ -221,6 +417,21 @@ public class VGraph extends Value
 	}
 	
 	
+	/**
+	 * eigencentrality()  : Returns the eigenvector centrality of each node, as a mapping from nodes to scores.
+	 * eigencentrality(d) : Overrides the defaults (see {@link #centrality}).
+	 */
+	public Value method_eigencentrality(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		VDictionary dict = options(args);
+		
+		return new VScores(centrality(dict).eigenvector(number(dict, "tolerance",  Centrality.TOLERANCE,  0, 1),
+		                                                (int) number(dict, "iterations", Centrality.ITERATIONS, 1, 1e9)));
+	}
+	
+	
 	/**
 	 * eo(n) : Returns a stream of edges with node n as a source.
 	 */
@@ -236,6 +447,7 @@ public class VGraph extends Value
 	
 	/**
 	 * export(s1, s2) : Exports the graph to file s1, using format s2.
+	 * The formats are csv, gexf, graphml, pdf, svg, and snap (a binary snapshot that graph(s) maps back).
 	 */
 	public Value method_export(Value ... args)
 	throws EvaluationException
@@ -276,6 +488,41 @@ public class VGraph extends Value
 	}
 	
 	
+	/**
+	 * hits()  : Returns the hub and authority scores of each node, as a dictionary holding two mappings from
+	 *           nodes to scores ("hubs" and "authorities").
+	 * hits(d) : Overrides the defaults (see {@link #centrality}).
+	 */
+	public Value method_hits(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		VDictionary dict = options(args);
+		
+		NodeScores[] scores = centrality(dict).hits(number(dict, "tolerance",  Centrality.TOLERANCE,  0, 1),
+		                                            (int) number(dict, "iterations", Centrality.ITERATIONS, 1, 1e9));
+		
+		VDictionary result = new VDictionary();
+		result.set(new VString("hubs"),        new VScores(scores[0]));
+		result.set(new VString("authorities"), new VScores(scores[1]));
+		return result;
+	}
+	
+	
+	/**
+	 * kcore(k) : Returns the k-core of the graph, the nodes with a core number of at least k and the edges
+	 *            among them.
+	 */
+	public Value method_kcore(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		int k = (int) ((VNumber) args[0].requireType(VNumber.class)).val;
+		
+		return new VGraph(g.kcore(k));
+	}
+	
+	
 	/**
 	 * ki(n) : Returns the in-degree of node n.
 	 * ki()  : Returns a stream of in-degrees in the graph. 
@@ -289,12 +536,32 @@ public class VGraph extends Value
 			Node n = ((VNode) args[0].requireType(VNode.class)).n;
 			return new VNumber(g.dstK(n));
 		} else
-			return new VStream(new SWrapperIterator(VNumber.class, g.dstK().iterator())); 
+			return new VStream(new SArray(g.dstK()));
 	}
 	
 	
 	/**
-	 * kipower() : Returns a power-law fit for the in-degree.
+	 * kifit() : Returns a discrete power-law fit for the in-degree, as a dictionary with its exponent, the start
+	 *         of the fitted tail (xmin), the Kolmogorov-Smirnov distance of the fit (ks), and the number of
+	 *         nodes in the tail.
+	 */
+	public Value method_kifit(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+		
+		PowerLaw    fit    = g.statDstKFit();
+		VDictionary result = new VDictionary();
+		result.set(new VString("exponent"), new VNumber(fit.getExponent()));
+		result.set(new VString("xmin"),     new VNumber(fit.getXmin()));
+		result.set(new VString("ks"),       new VNumber(fit.getKsDistance()));
+		result.set(new VString("tail"),     new VNumber(fit.getTailSize()));
+		return result;
+	}
+	
+	
+	/**
+	 * kipower() : Returns the maximum likelihood power-law exponent for the in-degree.
 	 */
 	public Value method_kipower(Value ... args)
 	throws EvaluationException
@@ -318,12 +585,32 @@ public class VGraph extends Value
 			Node n = ((VNode) args[0].requireType(VNode.class)).n;
 			return new VNumber(g.srcK(n));
 		} else
-			return new VStream(new SWrapperIterator(VNumber.class, g.srcK().iterator())); 
+			return new VStream(new SArray(g.srcK()));
+	}
+	
+	
+	/**
+	 * kofit() : Returns a discrete power-law fit for the out-degree, as a dictionary with its exponent, the start
+	 *         of the fitted tail (xmin), the Kolmogorov-Smirnov distance of the fit (ks), and the number of
+	 *         nodes in the tail.
+	 */
+	public Value method_kofit(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+		
+		PowerLaw    fit    = g.statSrcKFit();
+		VDictionary result = new VDictionary();
+		result.set(new VString("exponent"), new VNumber(fit.getExponent()));
+		result.set(new VString("xmin"),     new VNumber(fit.getXmin()));
+		result.set(new VString("ks"),       new VNumber(fit.getKsDistance()));
+		result.set(new VString("tail"),     new VNumber(fit.getTailSize()));
+		return result;
 	}
 	
 	
 	/**
-	 * kopower() : Returns a power-law fit for the out-degree.
+	 * kopower() : Returns the maximum likelihood power-law exponent for the out-degree.
 	 */
 	public Value method_kopower(Value ... args)
 	throws EvaluationException
@@ -343,10 +630,66 @@ public class VGraph extends Value
 	{
 		requireCount(args, 0, 1);
 		
-		if (args.length == 1)
-			g.layout((VDictionary) args[0].requireType(VDictionary.class));
-		else
-			g.layout(new VDictionary());
+		try {
+			if (args.length == 1)
+				g.layout((VDictionary) args[0].requireType(VDictionary.class));
+			else
+				g.layout(new VDictionary());
+		} catch (UnsupportedOperationException e) {
+			throw new EvaluationException("this graph can't be laid out");
+		}
+		
+		return this;
+	}
+
+	
+	/**
+	 * load(s) : Adds every edge from a stream of events (or edges) to the graph, merging repeats before they
+	 *           reach the graph.
+	 */
+	public Value method_load(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		
+		final Stream                s     = ((VStream) args[0].requireType(VStream.class)).s;
+		final EvaluationException[] error = new EvaluationException[1];
+		
+		// the graph pulls events from the stream as it goes; an evaluation error stops the pull and is
+		// rethrown once the graph has finished with what it got
+		Iterator<Event> events = new Iterator<Event>() {
+			public boolean hasNext()
+			{
+				return (error[0] == null) && !s.done();
+			}
+			
+			public Event next()
+			{
+				try {
+					Value v = s.get();
+					if (v instanceof VEdge)
+						return new BasicEvent(((VEdge) v).e.startTime(), ((VEdge) v).e);
+					return ((VEvent) v.requireType(VEvent.class)).e;
+				} catch (EvaluationException e) {
+					error[0] = e;
+					return new BasicEvent(0);
+				}
+			}
+			
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+		
+		try {
+			g.addAll(events);
+		} catch (UnsupportedOperationException e) {
+			throw new EvaluationException(e.getMessage());
+		}
+		
+		if (error[0] != null)
+			throw error[0];
 		
 		return this;
 	}
@@ -365,7 +708,7 @@ public class VGraph extends Value
 	
 	
 	/**
-	 * modularity(): Returns the modularity measure.
+	 * modularity(): Returns the modularity of the graph's Louvain communities.
 	 */
 	public Value method_modularity(Value ... args)
 	throws EvaluationException
@@ -425,14 +768,41 @@ public class VGraph extends Value
 
 	
 	/**
-	 * pathlength() : Returns the mean path length. (?)
+	 * pagerank()  : Returns the PageRank of each node, as a mapping from nodes to scores.
+	 * pagerank(d) : Overrides the defaults (see {@link #centrality}); d may also set the damping factor
+	 *               ("damping", default 0.85).
+	 */
+	public Value method_pagerank(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 1);
+		VDictionary dict = options(args);
+		
+		return new VScores(centrality(dict).pagerank(number(dict, "damping",    Centrality.DAMPING,    0, 1),
+		                                             number(dict, "tolerance",  Centrality.TOLERANCE,  0, 1),
+		                                             (int) number(dict, "iterations", Centrality.ITERATIONS, 1, 1e9)));
+	}
+	
+	
+	/**
+	 * pathlength()  : Returns the mean path length.
+	 * pathlength(d) : With {"approx": true} in d, estimates it with HyperANF instead (see {@link #approximate}),
+	 *                 and returns a dictionary holding the estimate ("value") and the relative standard error
+	 *                 of the underlying counters ("error").
 	 */
 	public Value method_pathlength(Value ... args)
 	throws EvaluationException
 	{
-		requireCount(args, 0, 0);
-
-		return new VNumber(g.statPathLength());
+		requireCount(args, 0, 1);
+		
+		HyperAnf anf = approximate(args);
+		if (anf == null)
+			return new VNumber(g.statPathLength());
+		
+		VDictionary result = new VDictionary();
+		result.set(new VString("value"), new VNumber(anf.getPathLength()));
+		result.set(new VString("error"), new VNumber(anf.getRelativeError()));
+		return result;
 	}
 
 	
@@ -449,7 +819,7 @@ public class VGraph extends Value
 			Node n = ((VNode) args[0].requireType(VNode.class)).n;
 			return new VNumber(g.dstS(n));
 		} else
-			return new VStream(new SWrapperIterator(VNumber.class, g.dstS().iterator())); 
+			return new VStream(new SArray(g.dstS()));
 	}
 
 
@@ -466,7 +836,7 @@ public class VGraph extends Value
 			Node n = ((VNode) args[0].requireType(VNode.class)).n;
 			return new VNumber(g.srcS(n));
 		} else
-			return new VStream(new SWrapperIterator(VNumber.class, g.srcS().iterator())); 
+			return new VStream(new SArray(g.srcS()));
 	}
 	
 	
@@ -480,4 +850,151 @@ public class VGraph extends Value
 		
 		return new VGraph(g.trustedGraph());
 	}
+	
+	
+	/**
+	 * window(t0, t1) : Returns the graph of edges seen between times t0 and t1, inclusive.  Only temporal graphs
+	 *                  keep the history needed for this.
+	 */
+	public Value method_window(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 2, 2);
+		
+		int t0 = (int) ((VNumber) args[0].requireType(VNumber.class)).val;
+		int t1 = (int) ((VNumber) args[1].requireType(VNumber.class)).val;
+		
+		return new VGraph(temporal().window(t0, t1));
+	}
+	
+	
+	/**
+	 * windows(t0, t1, w, s) : Returns a stream of the graphs for windows of length w, starting at t0 and
+	 *                         every s seconds after that up to t1.  Each graph is built as it's read.
+	 */
+	public Value method_windows(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 4, 4);
+		
+		int t0    = (int) ((VNumber) args[0].requireType(VNumber.class)).val;
+		int t1    = (int) ((VNumber) args[1].requireType(VNumber.class)).val;
+		int width = (int) ((VNumber) args[2].requireType(VNumber.class)).requireRange(1, Integer.MAX_VALUE).val;
+		int step  = (int) ((VNumber) args[3].requireType(VNumber.class)).requireRange(1, Integer.MAX_VALUE).val;
+		
+		final Iterator<Graph> windows = temporal().windows(t0, t1, width, step);
+		
+		return new VStream(new SIterator(new Iterator<Value>() {
+			public boolean hasNext()
+			{
+				return windows.hasNext();
+			}
+			
+			public Value next()
+			{
+				return new VGraph(windows.next());
+			}
+			
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		}));
+	}
+	
+	
+	/**
+	 * Returns the underlying graph as a temporal graph, or fails if it doesn't keep a history.
+	 */
+	TemporalGraph temporal()
+	throws EvaluationException
+	{
+		if (!(g instanceof TemporalGraph))
+			throw new EvaluationException("graph has no time index; create it with graph({\"backend\": \"temporal\"})");
+		
+		return (TemporalGraph) g;
+	}
+	
+	
+	/**
+	 * Runs HyperANF on the graph if the optional configuration dictionary in args asks for an approximation,
+	 * and returns null otherwise.  The dictionary understands:
+	 * 
+	 *   approx    (Boolean) : true to approximate rather than search from every node
+	 *   precision (Number)  : the base-two logarithm of the number of registers per counter, from 4 to 16
+	 *                         (default 7); each step up divides the error by the square root of two and
+	 *                         doubles the memory
+	 */
+	HyperAnf approximate(Value ... args)
+	throws EvaluationException
+	{
+		if (args.length == 0)
+			return null;
+		
+		VDictionary dict = (VDictionary) args[0].requireType(VDictionary.class);
+		if (!((VBoolean) dict.method_has(new VString("approx"))).val ||
+		    !((VBoolean) dict.method_get(new VString("approx")).requireType(VBoolean.class)).val)
+			return null;
+		
+		int precision = 7;
+		if (((VBoolean) dict.method_has(new VString("precision"))).val)
+			precision = (int) ((VNumber) dict.method_get(new VString("precision")).requireType(VNumber.class))
+			                   .requireRange(4, 16).val;
+		
+		try {
+			return new HyperAnf(g.csr(), precision);
+		} catch (IllegalArgumentException e) {
+			throw new EvaluationException(e.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * Returns the configuration dictionary in args, or an empty one if there isn't one.
+	 */
+	static VDictionary options(Value ... args)
+	throws EvaluationException
+	{
+		if (args.length == 0)
+			return new VDictionary();
+		
+		return (VDictionary) args[0].requireType(VDictionary.class);
+	}
+	
+	
+	/**
+	 * Returns the number under the given key in the configuration dictionary, or the default if it isn't
+	 * there, and fails if it's out of range.
+	 */
+	static double number(VDictionary dict, String key, double def, double min, double max)
+	throws EvaluationException
+	{
+		if (!((VBoolean) dict.method_has(new VString(key))).val)
+			return def;
+		
+		return ((VNumber) dict.method_get(new VString(key)).requireType(VNumber.class)).requireRange(min, max).val;
+	}
+	
+	
+	/**
+	 * Prepares to rank the nodes of the graph by power iteration, with the edge attribute named in the
+	 * configuration dictionary.  Besides their own settings, the centralities all understand:
+	 * 
+	 *   weight     (String) : the edge attribute to weight edges by, "weight" (the default) or "trust"; edges
+	 *                         whose attribute isn't positive are ignored
+	 *   tolerance  (Number) : the total change in the scores at which to stop (default 1e-8)
+	 *   iterations (Number) : the most iterations to run (default 200)
+	 */
+	Centrality centrality(VDictionary dict)
+	throws EvaluationException
+	{
+		String attribute = "weight";
+		if (((VBoolean) dict.method_has(new VString("weight"))).val)
+			attribute = ((VString) dict.method_get(new VString("weight")).requireType(VString.class)).val;
+		
+		if (!attribute.equals("weight") && !attribute.equals("trust"))
+			throw new EvaluationException("unknown edge attribute: " + attribute);
+		
+		return new Centrality(g.csr(), attribute.equals("trust"), Parallel.threads());
+	}
 }
@@ -2,6 +2,7 @@ package edu.iu.cnets.klatsch.lang;
 
 import edu.iu.cnets.klatsch.exception.EvaluationException;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.basic.BasicNode;
 import edu.iu.cnets.klatsch.model.gephi.GephiNode;
 
 
@@ -23,6 +24,15 @@ public class VNode extends Value
 	}
 	
 	
+	/**
+	 * Constructs a new node.
+	 */
+	public VNode(BasicNode n)
+	{
+		this.n = n;
+	}
+	
+	
 	/**
 	 * Constructs a new node.
 	 */
@@ -3,7 +3,9 @@ package edu.iu.cnets.klatsch.lang;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 import edu.iu.cnets.klatsch.Main;
@@ -14,11 +16,18 @@ import edu.iu.cnets.klatsch.gui.Pane;
 import edu.iu.cnets.klatsch.misc.Utility;
 import edu.iu.cnets.klatsch.model.Feed;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.csr.ConcurrentGraphBuilder;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.model.csr.RandomGraphs;
+import edu.iu.cnets.klatsch.model.csr.SnapshotGraph;
+import edu.iu.cnets.klatsch.model.csr.TemporalGraph;
 import edu.iu.cnets.klatsch.model.gephi.GephiEdge;
 import edu.iu.cnets.klatsch.model.gephi.GephiGraph;
 import edu.iu.cnets.klatsch.model.gephi.GephiNode;
+import edu.iu.cnets.klatsch.model.window.WindowGraph;
 import edu.iu.cnets.klatsch.parser.Parser;
 import edu.iu.cnets.klatsch.parser.TokenStream;
+import edu.iu.cnets.klatsch.stat.Parallel;
 import edu.iu.cnets.klatsch.stream.SRange;
 
 
@@ -67,8 +76,15 @@ public class VPrimitive extends Value implements Callable
 		try {
 			return (Value) prim.invoke(this, (Object) args);
 		} catch (InvocationTargetException e) {
-			e.printStackTrace();
-			throw (EvaluationException) e.getCause();
+			Throwable cause = e.getCause();
+			if (cause instanceof EvaluationException)
+				throw (EvaluationException) cause;
+			else if (cause instanceof IllegalStateException)
+				throw new EvaluationException(cause.getMessage());
+			else {
+				cause.printStackTrace();
+				throw new EvaluationException(cause.toString());
+			}
 		} catch (IllegalAccessException e) {
 			throw (EvaluationException) e.getCause();
 		}
@@ -252,8 +268,8 @@ public class VPrimitive extends Value implements Callable
 	throws EvaluationException
 	{
 		requireCount(args, 2, 6);
-		GephiNode src = (GephiNode) ((VNode) args[0].requireType(VNode.class)).n;
-		GephiNode dst = (GephiNode) ((VNode) args[1].requireType(VNode.class)).n;
+		GephiNode src = GephiNode.valueOf(((VNode) args[0].requireType(VNode.class)).n);
+		GephiNode dst = GephiNode.valueOf(((VNode) args[1].requireType(VNode.class)).n);
 		
 		if (args.length == 3) {
 			double w = ((VNumber) args[2].requireType(VNumber.class)).val;
@@ -378,38 +394,150 @@ public class VPrimitive extends Value implements Callable
 
 	/**
 	 * graph()  : Creates a new graph.
-	 * graph(s) : Imports a graph from the file s. 
+	 * graph(s) : Imports a graph from the file s.  Snapshots (".snap" files) are mapped read-only rather than read.
+	 * graph(l) : Merges the snapshots named in the list l, such as one per time partition, reading them in
+	 *            parallel into one read-only graph.
+	 * graph(d) : Creates a new graph using the configuration dictionary d, which understands:
+	 * 
+	 *   backend (String) : "gephi" (the default), "csr" for the compact primitive-array representation,
+	 *                      "temporal" for a CSR graph that also indexes its edges by time, or "window" for a
+	 *                      graph that only keeps the edges seen during a sliding window of time
+	 *   window  (Number) : the length of the window in seconds, for the "window" backend (default 3600)
 	 */
 	public Value prim_graph(Value ... args)
 	throws EvaluationException
 	{
 		requireCount(args, 0, 1);
 		
-		if (args.length == 1)
-			return new VGraph(new GephiGraph(((VString) args[0].requireType(VString.class)).val));
-		else
+		if ((args.length == 1) && (args[0] instanceof VDictionary)) {
+			VDictionary dict    = (VDictionary) args[0];
+			String      backend = "gephi";
+			if (((VBoolean) dict.method_has(new VString("backend"))).val)
+				backend = ((VString) dict.method_get(new VString("backend")).requireType(VString.class)).val;
+			
+			int window = 3600;
+			if (((VBoolean) dict.method_has(new VString("window"))).val)
+				window = (int) ((VNumber) dict.method_get(new VString("window")).requireType(VNumber.class))
+				                 .requireRange(1, Integer.MAX_VALUE).val;
+			
+			     if (backend.equals("gephi"))    return new VGraph(new GephiGraph());
+			else if (backend.equals("csr"))      return new VGraph(new CsrGraph());
+			else if (backend.equals("temporal")) return new VGraph(new TemporalGraph());
+			else if (backend.equals("window"))   return new VGraph(new WindowGraph(window));
+			else
+				throw new EvaluationException("Unknown graph backend '" + backend + "'");
+		}
+		
+		if ((args.length == 1) && (args[0] instanceof VList)) {
+			Value[]             paths = ((VList) args[0]).ls;
+			List<SnapshotGraph> parts = new ArrayList<SnapshotGraph>();
+			
+			try {
+				for (Value v : paths) {
+					String path = ((VString) v.requireType(VString.class)).val;
+					if (!SnapshotGraph.isSnapshot(path))
+						throw new EvaluationException("only snapshots can be merged: '" + path + "'");
+					parts.add(new SnapshotGraph(path));
+				}
+				
+				return new VGraph(ConcurrentGraphBuilder.merge(parts, Parallel.threads()));
+			} finally {
+				for (SnapshotGraph part : parts)
+					part.close();
+			}
+		}
+		
+		if (args.length == 1) {
+			String path = ((VString) args[0].requireType(VString.class)).val;
+			if (SnapshotGraph.isSnapshot(path))
+				return new VGraph(new SnapshotGraph(path));
+			else
+				return new VGraph(new GephiGraph(path));
+		} else
 			return new VGraph(new GephiGraph());
 	}
 
 	
 	/**
-	 * grapher(n, p) : Creates a new Erdos-Renyi random graph with n nodes and edge probability p. 
+	 * graphba(n, m) : Creates a new Barabasi-Albert random graph with n nodes, each new one of which links to m
+	 * older nodes in proportion to their degree.  An optional dictionary may give the "seed".
+	 */
+	public Value prim_graphba(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 2, 3);
+		int n = (int) ((VNumber) args[0].requireType(VNumber.class)).requireRange(2, Integer.MAX_VALUE).val;
+		int m = (int) ((VNumber) args[1].requireType(VNumber.class)).requireRange(1, n - 1).val;
+
+		try {
+			return new VGraph(RandomGraphs.barabasiAlbert(n, m, seed(args, 2)));
+		} catch (IllegalArgumentException e) {
+			throw new EvaluationException(e.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * graphcm(ko, ki) : Creates a new random graph from the configuration model, where node i has out-degree
+	 * ko[i] and in-degree ki[i].  Repeated edges are merged into one edge with a higher weight.  An optional
+	 * dictionary may give the "seed".
+	 */
+	public Value prim_graphcm(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 2, 3);
+		VList ko = (VList) args[0].requireType(VList.class);
+		VList ki = (VList) args[1].requireType(VList.class);
+		
+		int[] kOut = new int[ko.ls.length];
+		int[] kIn  = new int[ki.ls.length];
+		for (int i = 0; i < kOut.length; ++i)
+			kOut[i] = (int) ((VNumber) ko.ls[i].requireType(VNumber.class)).requireRange(0, Integer.MAX_VALUE).val;
+		for (int i = 0; i < kIn.length; ++i)
+			kIn [i] = (int) ((VNumber) ki.ls[i].requireType(VNumber.class)).requireRange(0, Integer.MAX_VALUE).val;
+		
+		try {
+			return new VGraph(RandomGraphs.configuration(kOut, kIn, seed(args, 2)));
+		} catch (IllegalArgumentException e) {
+			throw new EvaluationException(e.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * grapher(n, p) : Creates a new Erdos-Renyi random graph with n nodes and edge probability p, without
+	 * self-loops.  An optional dictionary may give the "seed".
 	 */
 	public Value prim_grapher(Value ... args)
 	throws EvaluationException
 	{
-		requireCount(args, 2, 2);
+		requireCount(args, 2, 3);
 		int    n = (int) ((VNumber) args[0].requireType(VNumber.class)).requireRange(0, Integer.MAX_VALUE).val;
 		double p =       ((VNumber) args[1].requireType(VNumber.class)).requireRange(0, 1).val;
 
-		GephiGraph g = new GephiGraph();
-			
-		for (int i = 0; i < n; ++i)
-			for (int j = 0; j < n; ++j)
-				if (Math.random() <= p)
-					g.add(new GephiEdge(new GephiNode(Node.TYPE_ACTOR, i), new GephiNode(Node.TYPE_ACTOR, j)));
-
-		return new VGraph(g);
+		try {
+			return new VGraph(RandomGraphs.erdosRenyi(n, p, seed(args, 2)));
+		} catch (IllegalArgumentException e) {
+			throw new EvaluationException(e.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * Returns the "seed" from the configuration dictionary that the random graph primitives accept as the
+	 * argument at the given position, or a fresh seed if there's no such argument or no such key.
+	 */
+	static long seed(Value[] args, int i)
+	throws EvaluationException
+	{
+		if (args.length <= i)
+			return System.nanoTime();
+		
+		VDictionary dict = (VDictionary) args[i].requireType(VDictionary.class);
+		if (!((VBoolean) dict.method_has(new VString("seed"))).val)
+			return System.nanoTime();
+		
+		return (long) ((VNumber) dict.method_get(new VString("seed")).requireType(VNumber.class)).val;
 	}
 
 	
@@ -0,0 +1,126 @@
+package edu.iu.cnets.klatsch.lang;
+
+import edu.iu.cnets.klatsch.exception.EvaluationException;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.stat.NodeScores;
+import edu.iu.cnets.klatsch.stream.SArray;
+import edu.iu.cnets.klatsch.stream.SWrapperIterator;
+
+
+/**
+ * This value maps the nodes of a graph to scores, such as their centralities.  The scores stay in primitive
+ * arrays until somebody asks for them, so ranking a large graph doesn't box a value for every node.
+ */
+public class VScores extends Value
+{
+	/** the scores we're encapsulating */
+	NodeScores scores;
+
+
+	/**
+	 * Constructs a new mapping.
+	 */
+	public VScores(NodeScores scores)
+	{
+		this.scores = scores;
+	}
+
+
+	/**
+	 * Creates a (largely opaque) printed representation of the mapping.
+	 */
+	public String toString()
+	{
+		return "Scores<N=" + scores.size() + ">";
+	}
+
+
+	/**
+	 * Creates a JSON representation of the mapping, as a list of [node, score] pairs.
+	 */
+	public String toJson()
+	{
+		StringBuffer buffer = new StringBuffer();
+
+		buffer.append('[');
+		for (int i = 0; i < scores.size(); ++i) {
+			buffer.append('[');
+			buffer.append(new VNode(scores.node(i)).toJson());
+			buffer.append(',');
+			buffer.append(new VNumber(scores.score(i)).toJson());
+			buffer.append(']');
+			if ((i + 1) < scores.size())
+				buffer.append(',');
+		}
+		buffer.append(']');
+
+		return buffer.toString();
+	}
+
+
+	/**
+	 * get(n) : Returns the score of node n, or NaN if n isn't in the mapping.
+	 */
+	public Value method_get(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		Node n = ((VNode) args[0].requireType(VNode.class)).n;
+
+		return new VNumber(scores.get(n));
+	}
+
+
+	/**
+	 * len() : Returns the number of nodes in the mapping.
+	 */
+	public Value method_len(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+
+		return new VNumber(scores.size());
+	}
+
+
+	/**
+	 * nodes() : Returns a stream of the nodes in the mapping.
+	 */
+	public Value method_nodes(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+
+		return new VStream(new SWrapperIterator(VNode.class, scores.nodes().iterator()));
+	}
+
+
+	/**
+	 * scores() : Returns a stream of the scores, in the same order as nodes().
+	 */
+	public Value method_scores(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 0, 0);
+
+		return new VStream(new SArray(scores.scores()));
+	}
+
+
+	/**
+	 * top(k) : Returns a list of the k nodes with the highest scores, highest first.
+	 */
+	public Value method_top(Value ... args)
+	throws EvaluationException
+	{
+		requireCount(args, 1, 1);
+		int k = (int) ((VNumber) args[0].requireType(VNumber.class)).requireRange(0, Integer.MAX_VALUE).val;
+
+		int[]   top    = scores.top(k);
+		Value[] vNodes = new Value[top.length];
+		for (int i = 0; i < top.length; ++i)
+			vNodes[i] = new VNode(scores.node(top[i]));
+
+		return new VList(vNodes);
+	}
+}
@@ -0,0 +1,89 @@
+package edu.iu.cnets.klatsch.misc;
+
+
+/**
+ * This is a small, fast pseudo-random number generator (SplitMix64), for code that draws millions of numbers
+ * and needs to be repeatable from a seed.  It's not thread-safe; threads that need random numbers should
+ * each take their own stream with {@link #FastRandom(long, long)}, which also keeps the results independent
+ * of how work happens to be divided among them.
+ */
+public class FastRandom
+{
+	/** the increment of the underlying Weyl sequence (2^64 divided by the golden ratio) */
+	static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+	/** the current position in the sequence */
+	long state;
+
+
+	/**
+	 * Creates a generator from the given seed.
+	 */
+	public FastRandom(long seed)
+	{
+		state = seed;
+	}
+
+
+	/**
+	 * Creates the generator for one of several streams drawn from the same seed, such as one per block of
+	 * work.  Different streams start from scrambled, unrelated points in the sequence.
+	 */
+	public FastRandom(long seed, long stream)
+	{
+		state = mix(seed + GOLDEN * (stream + 1)) ^ mix(~stream);
+	}
+
+
+	/**
+	 * Scrambles the bits of a value (the SplitMix64 finalizer).
+	 */
+	static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+
+	/**
+	 * Returns a random long, with all 2^64 values equally likely.
+	 */
+	public long nextLong()
+	{
+		state += GOLDEN;
+		return mix(state);
+	}
+
+
+	/**
+	 * Returns a random double in [0, 1).
+	 */
+	public double nextDouble()
+	{
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+
+	/**
+	 * Returns a random int in [0, bound), with every value equally likely.  This is Lemire's multiply-and-
+	 * shift method, which only needs a division in the rare case that the first draw might be biased.
+	 *
+	 * @param bound  the upper bound, which must be positive
+	 */
+	public int nextInt(int bound)
+	{
+		long product = (nextLong() >>> 32) * bound;
+		long low     = product & 0xffffffffL;
+
+		if (low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while (low < threshold) {
+				product = (nextLong() >>> 32) * bound;
+				low     = product & 0xffffffffL;
+			}
+		}
+
+		return (int) (product >>> 32);
+	}
+}
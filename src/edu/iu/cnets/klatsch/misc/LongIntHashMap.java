@@ -0,0 +1,232 @@
+package edu.iu.cnets.klatsch.misc;
+
+import java.util.Arrays;
+
+
+/**
+ * This is an open-addressing hash table that maps primitive long keys to primitive int values without
+ * allocating an object per entry.  It's meant for the hot paths in the graph backends, where keys are
+ * usually two ints packed into a long (e.g., a node's type and ID, or an edge's endpoints).
+ *
+ * The key {@link Long#MIN_VALUE} is reserved to mark empty slots and may not be stored.
+ */
+public class LongIntHashMap
+{
+	/** the value returned by {@link #get} for missing keys */
+	public static final int  NONE  = -1;
+
+	/** the marker for an empty slot */
+	static final long        EMPTY = Long.MIN_VALUE;
+
+	/** the maximum fraction of slots that may be in use before we grow the table */
+	static final double      LOAD  = 0.6;
+
+	/** the keys in the table */
+	long[] keys;
+
+	/** the values in the table */
+	int[]  vals;
+
+	/** the number of entries in use */
+	int    size;
+
+	/** the number of entries at which we grow the table */
+	int    limit;
+
+	/** the bit mask for converting a hash into a slot */
+	int    mask;
+
+
+	/**
+	 * Creates an empty table with a default capacity.
+	 */
+	public LongIntHashMap()
+	{
+		this(16);
+	}
+
+
+	/**
+	 * Creates an empty table that can hold the given number of entries without growing.
+	 *
+	 * @param capacity  the expected number of entries
+	 */
+	public LongIntHashMap(int capacity)
+	{
+		int slots = 16;
+		while (slots * LOAD < capacity)
+			slots <<= 1;
+
+		allocate(slots);
+	}
+
+
+	/**
+	 * Creates a copy of the given table.
+	 */
+	public LongIntHashMap(LongIntHashMap other)
+	{
+		keys  = other.keys.clone();
+		vals  = other.vals.clone();
+		size  = other.size;
+		limit = other.limit;
+		mask  = other.mask;
+	}
+
+
+	/**
+	 * Packs two ints into a single key.
+	 *
+	 * @param hi  the high-order half
+	 * @param lo  the low-order half
+	 * @return the key
+	 */
+	public static long key(int hi, int lo)
+	{
+		return ((long) hi << 32) | (lo & 0xffffffffL);
+	}
+
+
+	/**
+	 * Removes every entry from the table.
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+
+	/**
+	 * Returns true if the table contains the given key.
+	 */
+	public boolean containsKey(long key)
+	{
+		return keys[find(key)] != EMPTY;
+	}
+
+
+	/**
+	 * Returns the value associated with the given key, or {@link #NONE} if there isn't one.
+	 */
+	public int get(long key)
+	{
+		int slot = find(key);
+		return (keys[slot] == EMPTY) ? NONE : vals[slot];
+	}
+
+
+	/**
+	 * Associates the key with the given value, replacing any existing association.
+	 *
+	 * @return the previous value, or {@link #NONE} if there wasn't one
+	 */
+	public int put(long key, int val)
+	{
+		if (key == EMPTY)
+			throw new IllegalArgumentException("reserved key");
+
+		int slot = find(key);
+		if (keys[slot] != EMPTY) {
+			int old = vals[slot];
+			vals[slot] = val;
+			return old;
+		}
+
+		keys[slot] = key;
+		vals[slot] = val;
+		if (++size > limit)
+			allocate(keys.length << 1);
+
+		return NONE;
+	}
+
+
+	/**
+	 * Removes any association for the given key.
+	 *
+	 * @return the value that was removed, or {@link #NONE} if there wasn't one
+	 */
+	public int remove(long key)
+	{
+		int slot = find(key);
+		if (keys[slot] == EMPTY)
+			return NONE;
+
+		int old = vals[slot];
+
+		// shift later members of the probe chain back so that lookups never stop at the hole
+		int hole = slot;
+		for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				vals[hole] = vals[next];
+				hole       = next;
+			}
+		}
+
+		keys[hole] = EMPTY;
+		--size;
+		return old;
+	}
+
+
+	/**
+	 * Returns the number of entries in the table.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+
+	/**
+	 * Replaces the storage with an empty table of the given size and re-inserts the current entries.
+	 */
+	void allocate(int slots)
+	{
+		long[] oldKeys = keys;
+		int[]  oldVals = vals;
+
+		keys  = new long[slots];
+		vals  = new int [slots];
+		mask  = slots - 1;
+		limit = (int) (slots * LOAD);
+		Arrays.fill(keys, EMPTY);
+
+		if (oldKeys != null)
+			for (int i = 0; i < oldKeys.length; ++i)
+				if (oldKeys[i] != EMPTY) {
+					int slot = find(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					vals[slot] = oldVals[i];
+				}
+	}
+
+
+	/**
+	 * Returns the slot that holds the given key, or the empty slot where it would go.
+	 */
+	int find(long key)
+	{
+		int slot = hash(key) & mask;
+		while ((keys[slot] != EMPTY) && (keys[slot] != key))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+
+	/**
+	 * Scrambles the bits of a key (the finalizer from MurmurHash3).
+	 */
+	public static int hash(long key)
+	{
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
@@ -0,0 +1,206 @@
+package edu.iu.cnets.klatsch.misc;
+
+import java.util.Arrays;
+
+
+/**
+ * This is a growable union-find (disjoint-set) structure over the elements 0, 1, 2, ..., for keeping track of
+ * connected components as edges arrive.  It uses union by size and path halving, so any sequence of
+ * operations costs O(alpha(n)) apiece in amortized terms, and it keeps the number of sets and the size of
+ * each set as it goes.
+ *
+ * Sets can only be merged, never split, so a structure that has to forget an edge must be rebuilt.
+ */
+public class UnionFind
+{
+	/** the parent of each element, which is the element itself for a root */
+	int[] parent;
+
+	/** the size of the set rooted at each element (meaningless for non-roots) */
+	int[] size;
+
+	/** the number of elements */
+	int   count;
+
+	/** the number of sets */
+	int   sets;
+
+
+	/**
+	 * Creates an empty structure.
+	 */
+	public UnionFind()
+	{
+		this(16);
+	}
+
+
+	/**
+	 * Creates an empty structure that can hold the given number of elements without growing.
+	 *
+	 * @param capacity  the expected number of elements
+	 */
+	public UnionFind(int capacity)
+	{
+		parent = new int[Math.max(capacity, 1)];
+		size   = new int[parent.length];
+	}
+
+
+	/**
+	 * Creates a copy of the given structure, which is independent of it from then on.
+	 */
+	public UnionFind(UnionFind other)
+	{
+		parent = Arrays.copyOf(other.parent, Math.max(other.count, 1));
+		size   = Arrays.copyOf(other.size,   parent.length);
+		count  = other.count;
+		sets   = other.sets;
+	}
+
+
+	/**
+	 * Adds a new element in a set of its own.
+	 *
+	 * @return the new element, which is the number of elements that came before it
+	 */
+	public int add()
+	{
+		if (count == parent.length) {
+			parent = Arrays.copyOf(parent, count * 2);
+			size   = Arrays.copyOf(size,   count * 2);
+		}
+
+		parent[count] = count;
+		size  [count] = 1;
+		++sets;
+
+		return count++;
+	}
+
+
+	/**
+	 * Returns the root of the set containing element v, halving the path as it goes.
+	 */
+	public int find(int v)
+	{
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v         = parent[v];
+		}
+
+		return v;
+	}
+
+
+	/**
+	 * Merges the sets containing elements a and b.
+	 *
+	 * @return true if they were in different sets
+	 */
+	public boolean union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+
+		if (a == b)
+			return false;
+
+		if (size[a] < size[b]) {
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+
+		parent[b]  = a;
+		size  [a] += size[b];
+		--sets;
+
+		return true;
+	}
+
+
+	/**
+	 * Returns true if elements a and b are in the same set.
+	 */
+	public boolean connected(int a, int b)
+	{
+		return find(a) == find(b);
+	}
+
+
+	/**
+	 * Returns the number of elements in the set containing element v.
+	 */
+	public int size(int v)
+	{
+		return size[find(v)];
+	}
+
+
+	/** Returns the number of elements. */
+	public int count()
+	{
+		return count;
+	}
+
+
+	/** Returns the number of sets. */
+	public int sets()
+	{
+		return sets;
+	}
+
+
+	/**
+	 * Returns a dense label for each element, numbering the sets from zero in order of their lowest element.
+	 */
+	public int[] labels()
+	{
+		int[] number = new int[count];
+		int[] label  = new int[count];
+		int   next   = 0;
+
+		Arrays.fill(number, -1);
+		for (int v = 0; v < count; ++v) {
+			int root = find(v);
+			if (number[root] < 0)
+				number[root] = next++;
+			label[v] = number[root];
+		}
+
+		return label;
+	}
+
+
+	/**
+	 * Returns the size of each set, in the order in which {@link #labels} numbers them.
+	 */
+	public int[] sizes()
+	{
+		int[] result = new int[sets];
+		int[] number = new int[count];
+		int   next   = 0;
+
+		Arrays.fill(number, -1);
+		for (int v = 0; v < count; ++v) {
+			int root = find(v);
+			if (number[root] < 0) {
+				number[root]   = next;
+				result[next++] = size[root];
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Removes every element.
+	 */
+	public void clear()
+	{
+		count = 0;
+		sets  = 0;
+	}
+}
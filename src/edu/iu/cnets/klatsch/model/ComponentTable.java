@@ -0,0 +1,176 @@
+package edu.iu.cnets.klatsch.model;
+
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.misc.UnionFind;
+
+
+/**
+ * This class keeps track of the weakly connected components of any graph, using a union-find structure over
+ * the nodes' (type, ID) keys so that it doesn't need a copy of the graph to work from.  A table can label an
+ * existing graph all at once, or start out empty and follow a graph as edges are added to it, in which case
+ * {@link #count}, {@link #size}, and {@link #connected} take O(alpha(n)) time however large the graph gets.
+ *
+ * Components are numbered from zero in the order in which their first node reached the table: for a table
+ * built from a graph, that's the order of the graph's {@link Graph#nodes} iterator.  Since components can
+ * merge, the numbers of the later ones can shift as edges are added.  Numbering costs a pass over the nodes,
+ * which is done the first time {@link #label} or {@link #sizes} is called after a change.
+ */
+public class ComponentTable
+{
+	/** maps from a node's (type, ID) key to its slot */
+	LongIntHashMap index;
+
+	/** the components, as sets of slots */
+	UnionFind      sets;
+
+	/** the component number of each slot, or null if it needs to be recomputed */
+	int[]          label;
+
+	/** the number of nodes in each component, or null if it needs to be recomputed */
+	int[]          size;
+
+
+	/**
+	 * Creates an empty table.
+	 */
+	public ComponentTable()
+	{
+		index = new LongIntHashMap();
+		sets  = new UnionFind();
+	}
+
+
+	/**
+	 * Labels the components of the given graph.
+	 */
+	public ComponentTable(Graph g)
+	{
+		this();
+
+		for (Node n : g.nodes())
+			add(n);
+
+		for (Edge e : g.edges())
+			add(e.src(), e.dst());
+	}
+
+
+	/**
+	 * Creates a copy of the given table, which stays as it is when the original changes.
+	 */
+	public ComponentTable(ComponentTable other)
+	{
+		index = new LongIntHashMap(other.index);
+		sets  = new UnionFind(other.sets);
+		label = other.label;
+		size  = other.size;
+	}
+
+
+	/**
+	 * Returns the slot for the given node, giving it a new singleton component if we haven't seen it.
+	 */
+	int slot(Node n)
+	{
+		long key = LongIntHashMap.key(n.type(), n.id());
+		int  v   = index.get(key);
+
+		if (v == LongIntHashMap.NONE) {
+			v = sets.add();
+			index.put(key, v);
+			label = null;
+			size  = null;
+		}
+
+		return v;
+	}
+
+
+	/**
+	 * Adds the given node, if it isn't already in the table, as a component of its own.
+	 */
+	public void add(Node n)
+	{
+		slot(n);
+	}
+
+
+	/**
+	 * Adds an edge between the given nodes, adding them first if need be and merging their components.
+	 */
+	public void add(Node src, Node dst)
+	{
+		if (sets.union(slot(src), slot(dst))) {
+			label = null;
+			size  = null;
+		}
+	}
+
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear()
+	{
+		index.clear();
+		sets.clear();
+		label = null;
+		size  = null;
+	}
+
+
+	/**
+	 * Numbers the components, if anything has changed since the last time.
+	 */
+	void number()
+	{
+		if (label == null) {
+			label = sets.labels();
+			size  = sets.sizes();
+		}
+	}
+
+
+	/** Returns the number of components. */
+	public int count()
+	{
+		return sets.sets();
+	}
+
+
+	/** Returns the number of nodes in each component. */
+	public int[] sizes()
+	{
+		number();
+		return size.clone();
+	}
+
+
+	/** Returns the component containing the given node, or -1 if the node isn't in the graph. */
+	public int label(Node n)
+	{
+		int v = index.get(LongIntHashMap.key(n.type(), n.id()));
+		if (v < 0)
+			return -1;
+
+		number();
+		return label[v];
+	}
+
+
+	/** Returns the size of the component containing the given node, or zero if the node isn't in the graph. */
+	public int size(Node n)
+	{
+		int v = index.get(LongIntHashMap.key(n.type(), n.id()));
+		return (v < 0) ? 0 : sets.size(v);
+	}
+
+
+	/** Returns true if the given nodes are both in the graph and in the same component. */
+	public boolean connected(Node a, Node b)
+	{
+		int u = index.get(LongIntHashMap.key(a.type(), a.id()));
+		int v = index.get(LongIntHashMap.key(b.type(), b.id()));
+		return (u >= 0) && (v >= 0) && sets.connected(u, v);
+	}
+}
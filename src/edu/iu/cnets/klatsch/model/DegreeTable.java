@@ -0,0 +1,253 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.Arrays;
+
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.stat.DegreeHistogram;
+
+
+/**
+ * This class keeps running in- and out-degrees and strengths for the nodes of a graph, so that a backend can
+ * answer degree queries in constant time by updating the counters as edges are added instead of scanning its
+ * edges on every query.
+ *
+ * Nodes are identified by (type, ID), as in the rest of the model, and each one is given a slot in a set of
+ * parallel primitive arrays the first time it's seen.
+ */
+public class DegreeTable
+{
+	/** maps from a node's (type, ID) key to its slot */
+	LongIntHashMap index;
+
+	/** the number of slots in use */
+	int            count;
+
+	/** the out-degree and in-degree of each node */
+	int[]          srcK;
+	int[]          dstK;
+
+	/** the out-strength and in-strength of each node */
+	double[]       srcS;
+	double[]       dstS;
+
+	/** the number of nodes with at least one outgoing or incoming edge */
+	int            srcCount;
+	int            dstCount;
+
+	/** the number of distinct edges recorded */
+	int            edgeCount;
+
+
+	/**
+	 * Creates an empty table.
+	 */
+	public DegreeTable()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Forgets every node.
+	 */
+	public void clear()
+	{
+		index     = new LongIntHashMap();
+		count     = 0;
+		srcK      = new int   [16];
+		dstK      = new int   [16];
+		srcS      = new double[16];
+		dstS      = new double[16];
+		srcCount  = 0;
+		dstCount  = 0;
+		edgeCount = 0;
+	}
+
+
+	/**
+	 * Returns the slot for the given node, adding it to the table if necessary.
+	 */
+	public int addNode(Node n)
+	{
+		long key  = LongIntHashMap.key(n.type(), n.id());
+		int  slot = index.get(key);
+
+		if (slot == LongIntHashMap.NONE) {
+			if (count == srcK.length) {
+				int size = count * 2;
+				srcK = Arrays.copyOf(srcK, size);
+				dstK = Arrays.copyOf(dstK, size);
+				srcS = Arrays.copyOf(srcS, size);
+				dstS = Arrays.copyOf(dstS, size);
+			}
+
+			slot = count++;
+			index.put(key, slot);
+		}
+
+		return slot;
+	}
+
+
+	/**
+	 * Records an edge between the given nodes.  If the edge is new, the degrees of its endpoints go up by one;
+	 * if it's being merged into an existing edge, only the strengths change.
+	 *
+	 * @param src     the source node
+	 * @param dst     the destination node
+	 * @param weight  the weight being added
+	 * @param isNew   true if there was no edge between these nodes before
+	 */
+	public void addEdge(Node src, Node dst, double weight, boolean isNew)
+	{
+		int s = addNode(src);
+		int d = addNode(dst);
+
+		if (isNew) {
+			if (srcK[s]++ == 0)  ++srcCount;
+			if (dstK[d]++ == 0)  ++dstCount;
+			++edgeCount;
+		}
+
+		srcS[s] += weight;
+		dstS[d] += weight;
+	}
+
+
+	/** Returns the number of nodes in the table. */
+	public int nodeCount()
+	{
+		return count;
+	}
+
+
+	/** Returns the number of distinct edges recorded. */
+	public int edgeCount()
+	{
+		return edgeCount;
+	}
+
+
+	/** Returns the number of nodes with at least one incoming edge. */
+	public int dstCount()
+	{
+		return dstCount;
+	}
+
+
+	/** Returns the number of nodes with at least one outgoing edge. */
+	public int srcCount()
+	{
+		return srcCount;
+	}
+
+
+	/** Returns the in-degree of every node in the table, including zeros, in the order they were added. */
+	public int[] dstK()
+	{
+		return Arrays.copyOf(dstK, count);
+	}
+
+
+	/** Returns the in-strength of every node in the table, including zeros, in the order they were added. */
+	public double[] dstS()
+	{
+		return Arrays.copyOf(dstS, count);
+	}
+
+
+	/** Returns the out-degree of every node in the table, including zeros, in the order they were added. */
+	public int[] srcK()
+	{
+		return Arrays.copyOf(srcK, count);
+	}
+
+
+	/** Returns the out-strength of every node in the table, including zeros, in the order they were added. */
+	public double[] srcS()
+	{
+		return Arrays.copyOf(srcS, count);
+	}
+
+
+	/**
+	 * Returns histograms of the in- and out-degrees, counted in one pass over the degree arrays.  Every node in
+	 * the table counts, so a node with no incoming edges counts toward in-degree zero.
+	 */
+	public DegreeHistogram histogram()
+	{
+		return new DegreeHistogram(srcK, dstK, count);
+	}
+
+
+	/**
+	 * Returns the entries of <code>val</code> for the nodes that have at least one edge in either direction,
+	 * for backends that keep slots for nodes that no longer have any.
+	 *
+	 * @param val    the per-node values
+	 * @param kOut   the per-node out-degrees
+	 * @param kIn    the per-node in-degrees
+	 * @param count  the number of slots
+	 * @param size   the number of nodes with at least one edge
+	 */
+	public static int[] select(int[] val, int[] kOut, int[] kIn, int count, int size)
+	{
+		int[] out = new int[size];
+		for (int i = 0, j = 0; i < count; ++i)
+			if (kOut[i] + kIn[i] > 0)
+				out[j++] = val[i];
+		return out;
+	}
+
+
+	/**
+	 * Returns the entries of <code>val</code> for the nodes that have at least one edge in either direction,
+	 * for backends that keep slots for nodes that no longer have any.
+	 *
+	 * @param val    the per-node values
+	 * @param kOut   the per-node out-degrees
+	 * @param kIn    the per-node in-degrees
+	 * @param count  the number of slots
+	 * @param size   the number of nodes with at least one edge
+	 */
+	public static double[] select(double[] val, int[] kOut, int[] kIn, int count, int size)
+	{
+		double[] out = new double[size];
+		for (int i = 0, j = 0; i < count; ++i)
+			if (kOut[i] + kIn[i] > 0)
+				out[j++] = val[i];
+		return out;
+	}
+
+
+	/** Returns the in-degree of the given node (zero if it isn't in the table). */
+	public int dstK(Node n)
+	{
+		int slot = index.get(LongIntHashMap.key(n.type(), n.id()));
+		return (slot < 0) ? 0 : dstK[slot];
+	}
+
+
+	/** Returns the in-strength of the given node (zero if it isn't in the table). */
+	public double dstS(Node n)
+	{
+		int slot = index.get(LongIntHashMap.key(n.type(), n.id()));
+		return (slot < 0) ? 0.0 : dstS[slot];
+	}
+
+
+	/** Returns the out-degree of the given node (zero if it isn't in the table). */
+	public int srcK(Node n)
+	{
+		int slot = index.get(LongIntHashMap.key(n.type(), n.id()));
+		return (slot < 0) ? 0 : srcK[slot];
+	}
+
+
+	/** Returns the out-strength of the given node (zero if it isn't in the table). */
+	public double srcS(Node n)
+	{
+		int slot = index.get(LongIntHashMap.key(n.type(), n.id()));
+		return (slot < 0) ? 0.0 : srcS[slot];
+	}
+}
@@ -1,5 +1,7 @@
 package edu.iu.cnets.klatsch.model;
 
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+
 
 /**
  * This is the basic class for representing an edge from a feed of social events.
@@ -204,18 +206,12 @@ public abstract class Edge implements Comparable<Edge>
 	}
 	
 	
-	/** Implemented for use with {@link java.util.Hashtable}. */
+	/**
+	 * Implemented for use with {@link java.util.Hashtable}.  Both endpoints are packed into one long and
+	 * scrambled together, so that edges that share a source don't crowd into neighboring buckets.
+	 */
 	public int hashCode()
 	{
-		int key = src.id();
-		
-	  key = ~key + (key <<  15);
-	  key =  key ^ (key >>> 12);
-	  key =  key + (key <<   2);
-	  key =  key ^ (key >>>  4);
-	  key = (key + (key <<   3)) + (key << 11);
-	  key =  key ^ (key >>> 16);
-	  
-	  return key + dst.id();
+		return LongIntHashMap.hash(LongIntHashMap.key(src.id(), dst.id()));
 	}
 }
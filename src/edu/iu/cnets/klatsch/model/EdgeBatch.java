@@ -0,0 +1,197 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+
+
+/**
+ * This class collects a batch of edges before they're added to a graph, merging repeated (source,
+ * destination) pairs as it goes in the manner of {@link Edge#Edge(Edge, Edge)}.  Feeds tend to report the
+ * same edge many times over (every retweet of a viral meme, for instance), and it's far cheaper to sum those
+ * up in primitive columns than to have the backend look up and rewrite the edge once per repeat.
+ *
+ * Once the batch is complete, a backend walks the merged edges by index and inserts each one exactly once.
+ */
+public class EdgeBatch
+{
+	/** maps from a node's (type, ID) key to its position in {@link #nodes} */
+	LongIntHashMap nodeIndex;
+
+	/** the distinct endpoints we've seen, in order of appearance */
+	List<Node>     nodes;
+
+	/** maps from an edge's (source position, destination position) key to its edge number */
+	LongIntHashMap edgeIndex;
+
+	/** the number of distinct edges */
+	int            count;
+
+	/** the merged edge columns, indexed by edge number */
+	int[]          src;
+	int[]          dst;
+	int[]          startTime;
+	int[]          endTime;
+	double[]       weight;
+	double[]       trust;
+	int[]          color;
+
+
+	/**
+	 * Creates an empty batch.
+	 */
+	public EdgeBatch()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Creates a batch holding every edge of every event from the given iterator.
+	 */
+	public EdgeBatch(Iterator<Event> events)
+	{
+		this();
+
+		while (events.hasNext()) {
+			Iterator<Edge> edges = events.next().edges();
+			while (edges.hasNext())
+				add(edges.next());
+		}
+	}
+
+
+	/**
+	 * Empties the batch, so that its memory can be reclaimed.
+	 */
+	public void clear()
+	{
+		nodeIndex = new LongIntHashMap();
+		nodes     = new ArrayList<Node>();
+		edgeIndex = new LongIntHashMap();
+		count     = 0;
+		src       = new int   [16];
+		dst       = new int   [16];
+		startTime = new int   [16];
+		endTime   = new int   [16];
+		weight    = new double[16];
+		trust     = new double[16];
+		color     = new int   [16];
+	}
+
+
+	/**
+	 * Adds an edge to the batch, merging it with any earlier edge between the same nodes.
+	 */
+	public void add(Edge e)
+	{
+		long key = LongIntHashMap.key(node(e.src()), node(e.dst()));
+		int  i   = edgeIndex.get(key);
+
+		if (i != LongIntHashMap.NONE) {
+			startTime[i]  = Math.min(startTime[i], e.startTime());
+			endTime  [i]  = Math.max(endTime  [i], e.endTime());
+			weight   [i] += e.weight();
+			trust    [i] += e.trust();
+			return;
+		}
+
+		if (count == src.length) {
+			int size  = count * 2;
+			src       = Arrays.copyOf(src,       size);
+			dst       = Arrays.copyOf(dst,       size);
+			startTime = Arrays.copyOf(startTime, size);
+			endTime   = Arrays.copyOf(endTime,   size);
+			weight    = Arrays.copyOf(weight,    size);
+			trust     = Arrays.copyOf(trust,     size);
+			color     = Arrays.copyOf(color,     size);
+		}
+
+		i = count++;
+		src      [i] = (int) (key >>> 32);
+		dst      [i] = (int) key;
+		startTime[i] = e.startTime();
+		endTime  [i] = e.endTime();
+		weight   [i] = e.weight();
+		trust    [i] = e.trust();
+		color    [i] = e.color();
+		edgeIndex.put(key, i);
+	}
+
+
+	/**
+	 * Returns the position of the given node in {@link #nodes}, adding it if it's new.
+	 */
+	int node(Node n)
+	{
+		long key = LongIntHashMap.key(n.type(), n.id());
+		int  v   = nodeIndex.get(key);
+
+		if (v == LongIntHashMap.NONE) {
+			v = nodes.size();
+			nodes.add(n);
+			nodeIndex.put(key, v);
+		}
+
+		return v;
+	}
+
+
+	/** Returns the number of distinct edges in the batch. */
+	public int size()
+	{
+		return count;
+	}
+
+
+	/** Returns the source node of edge i (the first node object seen with that type and ID). */
+	public Node src(int i)
+	{
+		return nodes.get(src[i]);
+	}
+
+
+	/** Returns the destination node of edge i (the first node object seen with that type and ID). */
+	public Node dst(int i)
+	{
+		return nodes.get(dst[i]);
+	}
+
+
+	/** Returns the earliest start time of edge i. */
+	public int startTime(int i)
+	{
+		return startTime[i];
+	}
+
+
+	/** Returns the latest end time of edge i. */
+	public int endTime(int i)
+	{
+		return endTime[i];
+	}
+
+
+	/** Returns the total weight of edge i. */
+	public double weight(int i)
+	{
+		return weight[i];
+	}
+
+
+	/** Returns the total trusted weight of edge i. */
+	public double trust(int i)
+	{
+		return trust[i];
+	}
+
+
+	/** Returns the color of edge i (that of the first edge seen between its nodes). */
+	public int color(int i)
+	{
+		return color[i];
+	}
+}
@@ -48,4 +48,7 @@ public interface Feed
 	
 	/** Performs any trust updates necessary on a graph assembled from this feed. */
 	public void              updateTrust(Graph g);
+
+	/** Performs the trust updates, repeating them until nothing changes if fixpoint is true. */
+	public void              updateTrust(Graph g, boolean fixpoint);
 }
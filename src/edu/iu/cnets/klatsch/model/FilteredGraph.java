@@ -0,0 +1,784 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
+
+
+/**
+ * This is a read-only view of part of another graph, such as its actor-actor edges or one of its components.
+ * Nodes and edges are filtered out of the parent as they're asked for, so building a view costs nothing, and
+ * chains like <code>ag(f, n).comp(0)</code> don't make a copy at every step.
+ *
+ * The view reflects the parent as it is at the time of each query.  The first time anything tries to change
+ * the view (by adding edges, clearing it, or laying it out) or export it, the view is materialized into a
+ * {@link CsrGraph}, which from then on handles every call and is independent of the parent.  Statistics that
+ * need a concrete graph are computed on a temporary copy, which is kept until the parent changes.
+ */
+public class FilteredGraph implements Graph
+{
+	/**
+	 * This decides which nodes and edges of the parent are part of the view.  By default, an edge is part of
+	 * the view if both of its endpoints are; a filter that overrides this should still only accept edges
+	 * between nodes it accepts, since the view's node count includes the endpoints of its edges.
+	 */
+	public static abstract class Filter
+	{
+		/** Returns true if the given node of the parent is part of the view. */
+		public abstract boolean node(Node n);
+
+		/** Returns true if the given edge of the parent is part of the view. */
+		public boolean edge(Edge e)
+		{
+			return node(e.src()) && node(e.dst());
+		}
+	}
+
+
+	/** the graph we're a view of */
+	Graph     parent;
+
+	/** the test for membership in the view */
+	Filter    filter;
+
+	/** the materialized copy of the view, once there is one */
+	Graph     copy;
+
+	/** added to the version of the parent or copy, so that ours keeps counting up when we switch to the copy */
+	int       shift;
+
+	/** the statistics computed for the current version of the view */
+	StatCache stats;
+
+
+	/**
+	 * Creates a view of the given graph.
+	 *
+	 * @param parent  the underlying graph
+	 * @param filter  the test for which nodes and edges are in the view
+	 */
+	public FilteredGraph(Graph parent, Filter filter)
+	{
+		this.parent = parent;
+		this.filter = filter;
+		this.stats  = new StatCache(this);
+	}
+
+
+	/*===================================================================
+	 * The standard views.
+	 *===================================================================*/
+
+	/**
+	 * Returns a view of the actors and actor-actor edges of the given graph.
+	 */
+	public static Graph actorGraph(Graph g)
+	{
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node n)
+			{
+				return n.type() == Node.TYPE_ACTOR;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a view of all the nodes of the given graph, with only its actor-meme and meme-actor edges.
+	 */
+	public static Graph actorMemeGraph(Graph g)
+	{
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node n)
+			{
+				return true;
+			}
+
+			public boolean edge(Edge e)
+			{
+				int srcType = e.src().type();
+				int dstType = e.dst().type();
+				return ((srcType == Node.TYPE_ACTOR) && (dstType == Node.TYPE_MEME)) ||
+				       ((srcType == Node.TYPE_MEME)  && (dstType == Node.TYPE_ACTOR));
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a view of the memes and meme-meme edges of the given graph.
+	 */
+	public static Graph memeGraph(Graph g)
+	{
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node n)
+			{
+				return n.type() == Node.TYPE_MEME;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a view of the trusted edges of the given graph, and the nodes they touch.
+	 */
+	public static Graph trustedGraph(final Graph g)
+	{
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node n)
+			{
+				for (Edge e : g.edgesOut(n))
+					if (e.trust() > 0.0)
+						return true;
+				for (Edge e : g.edgesIn(n))
+					if (e.trust() > 0.0)
+						return true;
+				return false;
+			}
+
+			public boolean edge(Edge e)
+			{
+				return e.trust() > 0.0;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a view of a single component of the given graph.
+	 *
+	 * @param g      the graph
+	 * @param table  the component labels for the graph
+	 * @param n      the component to view
+	 */
+	public static Graph component(Graph g, final ComponentTable table, final int n)
+	{
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node node)
+			{
+				return table.label(node) == n;
+			}
+
+			public boolean edge(Edge e)
+			{
+				return table.label(e.src()) == n;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns a view of the k-core of the given graph: the nodes whose core number is at least k, and the
+	 * edges among them.  The core numbers are those of the graph at the time of the call.
+	 */
+	public static Graph kcore(Graph g, int k)
+	{
+		final LongIntHashMap members = new LongIntHashMap();
+
+		int[] core = g.cores();
+		int   i    = 0;
+		for (Node n : g.nodes())
+			if (core[i++] >= k)
+				members.put(LongIntHashMap.key(n.type(), n.id()), 0);
+
+		return new FilteredGraph(g, new Filter() {
+			public boolean node(Node n)
+			{
+				return members.containsKey(LongIntHashMap.key(n.type(), n.id()));
+			}
+		});
+	}
+
+
+	/*===================================================================
+	 * Materialization.
+	 *===================================================================*/
+
+	/**
+	 * Copies the view into a graph of its own, if that hasn't already happened, and returns the copy.
+	 */
+	public Graph materialize()
+	{
+		if (copy == null)
+			replace(CsrGraph.of(this));
+
+		return copy;
+	}
+
+
+	/**
+	 * Switches the view over to the given copy, dropping the parent.
+	 */
+	void replace(Graph g)
+	{
+		int before = version();
+
+		copy   = g;
+		parent = null;
+		filter = null;
+		shift  = before + 1 - g.version();
+	}
+
+
+	/**
+	 * Returns a CSR graph that statistics can be computed on: the copy's own if we have one, or else a
+	 * temporary one that's kept until the parent changes.
+	 */
+	public CsrGraph csr()
+	{
+		if (copy != null)
+			return copy.csr();
+
+		CsrGraph temp = (CsrGraph) stats.get("csr");
+		if (temp == null)
+			temp = (CsrGraph) stats.put("csr", CsrGraph.of(this));
+
+		return temp;
+	}
+
+
+	/**
+	 * Returns the components of the view, which are kept until the parent changes.
+	 */
+	ComponentTable components()
+	{
+		ComponentTable table = (ComponentTable) stats.get("components");
+		if (table == null)
+			table = (ComponentTable) stats.put("components", new ComponentTable(this));
+
+		return table;
+	}
+
+
+	/**
+	 * Returns a lazily filtered view of the given nodes.
+	 */
+	Iterable<Node> filterNodes(final Iterable<Node> nodes)
+	{
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Filtering<Node>(nodes.iterator()) {
+					boolean accept(Node n)
+					{
+						return filter.node(n);
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns a lazily filtered view of the given edges.
+	 */
+	Iterable<Edge> filterEdges(final Iterable<Edge> edges)
+	{
+		return new Iterable<Edge>() {
+			public Iterator<Edge> iterator()
+			{
+				return new Filtering<Edge>(edges.iterator()) {
+					boolean accept(Edge e)
+					{
+						return filter.edge(e);
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * An iterator that skips the elements of another iterator that don't pass a test.
+	 */
+	static abstract class Filtering<T> implements Iterator<T>
+	{
+		/** the underlying iterator */
+		Iterator<T> iter;
+
+		/** the next element to be returned, or null if we need to look for one */
+		T           next;
+
+
+		Filtering(Iterator<T> iter)
+		{
+			this.iter = iter;
+		}
+
+
+		/** Returns true if the element belongs in the result. */
+		abstract boolean accept(T t);
+
+
+		public boolean hasNext()
+		{
+			while ((next == null) && iter.hasNext()) {
+				T t = iter.next();
+				if (accept(t))
+					next = t;
+			}
+
+			return next != null;
+		}
+
+
+		public T next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			T t  = next;
+			next = null;
+			return t;
+		}
+
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+
+	/**
+	 * Counts up the degrees and strengths of the nodes in the view, including the ones without edges, in one
+	 * pass over the nodes and edges.  The table also gives the number of nodes and edges, and is kept until the
+	 * parent changes.
+	 */
+	DegreeTable degrees()
+	{
+		DegreeTable table = (DegreeTable) stats.get("degrees");
+		if (table == null) {
+			table = new DegreeTable();
+			for (Node n : nodes())
+				table.addNode(n);
+			for (Edge e : edges())
+				table.addEdge(e.src(), e.dst(), e.weight(), true);
+
+			stats.put("degrees", table);
+		}
+
+		return table;
+	}
+
+
+	/*===================================================================
+	 * The Graph interface.
+	 *===================================================================*/
+
+	/**
+	 * Returns a view of the actor-only part of this view.
+	 */
+	public Graph actorGraph()
+	{
+		return (copy != null) ? copy.actorGraph() : actorGraph(this);
+	}
+
+
+	/**
+	 * Returns a view of the actor-meme part of this view.
+	 */
+	public Graph actorMemeGraph()
+	{
+		return (copy != null) ? copy.actorMemeGraph() : actorMemeGraph(this);
+	}
+
+
+	/**
+	 * Adds the given edge, which materializes the view.
+	 */
+	public void add(Edge e)
+	{
+		materialize().add(e);
+	}
+
+
+	/**
+	 * Adds the edges from the given events, which materializes the view.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		materialize().addAll(events);
+	}
+
+
+	/**
+	 * Forgets the parent and leaves the view as an empty graph of its own, closing any copy it had.
+	 */
+	public void clear()
+	{
+		if (copy != null)
+			copy.close();
+
+		replace(new CsrGraph());
+	}
+
+
+	/**
+	 * Closes the view's copy, if it has one, and leaves the view empty.  The parent is left alone.
+	 */
+	public void close()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Returns the Louvain community of each node of the view, in the order of {@link #nodes}.
+	 */
+	public int[] communities()
+	{
+		return csr().communities();
+	}
+
+
+	/**
+	 * Returns the core number of each node of the view, in the order of {@link #nodes}.
+	 */
+	public int[] cores()
+	{
+		return csr().cores();
+	}
+
+
+	/**
+	 * Returns a view of the k-core of this view.
+	 */
+	public Graph kcore(int k)
+	{
+		return (copy != null) ? copy.kcore(k) : kcore(this, k);
+	}
+
+
+	/**
+	 * Returns a view of a single component of this view.
+	 */
+	public Graph component(int n)
+	{
+		return (copy != null) ? copy.component(n) : component(this, components(), n);
+	}
+
+
+	/**
+	 * Returns the number of components in the view.
+	 */
+	public int componentCount()
+	{
+		return (copy != null) ? copy.componentCount() : components().count();
+	}
+
+
+	/**
+	 * Returns the number of the component of the view containing the given node, or -1 if it isn't in the view.
+	 */
+	public int componentOf(Node n)
+	{
+		return (copy != null) ? copy.componentOf(n) : components().label(n);
+	}
+
+
+	/**
+	 * Returns the size of each component in the view.
+	 */
+	public int[] componentSize()
+	{
+		return (copy != null) ? copy.componentSize() : components().sizes();
+	}
+
+
+	/**
+	 * Returns the number of destination nodes in the view.
+	 */
+	public int dstCount()
+	{
+		return (copy != null) ? copy.dstCount() : degrees().dstCount();
+	}
+
+
+	/**
+	 * Returns the in-degrees of the nodes in the view.
+	 */
+	public int[] dstK()
+	{
+		return (copy != null) ? copy.dstK() : degrees().dstK();
+	}
+
+
+	/**
+	 * Returns the in-degree of the given node.
+	 */
+	public int dstK(Node n)
+	{
+		if (copy != null)
+			return copy.dstK(n);
+
+		int k = 0;
+		for (Edge e : edgesIn(n))
+			++k;
+
+		return k;
+	}
+
+
+	/**
+	 * Returns the in-strengths of the nodes in the view.
+	 */
+	public double[] dstS()
+	{
+		return (copy != null) ? copy.dstS() : degrees().dstS();
+	}
+
+
+	/**
+	 * Returns the in-strength of the given node.
+	 */
+	public double dstS(Node n)
+	{
+		if (copy != null)
+			return copy.dstS(n);
+
+		double s = 0.0;
+		for (Edge e : edgesIn(n))
+			s += e.weight();
+
+		return s;
+	}
+
+
+	/**
+	 * Returns the number of edges in the view.
+	 */
+	public int edgeCount()
+	{
+		return (copy != null) ? copy.edgeCount() : degrees().edgeCount();
+	}
+
+
+	/**
+	 * Returns an iterable over the edges in the view.
+	 */
+	public Iterable<Edge> edges()
+	{
+		return (copy != null) ? copy.edges() : filterEdges(parent.edges());
+	}
+
+
+	/**
+	 * Returns an iterable over the edges in the view with this node as a destination.
+	 */
+	public Iterable<Edge> edgesIn(Node n)
+	{
+		return (copy != null) ? copy.edgesIn(n) : filterEdges(parent.edgesIn(n));
+	}
+
+
+	/**
+	 * Returns an iterable over the edges in the view with this node as a source.
+	 */
+	public Iterable<Edge> edgesOut(Node n)
+	{
+		return (copy != null) ? copy.edgesOut(n) : filterEdges(parent.edgesOut(n));
+	}
+
+
+	/**
+	 * Exports the view, which materializes it.
+	 */
+	public boolean export(String path, String format)
+	{
+		return materialize().export(path, format);
+	}
+
+
+	/**
+	 * Returns the given edge, or null if it isn't part of the view.
+	 */
+	public Edge getEdge(Edge e)
+	{
+		if (copy != null)
+			return copy.getEdge(e);
+
+		Edge edge = parent.getEdge(e);
+		return ((edge != null) && filter.edge(edge)) ? edge : null;
+	}
+
+
+	/**
+	 * Returns the given node, or null if it isn't part of the view.
+	 */
+	public Node getNode(Node n)
+	{
+		if (copy != null)
+			return copy.getNode(n);
+
+		return hasNode(n) ? parent.getNode(n) : null;
+	}
+
+
+	/**
+	 * Returns true if the given edge is part of the view.
+	 */
+	public boolean hasEdge(Edge e)
+	{
+		if (copy != null)
+			return copy.hasEdge(e);
+
+		return parent.hasEdge(e) && filter.edge(parent.getEdge(e));
+	}
+
+
+	/**
+	 * Returns true if the given node is part of the view.
+	 */
+	public boolean hasNode(Node n)
+	{
+		return (copy != null) ? copy.hasNode(n) : parent.hasNode(n) && filter.node(n);
+	}
+
+
+	/**
+	 * Lays out the view, which materializes it.
+	 */
+	public void layout(VDictionary config)
+	{
+		materialize().layout(config);
+	}
+
+
+	/**
+	 * Returns a view of the meme-only part of this view.
+	 */
+	public Graph memeGraph()
+	{
+		return (copy != null) ? copy.memeGraph() : memeGraph(this);
+	}
+
+
+	/**
+	 * Returns the number of nodes in the view.
+	 */
+	public int nodeCount()
+	{
+		return (copy != null) ? copy.nodeCount() : degrees().nodeCount();
+	}
+
+
+	/**
+	 * Returns an iterable over the nodes in the view.
+	 */
+	public Iterable<Node> nodes()
+	{
+		return (copy != null) ? copy.nodes() : filterNodes(parent.nodes());
+	}
+
+
+	/**
+	 * Returns the number of source nodes in the view.
+	 */
+	public int srcCount()
+	{
+		return (copy != null) ? copy.srcCount() : degrees().srcCount();
+	}
+
+
+	/**
+	 * Returns the out-degrees of the nodes in the view.
+	 */
+	public int[] srcK()
+	{
+		return (copy != null) ? copy.srcK() : degrees().srcK();
+	}
+
+
+	/**
+	 * Returns the out-degree of the given node.
+	 */
+	public int srcK(Node n)
+	{
+		if (copy != null)
+			return copy.srcK(n);
+
+		int k = 0;
+		for (Edge e : edgesOut(n))
+			++k;
+
+		return k;
+	}
+
+
+	/**
+	 * Returns the out-strengths of the nodes in the view.
+	 */
+	public double[] srcS()
+	{
+		return (copy != null) ? copy.srcS() : degrees().srcS();
+	}
+
+
+	/**
+	 * Returns the out-strength of the given node.
+	 */
+	public double srcS(Node n)
+	{
+		if (copy != null)
+			return copy.srcS(n);
+
+		double s = 0.0;
+		for (Edge e : edgesOut(n))
+			s += e.weight();
+
+		return s;
+	}
+
+
+	/**
+	 * These statistics are computed on the materialized copy if there is one, or a temporary copy if not.
+	 */
+	public double statClustering() { return csr().statClustering(); }
+	public double statDiameter  () { return csr().statDiameter  (); }
+	public double statDstKPower () { return csr().statDstKPower (); }
+	public double statModularity() { return csr().statModularity(); }
+	public double statPathLength() { return csr().statPathLength(); }
+	public double statSrcKPower () { return csr().statSrcKPower (); }
+
+
+	/**
+	 * The power-law fits to the degree distributions are computed on the same copy.
+	 */
+	public PowerLaw statDstKFit() { return csr().statDstKFit(); }
+	public PowerLaw statSrcKFit() { return csr().statSrcKFit(); }
+
+
+	/**
+	 * Returns a view of the trusted part of this view.
+	 */
+	public Graph trustedGraph()
+	{
+		return (copy != null) ? copy.trustedGraph() : trustedGraph(this);
+	}
+
+
+	/**
+	 * Returns the version of the parent, or of the copy once there is one.
+	 */
+	public int version()
+	{
+		return ((copy != null) ? copy.version() : parent.version()) + shift;
+	}
+
+
+	/**
+	 * Returns the total weight of the given edge, or zero if it isn't part of the view.
+	 */
+	public double weight(Edge e)
+	{
+		if (copy != null)
+			return copy.weight(e);
+
+		return hasEdge(e) ? parent.weight(e) : 0.0;
+	}
+}
@@ -1,26 +1,41 @@
 package edu.iu.cnets.klatsch.model;
 
+import java.util.Iterator;
+
 import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
 
 
 /**
  * This is the interface for working with a graph built from a feed of social media events.
  *	
  * The rest of the Klatsch interpreter operates ONLY in terms of this interface.
+ *
+ * A graph's version changes whenever its contents do, so that results computed from it (see
+ * {@link StatCache}) can be reused for as long as it stays the same.  Every backend can hand out a
+ * {@link CsrGraph} of its contents for the algorithms that run on primitive arrays, and keeps it until it
+ * changes, so that running several of them in a row copies the graph only once.
  */
 public interface Graph
 {
 	public Graph             actorGraph    ();
 	public Graph             actorMemeGraph();
 	public void              add           (Edge e);
+	public void              addAll        (Iterator<Event> events);
 	public void              clear         ();
+	public void              close         ();
+	public int[]             communities   ();
 	public Graph             component     (int n);
 	public int               componentCount();
+	public int               componentOf   (Node n);
+	public int[]             cores         ();
 	public int[]             componentSize ();
+	public CsrGraph          csr           ();
 	public int               dstCount      ();
-	public Iterable<Integer> dstK          ();
+	public int[]             dstK          ();
 	public int               dstK          (Node n);
-	public Iterable<Double>  dstS          ();
+	public double[]          dstS          ();
 	public double            dstS          (Node n);
 	public int               edgeCount     ();
 	public Iterable<Edge>    edges         ();
@@ -31,21 +46,25 @@ public interface Graph
 	public Node              getNode       (Node n);
 	public boolean           hasEdge       (Edge e);
 	public boolean           hasNode       (Node n);
+	public Graph             kcore         (int k);
 	public void              layout        (VDictionary config);
 	public Graph             memeGraph     ();
 	public int               nodeCount     ();
 	public Iterable<Node>    nodes         ();
 	public int               srcCount      ();
-	public Iterable<Integer> srcK          ();
+	public int[]             srcK          ();
 	public int               srcK          (Node n);
-	public Iterable<Double>  srcS          ();
+	public double[]          srcS          ();
 	public double            srcS          (Node n);
 	public double            statClustering();
 	public double            statDiameter  ();
+	public PowerLaw          statDstKFit   ();
 	public double            statDstKPower ();
 	public double            statModularity();
 	public double            statPathLength();
+	public PowerLaw          statSrcKFit   ();
 	public double            statSrcKPower ();
 	public Graph             trustedGraph  ();
+	public int               version       ();
 	public double            weight        (Edge e);
 }
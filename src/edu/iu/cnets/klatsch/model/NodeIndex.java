@@ -0,0 +1,145 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.Arrays;
+
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+
+
+/**
+ * This class numbers the nodes of a graph densely from zero, in the order they're added, so that code that
+ * works on nodes can keep its state in plain arrays rather than in maps keyed by {@link Node}.  The IDs that
+ * come from the feeds are sparse database keys, and the same ID can name both an actor and a meme, so nodes
+ * are keyed by (type, ID).
+ *
+ * Both directions are primitive: a hash table from the (type, ID) key to the index, and columns of types and
+ * IDs by index.  Nodes can't be removed, so an index never changes once it's been given out.
+ */
+public class NodeIndex
+{
+	/** the number of nodes */
+	int            size;
+
+	/** the type and ID of each node, by index */
+	int[]          type;
+	int[]          id;
+
+	/** maps from a node's (type, ID) key to its index */
+	LongIntHashMap index;
+
+
+	/**
+	 * Creates an empty index.
+	 */
+	public NodeIndex()
+	{
+		this(16);
+	}
+
+
+	/**
+	 * Creates an empty index that can hold the given number of nodes without growing.
+	 */
+	public NodeIndex(int capacity)
+	{
+		capacity = Math.max(capacity, 1);
+
+		type  = new int[capacity];
+		id    = new int[capacity];
+		index = new LongIntHashMap(capacity);
+	}
+
+
+	/**
+	 * Returns an index of the nodes of the given graph, numbered in the order the graph lists them.
+	 */
+	public static NodeIndex of(Graph g)
+	{
+		NodeIndex index = new NodeIndex(g.nodeCount());
+
+		for (Node n : g.nodes())
+			index.add(n);
+
+		return index;
+	}
+
+
+	/**
+	 * Returns the index of the node with the given type and ID, adding it if it's new.
+	 */
+	public int add(int t, int i)
+	{
+		long key = LongIntHashMap.key(t, i);
+		int  v   = index.get(key);
+
+		if (v == LongIntHashMap.NONE) {
+			if (size == type.length) {
+				type = Arrays.copyOf(type, size * 2);
+				id   = Arrays.copyOf(id,   size * 2);
+			}
+
+			v = size++;
+			type[v] = t;
+			id  [v] = i;
+			index.put(key, v);
+		}
+
+		return v;
+	}
+
+
+	/**
+	 * Returns the index of the given node, adding it if it's new.
+	 */
+	public int add(Node n)
+	{
+		return add(n.type(), n.id());
+	}
+
+
+	/**
+	 * Returns the index of the node with the given type and ID, or -1 if there's no such node.
+	 */
+	public int get(int t, int i)
+	{
+		return index.get(LongIntHashMap.key(t, i));
+	}
+
+
+	/**
+	 * Returns the index of the given node, or -1 if there's no such node.
+	 */
+	public int get(Node n)
+	{
+		return get(n.type(), n.id());
+	}
+
+
+	/** Returns the number of nodes. */
+	public int size()
+	{
+		return size;
+	}
+
+
+	/** Accessors for the columns. */
+	public int type(int v)  { return type[v]; }
+	public int id  (int v)  { return id  [v]; }
+
+
+	/**
+	 * Returns a copy of the type of each node, in index order.
+	 */
+	public int[] types()
+	{
+		return Arrays.copyOf(type, size);
+	}
+
+
+	/**
+	 * Returns a copy of the ID of each node, in index order.
+	 */
+	public int[] ids()
+	{
+		return Arrays.copyOf(id, size);
+	}
+}
@@ -0,0 +1,78 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+
+
+/**
+ * This class interns nodes, handing out one canonical node object for each (type, ID) pair, so that feeds
+ * and generators that mention the same node over and over don't allocate a new object every time.
+ *
+ * Subclasses decide which kind of node to build by implementing {@link #create}.  Since nodes are
+ * immutable as far as the rest of the interpreter is concerned, it's safe to share them between events,
+ * edges, and graphs.
+ *
+ * @param <N>  the type of node in the table
+ */
+public abstract class NodeTable<N extends Node>
+{
+	/** maps from a node's (type, ID) key to its slot */
+	LongIntHashMap index;
+
+	/** the canonical nodes, by slot */
+	List<N>        nodes;
+
+
+	/**
+	 * Creates an empty table.
+	 */
+	public NodeTable()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Builds a new node with the given type and ID, the first time it's asked for.
+	 */
+	protected abstract N create(int type, int id);
+
+
+	/**
+	 * Forgets every node, so that they can be reclaimed.
+	 */
+	public void clear()
+	{
+		index = new LongIntHashMap();
+		nodes = new ArrayList<N>();
+	}
+
+
+	/**
+	 * Returns the canonical node with the given type and ID, creating it if necessary.
+	 */
+	public N get(int type, int id)
+	{
+		long key  = LongIntHashMap.key(type, id);
+		int  slot = index.get(key);
+
+		if (slot == LongIntHashMap.NONE) {
+			slot = nodes.size();
+			nodes.add(create(type, id));
+			index.put(key, slot);
+		}
+
+		return nodes.get(slot);
+	}
+
+
+	/**
+	 * Returns the number of nodes in the table.
+	 */
+	public int size()
+	{
+		return nodes.size();
+	}
+}
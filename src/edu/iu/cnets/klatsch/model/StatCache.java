@@ -0,0 +1,72 @@
+package edu.iu.cnets.klatsch.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * This class remembers the statistics (and the intermediate results behind them, such as component labels
+ * or a copy of the graph in another backend) that have been computed on a graph, so that asking for the same
+ * thing twice doesn't repeat the work.
+ *
+ * Results are keyed by name, and are only good for the {@link Graph#version} of the graph at which they were
+ * stored: as soon as the graph reports a different version, everything is forgotten.
+ */
+public class StatCache
+{
+	/** the graph whose results we're holding */
+	Graph              graph;
+
+	/** the version of the graph at which the results were computed */
+	int                version;
+
+	/** the results, by name */
+	Map<String,Object> results;
+
+
+	/**
+	 * Creates an empty cache for the given graph.
+	 */
+	public StatCache(Graph graph)
+	{
+		this.graph   = graph;
+		this.version = graph.version();
+		this.results = new HashMap<String,Object>();
+	}
+
+
+	/**
+	 * Returns the result with the given name, or null if it hasn't been computed for this version of the graph.
+	 */
+	public synchronized Object get(String name)
+	{
+		int current = graph.version();
+
+		if (current != version) {
+			results.clear();
+			version = current;
+		}
+
+		return results.get(name);
+	}
+
+
+	/**
+	 * Stores a result under the given name for the current version of the graph, and returns it.
+	 */
+	public synchronized Object put(String name, Object result)
+	{
+		get(name);
+		results.put(name, result);
+		return result;
+	}
+
+
+	/**
+	 * Forgets every result.
+	 */
+	public synchronized void clear()
+	{
+		results.clear();
+	}
+}
@@ -9,6 +9,12 @@ import edu.iu.cnets.klatsch.model.Node;
  */
 public class BasicEdge extends Edge
 {
+	public BasicEdge(Node src, Node dst, int startTime, int endTime, double weight, double trust, int color)
+	{
+		super(src, dst, startTime, endTime, weight, trust, color);
+	}
+	
+	
 	public BasicEdge(Node src, Node dst, int startTime, int endTime, double weight, double trust)
 	{
 		super(src, dst, startTime, endTime, weight, trust);
@@ -1,16 +1,25 @@
 package edu.iu.cnets.klatsch.model.basic;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.model.ComponentTable;
+import edu.iu.cnets.klatsch.model.DegreeTable;
 import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.EdgeBatch;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.FilteredGraph;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.StatCache;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.model.csr.SnapshotGraph;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
 
 
 public class BasicGraph implements Graph
@@ -27,74 +36,109 @@ public class BasicGraph implements Graph
 	/** the set of all backward edges in the graph */
 	SortedSet<Edge> backEdges;
 	
+	/** maps from an edge's (source ID, destination ID) key to its position in {@link #edgeList} */
+	LongIntHashMap  edgeIndex;
+	
+	/** the current version of each forward edge, in the order the edges were first added */
+	List<Edge>      edgeList;
+	
+	/** the running degree and strength of each node */
+	DegreeTable     degrees;
+	
+	/** the weakly connected components, kept up to date as edges are added */
+	ComponentTable  components;
+	
+	/** bumped by every change to the graph */
+	int             version;
+	
+	/** the statistics computed for the current version of the graph */
+	StatCache       stats;
+	
 	
 	/**
 	 * Basic constructor for an empty graph.
 	 */
 	public BasicGraph()
 	{
-		nodes     = new TreeSet<Node>();
-		edges     = new TreeSet<Edge>();
-		backEdges = new TreeSet<Edge>();
+		nodes      = new TreeSet<Node>();
+		edges      = new TreeSet<Edge>();
+		backEdges  = new TreeSet<Edge>();
+		edgeIndex  = new LongIntHashMap();
+		edgeList   = new ArrayList<Edge>();
+		degrees    = new DegreeTable();
+		components = new ComponentTable();
+		stats      = new StatCache(this);
 	}
 	
 	
 	/**
-	 * Returns the subgraph containing only actor-actor edges.
+	 * Returns a view of the subgraph containing only actors and actor-actor edges.
 	 */
 	public Graph actorGraph()
 	{
-		BasicGraph g = new BasicGraph();
-		
-		for (Node n : nodes)
-			if (n.type() == Node.TYPE_ACTOR)
-				g.nodes.add(n);
-		
-		for (Edge e : edges)
-			if ((e.src().type() == Node.TYPE_ACTOR) && (e.dst().type() == Node.TYPE_ACTOR))
-				g.add(e);
-		
-		return g;
+		return FilteredGraph.actorGraph(this);
 	}
 
 	
 	/**
-	 * Returns the subgraph containing only actor-meme and meme-actor edges.
+	 * Returns a view of the subgraph containing only actor-meme and meme-actor edges.
 	 */
 	public Graph actorMemeGraph()
 	{
-		BasicGraph g = new BasicGraph();
-		
-		for (Node n : nodes)
-			g.nodes.add(n);
-		
-		for (Edge e : edges)
-			if (((e.src().type() == Node.TYPE_ACTOR) && (e.dst().type() == Node.TYPE_MEME)) ||
-					((e.src().type() == Node.TYPE_MEME)  && (e.dst().type() == Node.TYPE_ACTOR)))
-				g.add(e);
-		
-		return g;
+		return FilteredGraph.actorMemeGraph(this);
 	}
 
 	
 	/**
-	 * Adds the given edge to the graph. 
+	 * Adds the given edge to the graph.  An existing edge between the same nodes is found through the hash
+	 * index, and the merged edge takes its place in the sets.
 	 */
 	public void add(Edge e)
 	{
 		if (!nodes.contains(e.src()))  nodes.add(e.src());
 		if (!nodes.contains(e.dst()))  nodes.add(e.dst());
 		
-		Edge fwd  = e;
-		Edge back = new BasicEdge(e.dst(), e.src(), e.startTime(), e.endTime(), e.weight(), e.trust());
+		long    key   = LongIntHashMap.key(e.src().id(), e.dst().id());
+		int     i     = edgeIndex.get(key);
+		boolean isNew = (i == LongIntHashMap.NONE);
+		Edge    fwd   = e;
+		
+		degrees.addEdge(e.src(), e.dst(), e.weight(), isNew);
+		components.add(e.src(), e.dst());
 		
-		if (edges.contains(e)) {
-			fwd  = new BasicEdge(edges    .tailSet(fwd) .first(), fwd);   edges    .remove(fwd);
-			back = new BasicEdge(backEdges.tailSet(back).first(), back);  backEdges.remove(back);
+		if (isNew) {
+			edgeIndex.put(key, edgeList.size());
+			edgeList.add(fwd);
+		} else {
+			fwd = new BasicEdge(edgeList.get(i), e);
+			edgeList.set(i, fwd);
+		}
+		
+		Edge back = new BasicEdge(fwd.dst(), fwd.src(), fwd.startTime(), fwd.endTime(), fwd.weight(), fwd.trust());
+		
+		// a TreeSet won't replace an equal element, so the old versions have to go first
+		if (!isNew) {
+			edges    .remove(fwd);
+			backEdges.remove(back);
 		}
 		
 		edges    .add(fwd);
 		backEdges.add(back);
+		++version;
+	}
+	
+	
+	/**
+	 * Adds every edge of every event from the given iterator.  Repeated edges are merged in an
+	 * {@link EdgeBatch} first, so that each distinct edge is inserted only once.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		EdgeBatch batch = new EdgeBatch(events);
+		
+		for (int i = 0; i < batch.size(); ++i)
+			add(new BasicEdge(batch.src(i), batch.dst(i), batch.startTime(i), batch.endTime(i),
+			                  batch.weight(i), batch.trust(i), batch.color(i)));
 	}
 	
 	
@@ -107,6 +151,49 @@ public class BasicGraph implements Graph
 		nodes     = new TreeSet<Node>();
 		edges     = new TreeSet<Edge>();
 		backEdges = new TreeSet<Edge>();
+		edgeIndex = new LongIntHashMap();
+		edgeList  = new ArrayList<Edge>();
+		degrees   = new DegreeTable();
+		components.clear();
+		++version;
+	}
+	
+	
+	/**
+	 * Empties the graph.  There's nothing else to release.
+	 */
+	public void close()
+	{
+		clear();
+	}
+	
+	
+	/**
+	 * Returns the Louvain community of each node, in the order of {@link #nodes}, computed natively on a CSR
+	 * copy.
+	 */
+	public int[] communities()
+	{
+		return csr().communities();
+	}
+	
+	
+	/**
+	 * Returns the core number of each node, in the order of {@link #nodes}, computed natively on a CSR copy.
+	 */
+	public int[] cores()
+	{
+		return csr().cores();
+	}
+	
+	
+	/**
+	 * Returns a view of the k-core of the graph: the nodes whose core number is at least k, and the edges
+	 * among them.
+	 */
+	public Graph kcore(int k)
+	{
+		return FilteredGraph.kcore(this, k);
 	}
 	
 	
@@ -115,26 +202,16 @@ public class BasicGraph implements Graph
 	 */
 	public int dstCount()
 	{
-		Set<Node> set = new HashSet<Node>();
-		
-		for (Edge e : edges)
-			set.add(e.dst());
-		
-		return set.size();
+		return degrees.dstCount();
 	}
 	
 
 	/**
-	 * Returns an iterable over the in-degrees of the nodes in the graph.
+	 * Returns the in-degrees of the nodes in the graph.
 	 */
-	public Iterable<Integer> dstK()
+	public int[] dstK()
 	{
-		Map<Node, Integer> map = new HashMap<Node, Integer>();
-	
-		for (Edge e : edges)
-			map.put(e.dst(), map.containsKey(e.dst()) ? 1 : map.get(e.dst()) + 1);
-		
-		return map.values();
+		return degrees.dstK();
 	}
 
 	
@@ -143,32 +220,16 @@ public class BasicGraph implements Graph
 	 */
 	public int dstK(Node n)
 	{
-		BasicNode node    = (BasicNode) n;
-		BasicNode nodeInc = new BasicNode(n.type(), n.id() + 1);
-		
-		int sum = 0;
-		
-		for (Edge e : backEdges.subSet(new BasicEdge(node, zero), new BasicEdge(nodeInc, zero)))
-			if (e.src().equals(n))
-				++sum;
-		
-		return sum;
+		return degrees.dstK(n);
 	}
 	
 	
 	/**
-	 * Returns an iterable over the in-strengths of the nodes in the graph.
+	 * Returns the in-strengths of the nodes in the graph.
 	 */
-	public Iterable<Double> dstS()
+	public double[] dstS()
 	{
-		Map<Node, Double> map = new HashMap<Node, Double>();
-		
-		for (Edge e : edges) {
-			double sum = map.containsKey(e.dst()) ? 0.0 : map.get(e.dst());
-			map.put(e.dst(), sum + e.weight());
-		}
-		
-		return map.values();
+		return degrees.dstS();
 	}
 	
 	
@@ -177,16 +238,7 @@ public class BasicGraph implements Graph
 	 */
 	public double dstS(Node n)
 	{
-		BasicNode node    = (BasicNode) n;
-		BasicNode nodeInc = new BasicNode(n.type(), n.id() + 1);
-
-		double sum = 0.0;
-		
-		for (Edge e : backEdges.subSet(new BasicEdge(node, zero), new BasicEdge(nodeInc, zero)))
-			if (e.src().equals(n))
-				sum += e.weight();
-		
-		return sum;
+		return degrees.dstS(n);
 	}
 	
 	
@@ -237,16 +289,20 @@ public class BasicGraph implements Graph
 	 */
 	public boolean export(String path, String format)
 	{
+		if (format.equals("snap"))
+			return SnapshotGraph.write(this, path + ".snap");
+		
 		return false;
 	}
 	
 	
 	/**
-	 * Returns the given edge.
+	 * Returns the given edge, or null if it isn't part of the graph.
 	 */
 	public Edge getEdge(Edge e)
 	{
-		return edges.tailSet(e).first();
+		int i = edgeIndex.get(LongIntHashMap.key(e.src().id(), e.dst().id()));
+		return (i == LongIntHashMap.NONE) ? null : edgeList.get(i);
 	}
 	
 	
@@ -264,7 +320,7 @@ public class BasicGraph implements Graph
 	 */
 	public boolean hasEdge(Edge e)
 	{
-		return edges.contains(e);
+		return edgeIndex.containsKey(LongIntHashMap.key(e.src().id(), e.dst().id()));
 	}
 	
 
@@ -278,21 +334,11 @@ public class BasicGraph implements Graph
 	
 	
 	/**
-	 * Returns the subgraph containing only meme-meme edges.
+	 * Returns a view of the subgraph containing only meme-meme edges.
 	 */
 	public Graph memeGraph()
 	{
-		BasicGraph g = new BasicGraph();
-		
-		for (Node n : nodes)
-			if (n.type() == Node.TYPE_MEME)
-				g.nodes.add(n);
-
-		for (Edge e : edges)
-			if ((e.src().type() == Node.TYPE_MEME) && (e.dst().type() == Node.TYPE_MEME))
-				g.add(e);
-		
-		return g;
+		return FilteredGraph.memeGraph(this);
 	}
 	
 	
@@ -319,26 +365,16 @@ public class BasicGraph implements Graph
 	 */
 	public int srcCount()
 	{
-		Set<Node> set = new HashSet<Node>();
-		
-		for (Edge e : edges)
-			set.add(e.src());
-		
-		return set.size();
+		return degrees.srcCount();
 	}
 	
 
 	/**
-	 * Returns an iterable over the out-degrees of the nodes in the graph.
+	 * Returns the out-degrees of the nodes in the graph.
 	 */
-	public Iterable<Integer> srcK()
+	public int[] srcK()
 	{
-		Map<Node, Integer> map = new HashMap<Node, Integer>();
-	
-		for (Edge e : edges)
-			map.put(e.src(), map.containsKey(e.src()) ? 1 : map.get(e.src()) + 1);
-		
-		return map.values();
+		return degrees.srcK();
 	}
 
 	
@@ -347,32 +383,75 @@ public class BasicGraph implements Graph
 	 */
 	public int srcK(Node n)
 	{
-		BasicNode node    = (BasicNode) n;
-		BasicNode nodeInc = new BasicNode(n.type(), n.id() + 1);
-
-		int sum = 0;
-
-		for (Edge e : edges.subSet(new BasicEdge(node, zero), new BasicEdge(nodeInc, zero)))
-			if (e.src().equals(n))
-				++sum;
-		
-		return sum;
+		return degrees.srcK(n);
 	}
 	
 	
 	/**
-	 * Returns an iterable over the out-strengths of the nodes in the graph.
+	 * Returns the out-strengths of the nodes in the graph.
 	 */
-	public Iterable<Double> srcS()
+	public double[] srcS()
 	{
-		Map<Node, Double> map = new HashMap<Node, Double>();
-		
-		for (Edge e : edges) {
-			double sum = map.containsKey(e.src()) ? 0.0 : map.get(e.src());
-			map.put(e.src(), sum + e.weight());
-		}
+		return degrees.srcS();
+	}
+	
+	
+	/**
+	 * Returns a view of a single component of the graph.
+	 */
+	public Graph component(int n)
+	{
+		return FilteredGraph.component(this, frozenComponents(), n);
+	}
+	
+	
+	/**
+	 * Returns the number of weakly connected components in the graph.
+	 */
+	public int componentCount()
+	{
+		return components.count();
+	}
+	
+	
+	/**
+	 * Returns an array containing the size of each component in the graph.
+	 */
+	public int[] componentSize()
+	{
+		return components.sizes();
+	}
+	
+	
+	/**
+	 * Returns the number of the component containing the given node, or -1 if it isn't in the graph.
+	 */
+	public int componentOf(Node n)
+	{
+		return components.label(n);
+	}
+	
+	
+	/**
+	 * Returns a copy of the component table for component views, which mustn't renumber as the graph grows.
+	 * The copy is kept until the graph changes.
+	 */
+	ComponentTable frozenComponents()
+	{
+		ComponentTable table = (ComponentTable) stats.get("components");
+		if (table == null)
+			table = (ComponentTable) stats.put("components", new ComponentTable(components));
 		
-		return map.values();
+		return table;
+	}
+	
+	
+	/**
+	 * Returns a view of the trusted subset of the graph.
+	 */
+	public Graph trustedGraph()
+	{
+		return FilteredGraph.trustedGraph(this);
 	}
 	
 	
@@ -381,36 +460,82 @@ public class BasicGraph implements Graph
 	 */
 	public double srcS(Node n)
 	{
-		BasicNode node    = (BasicNode) n;
-		BasicNode nodeInc = new BasicNode(n.type(), n.id() + 1);
-
-		double sum = 0.0;
-		
-		for (Edge e : edges.subSet(new BasicEdge(node, zero), new BasicEdge(nodeInc, zero)))
-			if (e.src().equals(n))
-				sum += e.weight();
+		return degrees.srcS(n);
+	}
+	
+	
+	/**
+	 * Returns a CSR copy of the graph, which is kept (along with the statistics computed on it) until the
+	 * graph changes.
+	 */
+	public CsrGraph csr()
+	{
+		CsrGraph copy = (CsrGraph) stats.get("csr");
+		if (copy == null)
+			copy = (CsrGraph) stats.put("csr", CsrGraph.of(this));
 		
-		return sum;
+		return copy;
+	}
+	
+	
+	/**
+	 * These statistics are computed natively on a CSR copy of the graph.
+	 */
+	public double statClustering() { return csr().statClustering(); }
+	public double statDiameter  () { return csr().statDiameter  (); }
+	public double statModularity() { return csr().statModularity(); }
+	public double statPathLength() { return csr().statPathLength(); }
+	
+	
+	/**
+	 * Returns a discrete power-law fit to the in-degrees.
+	 */
+	public PowerLaw statDstKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("dstfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("dstfit", new PowerLaw(degrees.histogram().getIn()));
+
+		return fit;
+	}
+
+
+	/**
+	 * Returns a discrete power-law fit to the out-degrees.
+	 */
+	public PowerLaw statSrcKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("srcfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("srcfit", new PowerLaw(degrees.histogram().getOut()));
+
+		return fit;
 	}
+
+
+	/**
+	 * Returns the maximum likelihood power-law exponents for in- and out-degree.
+	 */
+	public double statDstKPower() { return statDstKFit().getExponent(); }
+	public double statSrcKPower() { return statSrcKFit().getExponent(); }
 	
 	
 	/**
 	 * These methods are not yet implemented for the basic graph because its development
 	 * has stagnated since the creation of GephiGraph. 
 	 */
-	public int    componentCount()                   { throw new UnsupportedOperationException(); }
-	public int[]  componentSize ()                   { throw new UnsupportedOperationException(); }
-	public Graph  component     (int n)              { throw new UnsupportedOperationException(); }
 	public void   layout        (VDictionary config) { throw new UnsupportedOperationException(); }
-	public double statClustering()                   { throw new UnsupportedOperationException(); }
-	public double statDiameter  ()                   { throw new UnsupportedOperationException(); }
-	public double statDstKPower ()                   { throw new UnsupportedOperationException(); }
-	public double statModularity()                   { throw new UnsupportedOperationException(); }
-	public double statPathLength()                   { throw new UnsupportedOperationException(); }
-	public double statSrcKPower ()                   { throw new UnsupportedOperationException(); }
-	public Graph  trustedGraph  ()                   { throw new UnsupportedOperationException(); }
 
 	
+	/**
+	 * Returns the number of changes that have been made to the graph.
+	 */
+	public int version()
+	{
+		return version;
+	}
+	
+	
 	/**
 	 * Returns the total weight of this edge.
 	 * Returns zero if there is no such edge.
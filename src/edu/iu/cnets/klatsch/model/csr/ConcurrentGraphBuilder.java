@@ -0,0 +1,171 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.EdgeBatch;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.Graph;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.stat.Parallel;
+
+
+/**
+ * This class builds a graph from several threads at once, such as one per feed or per time partition.
+ *
+ * Edges are sharded by the ID of their source node, and each shard is an {@link EdgeBatch} guarded by its own
+ * lock, so threads only contend when they happen to hit the same shard at the same moment.  Since every copy
+ * of a given (source, destination) edge lands in the same shard, repeats are merged there with the usual
+ * semantics of {@link Edge#Edge(Edge, Edge)}.
+ *
+ * When all of the writers are done, {@link #freeze} gathers the shards into a {@link CsrGraph} that rejects
+ * further additions and can be read from any number of threads.  {@link #merge} is the usual way in: it
+ * reads several graphs, such as snapshots of different time partitions, on threads of their own.
+ */
+public class ConcurrentGraphBuilder
+{
+	/** the shards, whose count is a power of two */
+	EdgeBatch[]      shards;
+
+	/** the bit mask for converting a hash into a shard number */
+	int              mask;
+
+	/** set as soon as freezing starts, after which no more edges are accepted */
+	volatile boolean frozen;
+
+	/** the finished graph, once we've been frozen */
+	CsrGraph         graph;
+
+
+	/**
+	 * Creates a builder sized for the number of processors on this machine.
+	 */
+	public ConcurrentGraphBuilder()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Creates a builder for the given number of writer threads.
+	 *
+	 * @param threads  the number of threads expected to write at once
+	 */
+	public ConcurrentGraphBuilder(int threads)
+	{
+		// four shards per writer keeps the odds of two writers colliding low
+		int count = 1;
+		while (count < 4 * threads)
+			count <<= 1;
+
+		shards = new EdgeBatch[count];
+		mask   = count - 1;
+		for (int i = 0; i < count; ++i)
+			shards[i] = new EdgeBatch();
+	}
+
+
+	/**
+	 * Adds an edge to the graph being built.  This may be called from any thread.
+	 */
+	public void add(Edge e)
+	{
+		EdgeBatch shard = shard(e.src());
+
+		synchronized (shard) {
+			if (frozen)
+				throw new IllegalStateException("graph builder has already been frozen");
+			shard.add(e);
+		}
+	}
+
+
+	/**
+	 * Adds every edge of every event from the given iterator.  This may be called from any thread.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		while (events.hasNext()) {
+			Iterator<Edge> edges = events.next().edges();
+			while (edges.hasNext())
+				add(edges.next());
+		}
+	}
+
+
+	/**
+	 * Merges the given graphs into one frozen graph, reading them in parallel using the given number of
+	 * threads.  Each graph is only ever read by one thread, so they needn't be safe to share, but they must not
+	 * share any state with each other (as separate snapshots don't).
+	 */
+	public static Graph merge(final List<? extends Graph> parts, int threads)
+	{
+		final ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder(threads);
+
+		List<Parallel.Worker> workers = new ArrayList<Parallel.Worker>();
+		for (int i = 0; i < Math.max(1, threads); ++i)
+			workers.add(new Parallel.Worker() {
+				protected void process(int begin, int end)
+				{
+					for (int p = begin; p < end; ++p)
+						for (Edge e : parts.get(p).edges())
+							builder.add(e);
+				}
+			});
+		Parallel.run(parts.size(), 1, workers);
+
+		return builder.freeze();
+	}
+
+
+	/**
+	 * Returns the shard responsible for edges leaving the given node.
+	 */
+	EdgeBatch shard(Node src)
+	{
+		// spread the ID so that runs of consecutive IDs don't all land in neighboring shards
+		int h = src.id() * 0x9e3779b9;
+		return shards[(h ^ (h >>> 16)) & mask];
+	}
+
+
+	/**
+	 * Merges the shards into a frozen {@link CsrGraph}.  This should be called once all writers have finished;
+	 * any later attempt to add edges throws an {@link IllegalStateException}.  Calling it again returns the
+	 * same graph.
+	 */
+	public synchronized Graph freeze()
+	{
+		if (graph != null)
+			return graph;
+
+		// once this is set, a writer that takes a shard's lock after we've read that shard will see it and fail,
+		// and one that got in before us will have its edge included
+		frozen = true;
+
+		int edges = 0;
+		for (EdgeBatch shard : shards)
+			synchronized (shard) {
+				edges += shard.size();
+			}
+
+		CsrGraph g = new CsrGraph(edges, edges);
+
+		for (EdgeBatch shard : shards)
+			synchronized (shard) {
+				for (int i = 0; i < shard.size(); ++i) {
+					Node src = shard.src(i);
+					Node dst = shard.dst(i);
+					g.addEdge(g.addNode(src.type(), src.id(), src.color()), g.addNode(dst.type(), dst.id(), dst.color()),
+					          shard.startTime(i), shard.endTime(i), shard.weight(i), shard.trust(i), shard.color(i));
+				}
+
+				// the graph now holds a copy of everything in the shard
+				shard.clear();
+			}
+
+		return (graph = g.freeze());
+	}
+}
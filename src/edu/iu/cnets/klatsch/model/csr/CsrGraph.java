@@ -0,0 +1,1222 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.misc.UnionFind;
+import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.EdgeBatch;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.FilteredGraph;
+import edu.iu.cnets.klatsch.model.Graph;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeIndex;
+import edu.iu.cnets.klatsch.model.StatCache;
+import edu.iu.cnets.klatsch.model.basic.BasicEdge;
+import edu.iu.cnets.klatsch.model.basic.BasicNode;
+import edu.iu.cnets.klatsch.model.gephi.GephiGraph;
+import edu.iu.cnets.klatsch.stat.ClusteringCoefficient;
+import edu.iu.cnets.klatsch.stat.CoreDecomposition;
+import edu.iu.cnets.klatsch.stat.DegreeHistogram;
+import edu.iu.cnets.klatsch.stat.GraphDistance;
+import edu.iu.cnets.klatsch.stat.Louvain;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
+
+
+/**
+ * This is an implementation of {@link Graph} that keeps everything in primitive arrays, for graphs that are
+ * too large to hold as one object per node and edge.
+ *
+ * Nodes are numbered densely in the order they're added, and their attributes live in parallel columns.
+ * Edges are likewise stored as parallel columns, with their attributes held off the heap in an
+ * {@link EdgeColumns}.  New edges are appended to the end of the columns, and the next query that needs
+ * adjacency sorts the columns by (source, destination) so that the source and destination columns form a
+ * compressed sparse row (CSR) structure, with a second index over edge numbers sorted by destination for
+ * the incoming direction.  Adding an edge that's already present merges it into the existing one in place,
+ * so it never disturbs the sort.
+ *
+ * The {@link Node} and {@link Edge} objects handed out by this class are built on demand, one per element,
+ * and Java code that wants to avoid that can walk the structure directly using the index-based accessors,
+ * which allocate nothing: the edges leaving node v are the edge numbers from {@link #outBegin} up to
+ * {@link #outEnd}, and the edges entering it are {@link #inEdge} of the positions from {@link #inBegin} up to
+ * {@link #inEnd}.  Their attributes are read with {@link #edgeSrc}, {@link #edgeWeight}, and so on.
+ *
+ * The statistics are computed natively by the classes in the stat package.  Layout and export are handled
+ * by copying into a {@link GephiGraph}.
+ */
+public class CsrGraph implements Graph
+{
+	/** the number of nodes */
+	int            nodeCount;
+
+	/** the dense numbering of the nodes, which holds their types and IDs */
+	NodeIndex      nodeIndex;
+
+	/** the color of each node, indexed by dense node index */
+	int[]          nodeColor;
+
+	/** the running out-degree, in-degree, out-strength, and in-strength of each node */
+	int[]          nodeKOut;
+	int[]          nodeKIn;
+	double[]       nodeSOut;
+	double[]       nodeSIn;
+
+	/** the number of nodes with at least one outgoing or incoming edge */
+	int            srcCount;
+	int            dstCount;
+
+	/** the number of edges */
+	int            edgeCount;
+
+	/** the endpoint columns, indexed by edge number */
+	int[]          edgeSrc;
+	int[]          edgeDst;
+
+	/** the attribute columns, indexed by edge number, which are kept off the heap */
+	EdgeColumns    edgeAttr;
+
+	/** maps from an edge's (source index, destination index) key to its edge number */
+	LongIntHashMap edgeIndex;
+
+	/** true if nodes or edges have been added since the CSR structure was last built */
+	boolean        dirty;
+
+	/** the first edge number for each source node, with a sentinel at the end */
+	int[]          outOffset;
+
+	/** the first position in {@link #inEdge} for each destination node, with a sentinel at the end */
+	int[]          inOffset;
+
+	/** edge numbers sorted by destination */
+	int[]          inEdge;
+
+	/** a Gephi copy of the graph that has had layout performed on it, if any */
+	GephiGraph     render;
+
+	/** true once the graph has been frozen against further additions */
+	boolean        frozen;
+
+	/** the weakly connected components, kept up to date as edges are added */
+	UnionFind      components;
+
+	/** bumped by every change to the graph */
+	int            version;
+
+	/** the statistics computed for the current version of the graph */
+	StatCache      stats;
+
+
+	/**
+	 * Basic constructor for an empty graph.
+	 */
+	public CsrGraph()
+	{
+		this(16, 16);
+	}
+
+
+	/**
+	 * Constructor for an empty graph that can hold the given number of nodes and edges without growing.
+	 *
+	 * @param nodes  the expected number of nodes
+	 * @param edges  the expected number of edges
+	 */
+	public CsrGraph(int nodes, int edges)
+	{
+		allocate(nodes, edges);
+		stats = new StatCache(this);
+	}
+
+
+	/**
+	 * Replaces the storage with empty columns of the given sizes, unless the graph is frozen.
+	 */
+	void allocate(int nodes, int edges)
+	{
+		checkFrozen();
+
+		nodes = Math.max(nodes, 1);
+		edges = Math.max(edges, 1);
+
+		nodeCount  = 0;
+		nodeIndex  = new NodeIndex(nodes);
+		nodeColor  = new int[nodes];
+		nodeKOut   = new int   [nodes];
+		nodeKIn    = new int   [nodes];
+		nodeSOut   = new double[nodes];
+		nodeSIn    = new double[nodes];
+		srcCount   = 0;
+		dstCount   = 0;
+
+		edgeCount  = 0;
+		edgeSrc    = new int   [edges];
+		edgeDst    = new int   [edges];
+		edgeAttr   = new EdgeColumns(edges);
+		edgeIndex  = new LongIntHashMap(edges);
+		components = new UnionFind(nodes);
+
+		outOffset  = null;
+		inOffset   = null;
+		inEdge     = null;
+		dirty      = true;
+		dropRender();
+		++version;
+	}
+
+
+	/**
+	 * Returns a CSR copy of the given graph, or the graph itself if it's already a CSR graph.
+	 */
+	public static CsrGraph of(Graph g)
+	{
+		if (g instanceof CsrGraph)
+			return (CsrGraph) g;
+
+		CsrGraph copy = new CsrGraph(g.nodeCount(), g.edgeCount());
+		for (Node n : g.nodes())
+			copy.addNode(n.type(), n.id(), n.color());
+		for (Edge e : g.edges())
+			copy.add(e);
+
+		return copy;
+	}
+
+
+	/**
+	 * Returns a graph of the actors 0 through n - 1 and the first m of the given edges, which must be distinct,
+	 * stamped with the current time.  Each edge's trust is the same as its weight, which is one for every
+	 * edge if weight is null.  The columns are filled in directly, which costs much less than adding the
+	 * edges one at a time.
+	 */
+	static CsrGraph actors(int n, int m, int[] src, int[] dst, double[] weight)
+	{
+		CsrGraph g   = new CsrGraph(n, m);
+		int      now = (int) (System.currentTimeMillis() / 1000);
+
+		for (int v = 0; v < n; ++v)
+			g.nodeIndex.add(Node.TYPE_ACTOR, v);
+
+		System.arraycopy(src, 0, g.edgeSrc, 0, m);
+		System.arraycopy(dst, 0, g.edgeDst, 0, m);
+		for (int e = 0; e < m; ++e) {
+			double w = (weight != null) ? weight[e] : 1.0;
+			g.edgeAttr.set(e, now, now, w, w, 0x000000);
+			g.edgeIndex.put(LongIntHashMap.key(src[e], dst[e]), e);
+		}
+
+		g.nodeCount = n;
+		g.edgeCount = m;
+		g.countDegrees();
+
+		return g;
+	}
+
+
+	/*===================================================================
+	 * Index-based access to the structure.
+	 *===================================================================*/
+
+	/**
+	 * Adds a node with the given attributes if it isn't already present.
+	 *
+	 * @return the dense index of the node
+	 */
+	public int addNode(int type, int id, int color)
+	{
+		checkFrozen();
+
+		int v = nodeIndex.add(type, id);
+
+		if (v == nodeCount) {
+			if (nodeCount == nodeColor.length) {
+				int size  = nodeCount * 2;
+				nodeColor = Arrays.copyOf(nodeColor, size);
+				nodeKOut  = Arrays.copyOf(nodeKOut,  size);
+				nodeKIn   = Arrays.copyOf(nodeKIn,   size);
+				nodeSOut  = Arrays.copyOf(nodeSOut,  size);
+				nodeSIn   = Arrays.copyOf(nodeSIn,   size);
+			}
+
+			++nodeCount;
+			nodeColor[v] = color;
+			components.add();
+			dirty = true;
+			dropRender();
+			++version;
+		}
+
+		return v;
+	}
+
+
+	/**
+	 * Adds an edge between the nodes with the given dense indices, merging it with any existing edge between
+	 * them in the manner of {@link Edge#Edge(Edge, Edge)}.
+	 *
+	 * @return the edge number
+	 */
+	public int addEdge(int src, int dst, int startTime, int endTime, double weight, double trust, int color)
+	{
+		checkFrozen();
+
+		long key = LongIntHashMap.key(src, dst);
+		int  e   = edgeIndex.get(key);
+
+		if (e != LongIntHashMap.NONE) {
+			edgeAttr.merge(e, startTime, endTime, weight, trust);
+		} else {
+			if (edgeCount == edgeSrc.length) {
+				int size = edgeCount * 2;
+				edgeSrc  = Arrays.copyOf(edgeSrc, size);
+				edgeDst  = Arrays.copyOf(edgeDst, size);
+				edgeAttr.grow(size);
+			}
+
+			e = edgeCount++;
+			edgeSrc[e] = src;
+			edgeDst[e] = dst;
+			edgeAttr.set(e, startTime, endTime, weight, trust, color);
+			edgeIndex.put(key, e);
+			components.union(src, dst);
+			dirty = true;
+
+			if (nodeKOut[src]++ == 0)  ++srcCount;
+			if (nodeKIn [dst]++ == 0)  ++dstCount;
+		}
+
+		nodeSOut[src] += weight;
+		nodeSIn [dst] += weight;
+		dropRender();
+		++version;
+		return e;
+	}
+
+
+	/**
+	 * Builds the CSR structure and marks the graph read-only, so that it can be shared between threads: after
+	 * this, nothing (not even a query) writes to the columns.
+	 *
+	 * @return the graph itself
+	 */
+	public CsrGraph freeze()
+	{
+		compact();
+		frozen = true;
+		return this;
+	}
+
+
+	/**
+	 * Throws an exception if the graph has been frozen.
+	 */
+	void checkFrozen()
+	{
+		if (frozen)
+			throw new UnsupportedOperationException("graph is frozen");
+	}
+
+
+	/**
+	 * Recomputes the degree and strength of every node, and the components, from the edge columns, for code
+	 * that fills the columns directly instead of going through {@link #addEdge}.
+	 */
+	void countDegrees()
+	{
+		components = new UnionFind(nodeCount);
+		for (int v = 0; v < nodeCount; ++v)
+			components.add();
+		for (int e = 0; e < edgeCount; ++e)
+			components.union(edgeSrc[e], edgeDst[e]);
+
+		Arrays.fill(nodeKOut, 0);
+		Arrays.fill(nodeKIn,  0);
+		Arrays.fill(nodeSOut, 0.0);
+		Arrays.fill(nodeSIn,  0.0);
+		srcCount = 0;
+		dstCount = 0;
+
+		for (int e = 0; e < edgeCount; ++e) {
+			if (nodeKOut[edgeSrc[e]]++ == 0)  ++srcCount;
+			if (nodeKIn [edgeDst[e]]++ == 0)  ++dstCount;
+			nodeSOut[edgeSrc[e]] += edgeAttr.weight(e);
+			nodeSIn [edgeDst[e]] += edgeAttr.weight(e);
+		}
+	}
+
+
+	/**
+	 * Sorts the edge columns into CSR order and rebuilds the offset arrays, if anything has been added since
+	 * the last time.  The index-based accessors call this as needed, so it's only public for callers that
+	 * want to control when the cost is paid.
+	 */
+	public void compact()
+	{
+		if (!dirty)
+			return;
+
+		int[] count = new int[nodeCount + 1];
+		int[] byDst = new int[edgeCount];
+		int[] order = new int[edgeCount];
+
+		// counting sort by destination, then a stable counting sort by source, gives (source, destination) order
+		for (int e = 0; e < edgeCount; ++e)  count[edgeDst[e] + 1]++;
+		for (int v = 0; v < nodeCount; ++v)  count[v + 1] += count[v];
+		for (int e = 0; e < edgeCount; ++e)  byDst[count[edgeDst[e]]++] = e;
+
+		outOffset = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; ++e)  outOffset[edgeSrc[e] + 1]++;
+		for (int v = 0; v < nodeCount; ++v)  outOffset[v + 1] += outOffset[v];
+
+		int[] next = Arrays.copyOf(outOffset, nodeCount);
+		for (int i = 0; i < edgeCount; ++i)  order[next[edgeSrc[byDst[i]]]++] = byDst[i];
+
+		// permute the edge columns into that order
+		int capacity = edgeSrc.length;
+		int[] src    = new int[capacity];
+		int[] dst    = new int[capacity];
+
+		edgeIndex = new LongIntHashMap(edgeCount);
+		for (int i = 0; i < edgeCount; ++i) {
+			int e = order[i];
+			src[i] = edgeSrc[e];
+			dst[i] = edgeDst[e];
+			edgeIndex.put(LongIntHashMap.key(src[i], dst[i]), i);
+		}
+
+		edgeSrc  = src;
+		edgeDst  = dst;
+		edgeAttr.permute(order, edgeCount);
+
+		// build the incoming index, which comes out sorted by source within each destination
+		inOffset = new int[nodeCount + 1];
+		inEdge   = new int[edgeCount];
+		for (int e = 0; e < edgeCount; ++e)  inOffset[edgeDst[e] + 1]++;
+		for (int v = 0; v < nodeCount; ++v)  inOffset[v + 1] += inOffset[v];
+
+		next = Arrays.copyOf(inOffset, nodeCount);
+		for (int e = 0; e < edgeCount; ++e)  inEdge[next[edgeDst[e]]++] = e;
+
+		dirty = false;
+	}
+
+
+	/** Returns the dense index of the given node, or -1 if it isn't in the graph. */
+	public int index(Node n)
+	{
+		return nodeIndex.get(n);
+	}
+
+
+	/** Returns the dense index of the node with the given type and ID, or -1 if it isn't in the graph. */
+	public int index(int type, int id)
+	{
+		return nodeIndex.get(type, id);
+	}
+
+
+	/**
+	 * Returns the dense numbering of the nodes, which algorithms can share to translate between nodes and
+	 * the indices of their arrays.  It only ever grows, so it stays valid as nodes are added.
+	 */
+	public NodeIndex nodeIndex()
+	{
+		return nodeIndex;
+	}
+
+
+	/** Returns the edge number of the edge between the given dense indices, or -1 if there isn't one. */
+	public int edgeIndex(int src, int dst)
+	{
+		return edgeIndex.get(LongIntHashMap.key(src, dst));
+	}
+
+
+	/** Returns the edge number of the first edge leaving node v. */
+	public int outBegin(int v)
+	{
+		compact();
+		return outOffset[v];
+	}
+
+
+	/** Returns one past the edge number of the last edge leaving node v. */
+	public int outEnd(int v)
+	{
+		compact();
+		return outOffset[v + 1];
+	}
+
+
+	/** Returns the position in the incoming index of the first edge entering node v. */
+	public int inBegin(int v)
+	{
+		compact();
+		return inOffset[v];
+	}
+
+
+	/** Returns one past the position in the incoming index of the last edge entering node v. */
+	public int inEnd(int v)
+	{
+		compact();
+		return inOffset[v + 1];
+	}
+
+
+	/**
+	 * Returns the edge number at position i of the incoming index.  The positions come from {@link #inBegin}
+	 * and {@link #inEnd}, which bring the index up to date.
+	 */
+	public int inEdge(int i)
+	{
+		return inEdge[i];
+	}
+
+
+	/** Accessors for the node columns. */
+	public int    nodeId    (int v)  { return nodeIndex.id  (v); }
+	public int    nodeType  (int v)  { return nodeIndex.type(v); }
+	public int    nodeColor (int v)  { return nodeColor [v]; }
+
+	/** Accessors for the edge columns. */
+	public int    edgeSrc   (int e)  { return edgeSrc   [e]; }
+	public int    edgeDst   (int e)  { return edgeDst   [e]; }
+	public int    edgeStart (int e)  { return edgeAttr.start (e); }
+	public int    edgeEnd   (int e)  { return edgeAttr.end   (e); }
+	public double edgeWeight(int e)  { return edgeAttr.weight(e); }
+	public double edgeTrust (int e)  { return edgeAttr.trust (e); }
+	public int    edgeColor (int e)  { return edgeAttr.color (e); }
+
+
+	/** Builds a {@link Node} object for the node with the given dense index. */
+	public Node node(int v)
+	{
+		return new BasicNode(nodeIndex.type(v), nodeIndex.id(v), nodeColor[v]);
+	}
+
+
+	/** Builds an {@link Edge} object for the edge with the given number. */
+	public Edge edge(int e)
+	{
+		return new BasicEdge(node(edgeSrc[e]), node(edgeDst[e]),
+		                     edgeStart(e), edgeEnd(e), edgeWeight(e), edgeTrust(e), edgeColor(e));
+	}
+
+
+	/**
+	 * Builds an iterable over a range of edges.  If the index is null, the range is over edge numbers;
+	 * otherwise it's over positions in the index.
+	 */
+	Iterable<Edge> edgeRange(final int[] index, final int begin, final int end)
+	{
+		return new Iterable<Edge>() {
+			public Iterator<Edge> iterator()
+			{
+				return new Iterator<Edge>() {
+					int i = begin;
+
+					public boolean hasNext()
+					{
+						return i < end;
+					}
+
+					public Edge next()
+					{
+						if (i >= end)
+							throw new NoSuchElementException();
+						return edge((index == null) ? i++ : index[i++]);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Copies node v into the given graph.
+	 */
+	int copyNode(CsrGraph g, int v)
+	{
+		return g.addNode(nodeIndex.type(v), nodeIndex.id(v), nodeColor[v]);
+	}
+
+
+	/**
+	 * Copies edge e (and its endpoints) into the given graph.
+	 */
+	void copyEdge(CsrGraph g, int e)
+	{
+		g.addEdge(copyNode(g, edgeSrc[e]), copyNode(g, edgeDst[e]),
+		          edgeStart(e), edgeEnd(e), edgeWeight(e), edgeTrust(e), edgeColor(e));
+	}
+
+
+	/**
+	 * Returns the weakly connected component label of each node, numbered in order of each component's
+	 * lowest node index.
+	 */
+	int[] componentLabels()
+	{
+		int[] label = (int[]) stats.get("labels");
+		if (label == null)
+			label = (int[]) stats.put("labels", components.labels());
+
+		return label;
+	}
+
+
+	/**
+	 * Returns the nodes and edges of the graph grouped by component, so that a component can be copied out
+	 * without scanning the whole graph.  The first array lists the nodes by component, and the second array
+	 * holds the offset of each component's nodes in the first (with a sentinel at the end).  The third and
+	 * fourth arrays do the same for edges.
+	 *
+	 * The edges are listed by edge number, so the graph is compacted first: compaction renumbers the edges
+	 * without changing the version, and the lists have to stay valid for as long as they're cached.
+	 */
+	int[][] componentMembers()
+	{
+		compact();
+
+		int[][] members = (int[][]) stats.get("members");
+		if (members != null)
+			return members;
+
+		int[] label = componentLabels();
+		int[] size  = componentSize();
+		int   count = size.length;
+
+		int[] nodeOffset = new int[count + 1];
+		int[] edgeOffset = new int[count + 1];
+		for (int v = 0; v < nodeCount; ++v)  nodeOffset[label[v] + 1]++;
+		for (int e = 0; e < edgeCount; ++e)  edgeOffset[label[edgeSrc[e]] + 1]++;
+		for (int c = 0; c < count; ++c) {
+			nodeOffset[c + 1] += nodeOffset[c];
+			edgeOffset[c + 1] += edgeOffset[c];
+		}
+
+		int[] nodes = new int[nodeCount];
+		int[] edges = new int[edgeCount];
+		int[] next  = Arrays.copyOf(nodeOffset, count);
+		for (int v = 0; v < nodeCount; ++v)  nodes[next[label[v]]++] = v;
+		next = Arrays.copyOf(edgeOffset, count);
+		for (int e = 0; e < edgeCount; ++e)  edges[next[label[edgeSrc[e]]]++] = e;
+
+		return (int[][]) stats.put("members", new int[][] { nodes, nodeOffset, edges, edgeOffset });
+	}
+
+
+	/*===================================================================
+	 * The Graph interface.
+	 *===================================================================*/
+
+	/**
+	 * Returns the subgraph containing only actors and actor-actor edges.
+	 */
+	public Graph actorGraph()
+	{
+		CsrGraph g = new CsrGraph();
+
+		for (int v = 0; v < nodeCount; ++v)
+			if (nodeIndex.type(v) == Node.TYPE_ACTOR)
+				copyNode(g, v);
+
+		for (int e = 0; e < edgeCount; ++e)
+			if ((nodeIndex.type(edgeSrc[e]) == Node.TYPE_ACTOR) && (nodeIndex.type(edgeDst[e]) == Node.TYPE_ACTOR))
+				copyEdge(g, e);
+
+		return g;
+	}
+
+
+	/**
+	 * Returns the subgraph containing only actor-meme and meme-actor edges.
+	 */
+	public Graph actorMemeGraph()
+	{
+		CsrGraph g = new CsrGraph(nodeCount, edgeCount);
+
+		for (int v = 0; v < nodeCount; ++v)
+			copyNode(g, v);
+
+		for (int e = 0; e < edgeCount; ++e) {
+			int srcType = nodeIndex.type(edgeSrc[e]);
+			int dstType = nodeIndex.type(edgeDst[e]);
+			if (((srcType == Node.TYPE_ACTOR) && (dstType == Node.TYPE_MEME)) ||
+					((srcType == Node.TYPE_MEME)  && (dstType == Node.TYPE_ACTOR)))
+				copyEdge(g, e);
+		}
+
+		return g;
+	}
+
+
+	/**
+	 * Adds the given edge to the graph.
+	 */
+	public void add(Edge e)
+	{
+		Node src = e.src();
+		Node dst = e.dst();
+
+		addEdge(addNode(src.type(), src.id(), src.color()), addNode(dst.type(), dst.id(), dst.color()),
+		        e.startTime(), e.endTime(), e.weight(), e.trust(), e.color());
+	}
+
+
+	/**
+	 * Adds every edge of every event from the given iterator.  Since {@link #addEdge} already merges repeated
+	 * edges in place through the primitive edge index, there's no need for a separate {@link EdgeBatch} here.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		while (events.hasNext()) {
+			Iterator<Edge> edges = events.next().edges();
+			while (edges.hasNext())
+				add(edges.next());
+		}
+	}
+
+
+	/**
+	 * Called to clear the graph in an effort to make its memory reclaimable by the Java garbage
+	 * collector.
+	 */
+	public void clear()
+	{
+		allocate(16, 16);
+	}
+
+
+	/**
+	 * Empties the graph, which also closes the laid-out Gephi copy if there is one.  A frozen graph keeps its
+	 * contents, since it may be shared, and only gives up the copy.
+	 */
+	public void close()
+	{
+		if (frozen)
+			dropRender();
+		else
+			clear();
+	}
+
+
+	/**
+	 * Closes the laid-out Gephi copy, if there is one, so that its workspace can be reused.  The copy is
+	 * dropped whenever the graph changes.
+	 */
+	void dropRender()
+	{
+		if (render != null) {
+			render.close();
+			render = null;
+		}
+	}
+
+
+	/**
+	 * Extracts a single component from the graph.
+	 */
+	public Graph component(int n)
+	{
+		CsrGraph g = new CsrGraph();
+		if (n >= componentCount())
+			return g;
+
+		int[][] members = componentMembers();
+		for (int i = members[1][n]; i < members[1][n + 1]; ++i)
+			copyNode(g, members[0][i]);
+		for (int i = members[3][n]; i < members[3][n + 1]; ++i)
+			copyEdge(g, members[2][i]);
+
+		return g;
+	}
+
+
+	/**
+	 * Returns the number of weakly connected components in the graph.
+	 */
+	public int componentCount()
+	{
+		return components.sets();
+	}
+
+
+	/**
+	 * Returns the number of the component containing the given node, or -1 if it isn't in the graph.
+	 */
+	public int componentOf(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? -1 : componentLabels()[v];
+	}
+
+
+	/**
+	 * Returns an array containing the size of each component in the graph.
+	 */
+	public int[] componentSize()
+	{
+		int[] size = (int[]) stats.get("sizes");
+		if (size == null)
+			size = (int[]) stats.put("sizes", components.sizes());
+
+		return size.clone();
+	}
+
+
+	/**
+	 * Returns the graph itself, which is already in the form the native algorithms want.
+	 */
+	public CsrGraph csr()
+	{
+		return this;
+	}
+
+
+	/**
+	 * Returns the number of destination nodes in the graph.
+	 */
+	public int dstCount()
+	{
+		return dstCount;
+	}
+
+
+	/**
+	 * Returns the in-degrees of every node, including zeros, in index order.
+	 */
+	public int[] dstK()
+	{
+		return Arrays.copyOf(nodeKIn, nodeCount);
+	}
+
+
+	/**
+	 * Returns the in-degree of the given node.
+	 */
+	public int dstK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : nodeKIn[v];
+	}
+
+
+	/**
+	 * Returns the in-strengths of every node, including zeros, in index order.
+	 */
+	public double[] dstS()
+	{
+		return Arrays.copyOf(nodeSIn, nodeCount);
+	}
+
+
+	/**
+	 * Returns the in-strength of the given node.
+	 */
+	public double dstS(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSIn[v];
+	}
+
+
+	/**
+	 * Returns the total number of edges.
+	 */
+	public int edgeCount()
+	{
+		return edgeCount;
+	}
+
+
+	/**
+	 * Returns an iterable over the edges.
+	 */
+	public Iterable<Edge> edges()
+	{
+		compact();
+		return edgeRange(null, 0, edgeCount);
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a destination.  This builds an {@link Edge} for
+	 * each one; see {@link #inBegin} for the allocation-free way.
+	 */
+	public Iterable<Edge> edgesIn(Node n)
+	{
+		int v = index(n);
+
+		// the incoming index has to be current before we take hold of it
+		compact();
+		return (v < 0) ? edgeRange(null, 0, 0) : edgeRange(inEdge, inOffset[v], inOffset[v + 1]);
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a source.  This builds an {@link Edge} for each
+	 * one; see {@link #outBegin} for the allocation-free way.
+	 */
+	public Iterable<Edge> edgesOut(Node n)
+	{
+		int v = index(n);
+
+		compact();
+		return (v < 0) ? edgeRange(null, 0, 0) : edgeRange(null, outOffset[v], outOffset[v + 1]);
+	}
+
+
+	/**
+	 * Exports the graph in the given format, using the laid-out copy of the graph if there is one.
+	 */
+	public boolean export(String path, String format)
+	{
+		if (format.equals("snap"))
+			return SnapshotGraph.write(this, path + ".snap");
+
+		if (render != null)
+			return render.export(path, format);
+
+		// the copy is only needed for the length of the export
+		GephiGraph copy = GephiGraph.copyOf(this);
+		try {
+			return copy.export(path, format);
+		} finally {
+			copy.close();
+		}
+	}
+
+
+	/**
+	 * Returns the given edge, or null if it isn't in the graph.
+	 */
+	public Edge getEdge(Edge e)
+	{
+		int src = index(e.src());
+		int dst = index(e.dst());
+		int i   = ((src < 0) || (dst < 0)) ? -1 : edgeIndex(src, dst);
+
+		return (i < 0) ? null : edge(i);
+	}
+
+
+	/**
+	 * Returns the given node, or null if it isn't in the graph.
+	 */
+	public Node getNode(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? null : node(v);
+	}
+
+
+	/**
+	 * Returns true if the given edge is part of the graph.
+	 */
+	public boolean hasEdge(Edge e)
+	{
+		int src = index(e.src());
+		int dst = index(e.dst());
+
+		return (src >= 0) && (dst >= 0) && (edgeIndex(src, dst) >= 0);
+	}
+
+
+	/**
+	 * Returns true if the given node is part of the graph.
+	 */
+	public boolean hasNode(Node n)
+	{
+		return index(n) >= 0;
+	}
+
+
+	/**
+	 * Performs layout on a Gephi copy of the graph, which is kept for use by {@link #export}.
+	 */
+	public void layout(VDictionary config)
+	{
+		dropRender();
+		render = GephiGraph.copyOf(this);
+		render.layout(config);
+	}
+
+
+	/**
+	 * Returns the subgraph containing only meme-meme edges.
+	 */
+	public Graph memeGraph()
+	{
+		CsrGraph g = new CsrGraph();
+
+		for (int v = 0; v < nodeCount; ++v)
+			if (nodeIndex.type(v) == Node.TYPE_MEME)
+				copyNode(g, v);
+
+		for (int e = 0; e < edgeCount; ++e)
+			if ((nodeIndex.type(edgeSrc[e]) == Node.TYPE_MEME) && (nodeIndex.type(edgeDst[e]) == Node.TYPE_MEME))
+				copyEdge(g, e);
+
+		return g;
+	}
+
+
+	/**
+	 * Returns the number of nodes in the graph.
+	 */
+	public int nodeCount()
+	{
+		return nodeCount;
+	}
+
+
+	/**
+	 * Returns an iterable over the nodes.
+	 */
+	public Iterable<Node> nodes()
+	{
+		final int count = nodeCount;
+
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Iterator<Node>() {
+					int v = 0;
+
+					public boolean hasNext()
+					{
+						return v < count;
+					}
+
+					public Node next()
+					{
+						if (v >= count)
+							throw new NoSuchElementException();
+						return node(v++);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the number of source nodes in the graph.
+	 */
+	public int srcCount()
+	{
+		return srcCount;
+	}
+
+
+	/**
+	 * Returns the out-degrees of every node, including zeros, in index order.
+	 */
+	public int[] srcK()
+	{
+		return Arrays.copyOf(nodeKOut, nodeCount);
+	}
+
+
+	/**
+	 * Returns the out-degree of the given node.
+	 */
+	public int srcK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : nodeKOut[v];
+	}
+
+
+	/**
+	 * Returns the out-strengths of every node, including zeros, in index order.
+	 */
+	public double[] srcS()
+	{
+		return Arrays.copyOf(nodeSOut, nodeCount);
+	}
+
+
+	/**
+	 * Returns the out-strength of the given node.
+	 */
+	public double srcS(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSOut[v];
+	}
+
+
+	/**
+	 * Returns the clustering coefficient, which is computed natively on several threads.
+	 */
+	public double statClustering()
+	{
+		ClusteringCoefficient cc = (ClusteringCoefficient) stats.get("clustering");
+		if (cc == null)
+			cc = (ClusteringCoefficient) stats.put("clustering", new ClusteringCoefficient(this));
+
+		return cc.getAverageClusteringCoefficient();
+	}
+
+
+	/**
+	 * Returns the distance statistics, which are computed natively on several threads.  The diameter and
+	 * path length come from the same searches, so asking for both only runs them once.
+	 */
+	GraphDistance distance()
+	{
+		GraphDistance dist = (GraphDistance) stats.get("distance");
+		if (dist == null)
+			dist = (GraphDistance) stats.put("distance", new GraphDistance(this));
+
+		return dist;
+	}
+
+
+	/**
+	 * Returns the Louvain communities of the graph, which are found natively on several threads.  The
+	 * modularity and the community labels come from the same run.
+	 */
+	Louvain louvain()
+	{
+		Louvain louvain = (Louvain) stats.get("louvain");
+		if (louvain == null)
+			louvain = (Louvain) stats.put("louvain", new Louvain(this));
+
+		return louvain;
+	}
+
+
+	/**
+	 * Returns the community of each node, in index order.
+	 */
+	public int[] communities()
+	{
+		return louvain().getCommunities();
+	}
+
+
+	/**
+	 * Returns the core number of each node, in index order, which is kept until the graph changes.
+	 */
+	public int[] cores()
+	{
+		CoreDecomposition cores = (CoreDecomposition) stats.get("cores");
+		if (cores == null)
+			cores = (CoreDecomposition) stats.put("cores", new CoreDecomposition(this));
+
+		return cores.getCores();
+	}
+
+
+	/**
+	 * Returns a view of the k-core of the graph: the nodes whose core number is at least k, and the edges
+	 * among them.
+	 */
+	public Graph kcore(int k)
+	{
+		return FilteredGraph.kcore(this, k);
+	}
+
+
+	/**
+	 * Returns the in- and out-degree histograms, which both power-law fits start from.
+	 */
+	DegreeHistogram histogram()
+	{
+		DegreeHistogram histogram = (DegreeHistogram) stats.get("histogram");
+		if (histogram == null)
+			histogram = (DegreeHistogram) stats.put("histogram", new DegreeHistogram(nodeKOut, nodeKIn, nodeCount));
+
+		return histogram;
+	}
+
+
+	/**
+	 * Returns a discrete power-law fit to the in-degrees.
+	 */
+	public PowerLaw statDstKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("dstfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("dstfit", new PowerLaw(histogram().getIn()));
+
+		return fit;
+	}
+
+
+	/**
+	 * Returns a discrete power-law fit to the out-degrees.
+	 */
+	public PowerLaw statSrcKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("srcfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("srcfit", new PowerLaw(histogram().getOut()));
+
+		return fit;
+	}
+
+
+	/**
+	 * These statistics come from the cached results above.
+	 */
+	public double statDiameter  () { return distance().getDiameter  (); }
+	public double statPathLength() { return distance().getPathLength(); }
+	public double statDstKPower () { return statDstKFit().getExponent(); }
+	public double statModularity() { return louvain().getModularity(); }
+	public double statSrcKPower () { return statSrcKFit().getExponent(); }
+
+
+	/**
+	 * Returns the trusted subset of the graph.
+	 */
+	public Graph trustedGraph()
+	{
+		CsrGraph g = new CsrGraph();
+
+		for (int e = 0; e < edgeCount; ++e)
+			if (edgeAttr.trust(e) > 0.0)
+				copyEdge(g, e);
+
+		return g;
+	}
+
+
+	/**
+	 * Returns the number of changes that have been made to the graph.
+	 */
+	public int version()
+	{
+		return version;
+	}
+
+
+	/**
+	 * Returns the total weight of the given edge.
+	 * Returns zero if there is no such edge.
+	 */
+	public double weight(Edge e)
+	{
+		int src = index(e.src());
+		int dst = index(e.dst());
+		int i   = ((src < 0) || (dst < 0)) ? -1 : edgeIndex(src, dst);
+
+		return (i < 0) ? 0.0 : edgeAttr.weight(i);
+	}
+}
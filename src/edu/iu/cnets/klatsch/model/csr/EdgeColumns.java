@@ -0,0 +1,198 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+
+/**
+ * This class holds the attributes of a graph's edges (start time, end time, weight, trust, and color) as one
+ * column per attribute, indexed by dense edge number.  The columns live off the Java heap in direct buffers,
+ * so that the garbage collector never has to trace or copy them however large the graph gets, and they're
+ * read and written as primitives, without any boxing.
+ *
+ * The columns have a fixed capacity, which {@link #grow(int)} enlarges by copying into new buffers.  The
+ * old buffers are released when they're collected, which may be a while, so everything else (in particular
+ * {@link #permute}) works in place rather than allocating more direct memory.
+ */
+public class EdgeColumns
+{
+	/** the number of edges the columns can hold */
+	int          capacity;
+
+	/** the columns */
+	IntBuffer    start;
+	IntBuffer    end;
+	DoubleBuffer weight;
+	DoubleBuffer trust;
+	IntBuffer    color;
+
+
+	/**
+	 * Creates zeroed columns that can hold the given number of edges.
+	 */
+	public EdgeColumns(int capacity)
+	{
+		this.capacity = Math.max(capacity, 1);
+		this.start    = allocate(4L * this.capacity).asIntBuffer();
+		this.end      = allocate(4L * this.capacity).asIntBuffer();
+		this.weight   = allocate(8L * this.capacity).asDoubleBuffer();
+		this.trust    = allocate(8L * this.capacity).asDoubleBuffer();
+		this.color    = allocate(4L * this.capacity).asIntBuffer();
+	}
+
+
+	/**
+	 * Allocates a direct buffer of the given number of bytes, in the platform's byte order so that reads and
+	 * writes don't have to swap bytes.
+	 */
+	static ByteBuffer allocate(long bytes)
+	{
+		if (bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many edges for one column");
+
+		return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+	}
+
+
+	/**
+	 * Returns the number of edges the columns can hold.
+	 */
+	public int capacity()
+	{
+		return capacity;
+	}
+
+
+	/**
+	 * Enlarges the columns to hold at least the given number of edges, keeping their contents.
+	 */
+	public void grow(int size)
+	{
+		if (size <= capacity)
+			return;
+
+		EdgeColumns copy = new EdgeColumns(size);
+		copy.start .put(view(start));
+		copy.end   .put(view(end));
+		copy.weight.put(view(weight));
+		copy.trust .put(view(trust));
+		copy.color .put(view(color));
+
+		capacity = copy.capacity;
+		start    = copy.start;
+		end      = copy.end;
+		weight   = copy.weight;
+		trust    = copy.trust;
+		color    = copy.color;
+	}
+
+
+	/**
+	 * Rearranges the first count rows in place, so that row i becomes what was row order[i], where order is
+	 * a permutation of 0 through count - 1.  Each cycle of the permutation is followed around with one row
+	 * held aside, so no second set of columns is needed.
+	 */
+	public void permute(int[] order, int count)
+	{
+		boolean[] done = new boolean[count];
+
+		for (int i = 0; i < count; ++i) {
+			if (done[i])
+				continue;
+
+			int    s = start .get(i);
+			int    n = end   .get(i);
+			double w = weight.get(i);
+			double t = trust .get(i);
+			int    c = color .get(i);
+
+			// each row in the cycle takes the row it maps from, until we come back around to row i
+			int j = i;
+			for (int k = order[j]; k != i; j = k, k = order[j]) {
+				set(j, start.get(k), end.get(k), weight.get(k), trust.get(k), color.get(k));
+				done[j] = true;
+			}
+
+			set(j, s, n, w, t, c);
+			done[j] = true;
+		}
+	}
+
+
+	/**
+	 * Returns a view of the whole of a column, positioned at the start, that can be read without disturbing
+	 * anyone else's position.
+	 */
+	static IntBuffer view(IntBuffer column)
+	{
+		IntBuffer view = column.duplicate();
+		view.clear();
+		return view;
+	}
+
+
+	/**
+	 * Returns a view of the whole of a column, positioned at the start.
+	 */
+	static DoubleBuffer view(DoubleBuffer column)
+	{
+		DoubleBuffer view = column.duplicate();
+		view.clear();
+		return view;
+	}
+
+
+	/** Accessors for the columns. */
+	public int    start (int e)  { return start .get(e); }
+	public int    end   (int e)  { return end   .get(e); }
+	public double weight(int e)  { return weight.get(e); }
+	public double trust (int e)  { return trust .get(e); }
+	public int    color (int e)  { return color .get(e); }
+
+
+	/**
+	 * Sets all the attributes of edge e.
+	 */
+	public void set(int e, int startTime, int endTime, double w, double t, int c)
+	{
+		start .put(e, startTime);
+		end   .put(e, endTime);
+		weight.put(e, w);
+		trust .put(e, t);
+		color .put(e, c);
+	}
+
+
+	/**
+	 * Merges new data into edge e, in the manner of {@link edu.iu.cnets.klatsch.model.Edge#Edge(
+	 * edu.iu.cnets.klatsch.model.Edge, edu.iu.cnets.klatsch.model.Edge)}: the time range is widened to cover
+	 * both, and the weights are added.
+	 */
+	public void merge(int e, int startTime, int endTime, double w, double t)
+	{
+		start.put(e, Math.min(start.get(e), startTime));
+		end  .put(e, Math.max(end  .get(e), endTime));
+		add(e, w, t);
+	}
+
+
+	/**
+	 * Adds to the weight and trusted weight of edge e, which may be negative to take data away.
+	 */
+	public void add(int e, double w, double t)
+	{
+		weight.put(e, weight.get(e) + w);
+		trust .put(e, trust .get(e) + t);
+	}
+
+
+	/**
+	 * Sets the start time of edge e.
+	 */
+	public void setStart(int e, int startTime)
+	{
+		start.put(e, startTime);
+	}
+}
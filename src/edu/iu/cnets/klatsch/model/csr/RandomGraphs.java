@@ -0,0 +1,259 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.misc.FastRandom;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.stat.Parallel;
+
+
+/**
+ * This class generates random directed graphs for use as null models: Erdos-Renyi G(n, p), Barabasi-Albert
+ * preferential attachment, and the configuration model.  The nodes are the actors 0 through n - 1, and the
+ * graphs are built straight into the columns of a {@link CsrGraph} rather than an edge at a time.
+ *
+ * Every generator takes a seed and gives the same graph for the same seed, however many threads it runs on.
+ * The methods follow Batagelj and Brandes, "Efficient generation of large random networks" (2005), and take
+ * time linear in the size of the graph they produce, rather than in the number of pairs of nodes.
+ */
+public class RandomGraphs
+{
+	/** the number of candidate edges in each independently generated block of G(n, p) */
+	static final long BLOCK = 1L << 22;
+
+
+	/**
+	 * Returns a G(n, p) graph, in which each of the n(n - 1) ordered pairs of distinct nodes is an edge with
+	 * probability p, using one thread per processor.
+	 */
+	public static CsrGraph erdosRenyi(int n, double p, long seed)
+	{
+		return erdosRenyi(n, p, seed, Parallel.threads());
+	}
+
+
+	/**
+	 * Returns a G(n, p) graph, using the given number of threads.
+	 *
+	 * The candidate edges are numbered row by row, and rather than drawing a number for each one, we draw the
+	 * length of the gap to the next edge, which is geometrically distributed.  The rows are cut into blocks
+	 * that are generated on their own random streams, in parallel, and then put back together in order.
+	 */
+	public static CsrGraph erdosRenyi(final int n, final double p, final long seed, int threads)
+	{
+		if ((n < 0) || !(p >= 0.0) || (p > 1.0))
+			throw new IllegalArgumentException("need n >= 0 and 0 <= p <= 1");
+
+		final long   pairs    = (long) n * (n - 1);
+		final double expected = pairs * p;
+		if (expected + 6.0 * Math.sqrt(expected) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many edges for one graph");
+		if ((pairs == 0) || (p == 0.0))
+			return CsrGraph.actors(n, 0, new int[0], new int[0], null);
+
+		final int     rows   = (int) Math.max(1, Math.min(n, BLOCK / (n - 1)));
+		final int     blocks = (n + rows - 1) / rows;
+		final int[][] src    = new int[blocks][];
+		final int[][] dst    = new int[blocks][];
+		final int[]   count  = new int[blocks];
+		final double  scale  = (p < 1.0) ? 1.0 / Math.log1p(-p) : 0.0;
+
+		List<Parallel.Worker> workers = new ArrayList<Parallel.Worker>();
+		for (int i = 0; i < Math.max(1, threads); ++i)
+			workers.add(new Parallel.Worker() {
+				protected void process(int begin, int end)
+				{
+					for (int b = begin; b < end; ++b) {
+						FastRandom random = new FastRandom(seed, b);
+						long       first  = (long) b * rows * (n - 1);
+						long       last   = Math.min((long) (b + 1) * rows, n) * (n - 1);
+						int        size   = (int) Math.min(last - first, (last - first) * p * 1.1 + 16);
+						int[]      s      = new int[size];
+						int[]      d      = new int[size];
+						int        c      = 0;
+
+						for (long pos = first - 1; ; ) {
+							double gap = (p < 1.0) ? Math.floor(Math.log1p(-random.nextDouble()) * scale) : 0.0;
+							if (gap >= last - pos - 1)
+								break;
+							pos += 1 + (long) gap;
+
+							if (c == s.length) {
+								s = Arrays.copyOf(s, c * 2);
+								d = Arrays.copyOf(d, c * 2);
+							}
+
+							// column j of a row skips the diagonal
+							int row = (int) (pos / (n - 1));
+							int col = (int) (pos % (n - 1));
+							s[c] = row;
+							d[c] = (col >= row) ? col + 1 : col;
+							++c;
+						}
+
+						src  [b] = s;
+						dst  [b] = d;
+						count[b] = c;
+					}
+				}
+			});
+		Parallel.run(blocks, 1, workers);
+
+		long m = 0;
+		for (int c : count)
+			m += c;
+		if (m > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many edges for one graph");
+
+		int[] allSrc = new int[(int) m];
+		int[] allDst = new int[(int) m];
+		int   pos    = 0;
+		for (int b = 0; b < blocks; ++b) {
+			System.arraycopy(src[b], 0, allSrc, pos, count[b]);
+			System.arraycopy(dst[b], 0, allDst, pos, count[b]);
+			pos += count[b];
+		}
+
+		return CsrGraph.actors(n, pos, allSrc, allDst, null);
+	}
+
+
+	/**
+	 * Returns a Barabasi-Albert graph, grown one node at a time from nodes 0 through m - 1, with each new node
+	 * adding edges to m distinct older nodes chosen with probability proportional to their degree (counting
+	 * edges in both directions).  Node m links to all of the first m nodes, which have no edges yet.
+	 *
+	 * The degrees are tracked by a list holding both endpoints of every edge so far, so that a uniform draw
+	 * from the list is a draw proportional to degree.  Each node depends on all the ones before it, so this
+	 * runs on one thread.
+	 *
+	 * @param n     the number of nodes
+	 * @param m     the number of edges each new node adds
+	 * @param seed  the seed for the random numbers
+	 */
+	public static CsrGraph barabasiAlbert(int n, int m, long seed)
+	{
+		if ((m < 1) || (m >= n))
+			throw new IllegalArgumentException("need 1 <= m < n");
+
+		long total = (long) (n - m) * m;
+		if (2 * total > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many edges for one graph");
+
+		FastRandom random = new FastRandom(seed);
+		int[]      src    = new int[(int) total];
+		int[]      dst    = new int[(int) total];
+		int[]      ends   = new int[(int) (2 * total)];
+		int[]      mark   = new int[n];
+		int        count  = 0;
+
+		Arrays.fill(mark, -1);
+
+		for (int v = m; v < n; ++v) {
+			int before = count;
+
+			for (int i = 0; i < m; ++i) {
+				int w;
+				if (v == m)
+					w = i;
+				else
+					do {
+						w = ends[random.nextInt(2 * before)];
+					} while (mark[w] == v);
+
+				mark[w]    = v;
+				src[count] = v;
+				dst[count] = w;
+				++count;
+			}
+
+			// the new endpoints only count once this node is done, so that it never picks itself
+			for (int e = before; e < count; ++e) {
+				ends[2 * e]     = src[e];
+				ends[2 * e + 1] = dst[e];
+			}
+		}
+
+		return CsrGraph.actors(n, count, src, dst, null);
+	}
+
+
+	/**
+	 * Returns a graph drawn from the directed configuration model with the given degree sequences: each node
+	 * gets as many outgoing and incoming stubs as its degrees, and the incoming stubs are shuffled and matched
+	 * to the outgoing ones.  The two sequences must have the same length and the same total.
+	 *
+	 * Every node ends up with exactly the given degrees if edges are counted with their multiplicity.  A graph
+	 * holds one edge per (source, destination) pair, so repeated pairs are merged into one edge whose weight
+	 * (and trust) is the number of times it was drawn, just as repeated edges are merged when they're added;
+	 * the degrees of {@link CsrGraph} count distinct edges, and the strengths count the repeats.  Self-loops
+	 * are kept.
+	 *
+	 * @param kOut  the out-degree of each node
+	 * @param kIn   the in-degree of each node
+	 * @param seed  the seed for the random numbers
+	 */
+	public static CsrGraph configuration(int[] kOut, int[] kIn, long seed)
+	{
+		int  n    = kOut.length;
+		long sOut = 0;
+		long sIn  = 0;
+
+		if (kIn.length != n)
+			throw new IllegalArgumentException("degree sequences differ in length");
+		for (int v = 0; v < n; ++v) {
+			if ((kOut[v] < 0) || (kIn[v] < 0))
+				throw new IllegalArgumentException("negative degree");
+			sOut += kOut[v];
+			sIn  += kIn [v];
+		}
+		if (sOut != sIn)
+			throw new IllegalArgumentException("degree sequences have different totals");
+		if (sOut > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many edges for one graph");
+
+		int   stubs = (int) sOut;
+		int[] out   = new int[stubs];
+		int[] in    = new int[stubs];
+		for (int v = 0, i = 0, j = 0; v < n; ++v) {
+			Arrays.fill(out, i, i + kOut[v], v);
+			Arrays.fill(in,  j, j + kIn [v], v);
+			i += kOut[v];
+			j += kIn [v];
+		}
+
+		FastRandom random = new FastRandom(seed);
+		for (int i = stubs - 1; i > 0; --i) {
+			int j = random.nextInt(i + 1);
+			int t = in[i];
+			in[i] = in[j];
+			in[j] = t;
+		}
+
+		// sorting the (source, destination) keys lines up the repeats so that they can be counted
+		long[] key = new long[stubs];
+		for (int i = 0; i < stubs; ++i)
+			key[i] = LongIntHashMap.key(out[i], in[i]);
+		Arrays.sort(key);
+
+		int[]    src    = out;
+		int[]    dst    = in;
+		double[] weight = new double[stubs];
+		int      m      = 0;
+
+		for (int i = 0; i < stubs; ++i) {
+			if ((m > 0) && (key[i] == key[i - 1])) {
+				weight[m - 1] += 1.0;
+			} else {
+				src   [m] = (int) (key[i] >>> 32);
+				dst   [m] = (int) key[i];
+				weight[m] = 1.0;
+				++m;
+			}
+		}
+
+		return CsrGraph.actors(n, m, src, dst, weight);
+	}
+}
@@ -0,0 +1,957 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.exception.EvaluationException;
+import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.FilteredGraph;
+import edu.iu.cnets.klatsch.model.Graph;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.basic.BasicEdge;
+import edu.iu.cnets.klatsch.model.basic.BasicNode;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
+
+
+/**
+ * This is a read-only {@link Graph} backed by a binary snapshot file that's memory-mapped rather than read,
+ * so opening one costs next to nothing no matter how large the graph is.
+ *
+ * The file holds exactly the columns of a compacted {@link CsrGraph}, one after another and in big-endian
+ * order, so that each column can be mapped separately:
+ *
+ *   header     : magic, version, node count (n), edge count (m)
+ *   double[m]  : edge weight, edge trust
+ *   int[n]     : node ID, node type, node color, node order (dense indices sorted by ID)
+ *   int[n+1]   : out offsets
+ *   int[m]     : edge source, edge destination, edge start time, edge end time, edge color
+ *   int[n+1]   : in offsets
+ *   int[m]     : in edges (edge numbers sorted by destination)
+ *
+ * Queries on the graph itself read straight from the mapping, as do the actor, meme, and trusted views.
+ * Components, statistics, and layout work on a {@link CsrGraph} copy that's made the first time one of them
+ * is needed.
+ */
+public class SnapshotGraph implements Graph
+{
+	/** identifies a snapshot file ("KLGS") */
+	static final int MAGIC   = 0x4b4c4753;
+
+	/** the version of the snapshot format */
+	static final int VERSION = 1;
+
+	/** the size of the header in bytes */
+	static final int HEADER  = 16;
+
+	/** the path of the snapshot */
+	String       path;
+
+	/** the number of nodes and edges */
+	int          nodeCount;
+	int          edgeCount;
+
+	/** the mapped node columns */
+	IntBuffer    nodeId;
+	IntBuffer    nodeType;
+	IntBuffer    nodeColor;
+	IntBuffer    nodeOrder;
+
+	/** the mapped edge columns, in CSR order */
+	IntBuffer    outOffset;
+	IntBuffer    edgeSrc;
+	IntBuffer    edgeDst;
+	IntBuffer    edgeStart;
+	IntBuffer    edgeEnd;
+	IntBuffer    edgeColor;
+	DoubleBuffer edgeWeight;
+	DoubleBuffer edgeTrust;
+
+	/** the mapped incoming index */
+	IntBuffer    inOffset;
+	IntBuffer    inEdge;
+
+	/** the in-memory copy used for derived graphs and statistics */
+	CsrGraph     copy;
+
+	/** bumped when the snapshot is cleared, which is the only change it allows */
+	int          version;
+
+	/** the degree and strength of each node, which are counted the first time they're needed */
+	int[]        nodeKOut;
+	int[]        nodeKIn;
+	double[]     nodeSOut;
+	double[]     nodeSIn;
+
+	/** the number of nodes with at least one outgoing or incoming edge */
+	int          srcCount;
+	int          dstCount;
+
+
+	/**
+	 * Maps the snapshot at the given path.
+	 *
+	 * @param path  path to the snapshot file
+	 * @throws EvaluationException if the file can't be read or isn't a snapshot
+	 */
+	public SnapshotGraph(String path)
+	throws EvaluationException
+	{
+		this.path = path;
+
+		try {
+			RandomAccessFile file    = new RandomAccessFile(path, "r");
+			FileChannel      channel = file.getChannel();
+
+			try {
+				IntBuffer header = map(channel, 0, HEADER).asIntBuffer();
+				if ((header.get(0) != MAGIC) || (header.get(1) != VERSION))
+					throw new EvaluationException("'" + path + "' is not a graph snapshot");
+
+				int  n      = header.get(2);
+				int  m      = header.get(3);
+				long offset = HEADER;
+
+				if (channel.size() != size(n, m))
+					throw new EvaluationException("graph snapshot '" + path + "' is truncated");
+
+				edgeWeight = map(channel, offset, 8L * m).asDoubleBuffer();  offset += 8L * m;
+				edgeTrust  = map(channel, offset, 8L * m).asDoubleBuffer();  offset += 8L * m;
+				nodeId     = map(channel, offset, 4L * n).asIntBuffer();     offset += 4L * n;
+				nodeType   = map(channel, offset, 4L * n).asIntBuffer();     offset += 4L * n;
+				nodeColor  = map(channel, offset, 4L * n).asIntBuffer();     offset += 4L * n;
+				nodeOrder  = map(channel, offset, 4L * n).asIntBuffer();     offset += 4L * n;
+				outOffset  = map(channel, offset, 4L * (n + 1)).asIntBuffer();  offset += 4L * (n + 1);
+				edgeSrc    = map(channel, offset, 4L * m).asIntBuffer();     offset += 4L * m;
+				edgeDst    = map(channel, offset, 4L * m).asIntBuffer();     offset += 4L * m;
+				edgeStart  = map(channel, offset, 4L * m).asIntBuffer();     offset += 4L * m;
+				edgeEnd    = map(channel, offset, 4L * m).asIntBuffer();     offset += 4L * m;
+				edgeColor  = map(channel, offset, 4L * m).asIntBuffer();     offset += 4L * m;
+				inOffset   = map(channel, offset, 4L * (n + 1)).asIntBuffer();  offset += 4L * (n + 1);
+				inEdge     = map(channel, offset, 4L * m).asIntBuffer();
+
+				nodeCount = n;
+				edgeCount = m;
+			} finally {
+				file.close();
+			}
+
+		} catch (IOException e) {
+			throw new EvaluationException("error reading graph snapshot '" + path + "'");
+		}
+	}
+
+
+	/**
+	 * Returns true if the given path names a snapshot file, judging by its extension.
+	 */
+	public static boolean isSnapshot(String path)
+	{
+		return path.endsWith(".snap");
+	}
+
+
+	/**
+	 * Writes the given graph, which may come from any backend, to a snapshot file.
+	 *
+	 * @param g     the graph to write
+	 * @param path  the path of the snapshot file
+	 * @return true if the snapshot was written successfully
+	 */
+	public static boolean write(Graph g, String path)
+	{
+		CsrGraph csr = CsrGraph.of(g);
+		csr.compact();
+
+		int n = csr.nodeCount;
+		int m = csr.edgeCount;
+
+		// sort the dense indices by node ID, so that lookups can binary search without a hash table
+		long[] packed = new long[n];
+		for (int v = 0; v < n; ++v)
+			packed[v] = ((long) csr.nodeIndex.id(v) << 32) | v;
+		Arrays.sort(packed);
+
+		int[] order = new int[n];
+		for (int v = 0; v < n; ++v)
+			order[v] = (int) packed[v];
+		packed = null;
+
+		try {
+			FileOutputStream file    = new FileOutputStream(path);
+			FileChannel      channel = file.getChannel();
+			ByteBuffer       buffer  = ByteBuffer.allocateDirect(1 << 16);
+
+			try {
+				write(channel, buffer, new int[] { MAGIC, VERSION, n, m }, 4);
+				write(channel, buffer, csr.edgeAttr.weight,   m);
+				write(channel, buffer, csr.edgeAttr.trust,    m);
+				write(channel, buffer, csr.nodeIndex.ids(),   n);
+				write(channel, buffer, csr.nodeIndex.types(), n);
+				write(channel, buffer, csr.nodeColor,         n);
+				write(channel, buffer, order,                 n);
+				write(channel, buffer, csr.outOffset,         n + 1);
+				write(channel, buffer, csr.edgeSrc,           m);
+				write(channel, buffer, csr.edgeDst,           m);
+				write(channel, buffer, csr.edgeAttr.start,    m);
+				write(channel, buffer, csr.edgeAttr.end,      m);
+				write(channel, buffer, csr.edgeAttr.color,    m);
+				write(channel, buffer, csr.inOffset,          n + 1);
+				write(channel, buffer, csr.inEdge,            m);
+			} finally {
+				file.close();
+			}
+
+			return true;
+		} catch (IOException e) {
+			System.err.println("I/O error writing graph snapshot '" + path + "'");
+			return false;
+		}
+	}
+
+
+	/**
+	 * Writes the first count entries of an int column through the given buffer.
+	 */
+	static void write(FileChannel channel, ByteBuffer buffer, int[] column, int count)
+	throws IOException
+	{
+		for (int i = 0; i < count; ) {
+			int chunk = Math.min(count - i, buffer.capacity() / 4);
+
+			buffer.clear();
+			buffer.asIntBuffer().put(column, i, chunk);
+			buffer.limit(chunk * 4);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			i += chunk;
+		}
+	}
+
+
+	/**
+	 * Writes the first count entries of a double column through the given buffer.
+	 */
+	static void write(FileChannel channel, ByteBuffer buffer, double[] column, int count)
+	throws IOException
+	{
+		for (int i = 0; i < count; ) {
+			int chunk = Math.min(count - i, buffer.capacity() / 8);
+
+			buffer.clear();
+			buffer.asDoubleBuffer().put(column, i, chunk);
+			buffer.limit(chunk * 8);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			i += chunk;
+		}
+	}
+
+
+	/**
+	 * Writes the first count entries of an off-heap int column through the given buffer.
+	 */
+	static void write(FileChannel channel, ByteBuffer buffer, IntBuffer column, int count)
+	throws IOException
+	{
+		IntBuffer source = EdgeColumns.view(column);
+
+		for (int i = 0; i < count; ) {
+			int chunk = Math.min(count - i, buffer.capacity() / 4);
+
+			buffer.clear();
+			source.limit(i + chunk);
+			buffer.asIntBuffer().put(source);
+			buffer.limit(chunk * 4);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			i += chunk;
+		}
+	}
+
+
+	/**
+	 * Writes the first count entries of an off-heap double column through the given buffer.
+	 */
+	static void write(FileChannel channel, ByteBuffer buffer, DoubleBuffer column, int count)
+	throws IOException
+	{
+		DoubleBuffer source = EdgeColumns.view(column);
+
+		for (int i = 0; i < count; ) {
+			int chunk = Math.min(count - i, buffer.capacity() / 8);
+
+			buffer.clear();
+			source.limit(i + chunk);
+			buffer.asDoubleBuffer().put(source);
+			buffer.limit(chunk * 8);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			i += chunk;
+		}
+	}
+
+
+	/**
+	 * Returns the expected size of a snapshot file with the given number of nodes and edges.
+	 */
+	static long size(int n, int m)
+	{
+		return HEADER + 16L * m + 16L * n + 4L * (n + 1) + 20L * m + 4L * (n + 1) + 4L * m;
+	}
+
+
+	/**
+	 * Maps a read-only section of the file.
+	 */
+	static ByteBuffer map(FileChannel channel, long offset, long bytes)
+	throws IOException
+	{
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+	}
+
+
+	/**
+	 * Returns the dense index of the given node, or -1 if it isn't in the graph.
+	 */
+	int index(Node n)
+	{
+		int lo = 0, hi = nodeCount - 1;
+
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int id  = nodeId.get(nodeOrder.get(mid));
+			if      (id < n.id())  lo = mid + 1;
+			else if (id > n.id())  hi = mid - 1;
+			else {
+				// the same ID may belong to nodes of different types, which sit next to each other
+				while ((mid > 0) && (nodeId.get(nodeOrder.get(mid - 1)) == n.id()))
+					--mid;
+				for (; (mid < nodeCount) && (nodeId.get(nodeOrder.get(mid)) == n.id()); ++mid)
+					if (nodeType.get(nodeOrder.get(mid)) == n.type())
+						return nodeOrder.get(mid);
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * Returns the edge number of the edge between the given dense indices, or -1 if there isn't one.
+	 * Each row of the CSR structure is sorted by destination, so this is a binary search.
+	 */
+	int edgeIndex(int src, int dst)
+	{
+		int lo = outOffset.get(src), hi = outOffset.get(src + 1) - 1;
+
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int d   = edgeDst.get(mid);
+			if      (d < dst)  lo = mid + 1;
+			else if (d > dst)  hi = mid - 1;
+			else               return mid;
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * Returns the edge number of the given edge, or -1 if it isn't in the graph.
+	 */
+	int edgeIndex(Edge e)
+	{
+		int src = index(e.src());
+		int dst = index(e.dst());
+
+		return ((src < 0) || (dst < 0)) ? -1 : edgeIndex(src, dst);
+	}
+
+
+	/** Builds a {@link Node} object for the node with the given dense index. */
+	Node node(int v)
+	{
+		return new BasicNode(nodeType.get(v), nodeId.get(v), nodeColor.get(v));
+	}
+
+
+	/** Builds an {@link Edge} object for the edge with the given number. */
+	Edge edge(int e)
+	{
+		return new BasicEdge(node(edgeSrc.get(e)), node(edgeDst.get(e)), edgeStart.get(e), edgeEnd.get(e),
+		                     edgeWeight.get(e), edgeTrust.get(e), edgeColor.get(e));
+	}
+
+
+	/**
+	 * Builds an iterable over a range of edges.  If the index is null, the range is over edge numbers;
+	 * otherwise it's over positions in the index.
+	 */
+	Iterable<Edge> edgeRange(final IntBuffer index, final int begin, final int end)
+	{
+		return new Iterable<Edge>() {
+			public Iterator<Edge> iterator()
+			{
+				return new Iterator<Edge>() {
+					int i = begin;
+
+					public boolean hasNext()
+					{
+						return i < end;
+					}
+
+					public Edge next()
+					{
+						if (i >= end)
+							throw new NoSuchElementException();
+						return edge((index == null) ? i++ : index.get(i++));
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns an in-memory copy of the snapshot, which is built by bulk reads from the mapping the first time
+	 * it's needed.
+	 */
+	public CsrGraph copy()
+	{
+		if (copy != null)
+			return copy;
+
+		int      n = nodeCount;
+		int      m = edgeCount;
+		CsrGraph g = new CsrGraph(n, m);
+
+		// views, so that the mapping's own positions are never disturbed
+		EdgeColumns.view(nodeColor).get(g.nodeColor, 0, n);
+		EdgeColumns.view(edgeSrc)  .get(g.edgeSrc,   0, m);
+		EdgeColumns.view(edgeDst)  .get(g.edgeDst,   0, m);
+		EdgeColumns.view(g.edgeAttr.start) .put(EdgeColumns.view(edgeStart));
+		EdgeColumns.view(g.edgeAttr.end)   .put(EdgeColumns.view(edgeEnd));
+		EdgeColumns.view(g.edgeAttr.color) .put(EdgeColumns.view(edgeColor));
+		EdgeColumns.view(g.edgeAttr.weight).put(EdgeColumns.view(edgeWeight));
+		EdgeColumns.view(g.edgeAttr.trust) .put(EdgeColumns.view(edgeTrust));
+
+		g.outOffset = new int[n + 1];
+		g.inOffset  = new int[n + 1];
+		g.inEdge    = new int[m];
+		EdgeColumns.view(outOffset).get(g.outOffset);
+		EdgeColumns.view(inOffset) .get(g.inOffset);
+		EdgeColumns.view(inEdge)   .get(g.inEdge);
+
+		g.nodeCount = n;
+		g.edgeCount = m;
+		for (int v = 0; v < n; ++v)
+			g.nodeIndex.add(nodeType.get(v), nodeId.get(v));
+		for (int e = 0; e < m; ++e)
+			g.edgeIndex.put(LongIntHashMap.key(g.edgeSrc[e], g.edgeDst[e]), e);
+		g.dirty = false;
+		g.countDegrees();
+
+		return (copy = g);
+	}
+
+
+	/**
+	 * Counts up the degree and strength of every node in one pass over the mapping, if that hasn't been done
+	 * already.
+	 */
+	void countDegrees()
+	{
+		if (nodeKOut != null)
+			return;
+
+		int[]    kOut = new int   [nodeCount];
+		int[]    kIn  = new int   [nodeCount];
+		double[] sOut = new double[nodeCount];
+		double[] sIn  = new double[nodeCount];
+
+		srcCount = 0;
+		dstCount = 0;
+		for (int v = 0; v < nodeCount; ++v) {
+			kOut[v] = outOffset.get(v + 1) - outOffset.get(v);
+			kIn [v] = inOffset .get(v + 1) - inOffset .get(v);
+			if (kOut[v] > 0)  ++srcCount;
+			if (kIn [v] > 0)  ++dstCount;
+		}
+
+		for (int e = 0; e < edgeCount; ++e) {
+			double w = edgeWeight.get(e);
+			sOut[edgeSrc.get(e)] += w;
+			sIn [edgeDst.get(e)] += w;
+		}
+
+		nodeKIn  = kIn;
+		nodeSOut = sOut;
+		nodeSIn  = sIn;
+		nodeKOut = kOut;
+	}
+
+
+	/*===================================================================
+	 * The Graph interface.
+	 *===================================================================*/
+
+	/**
+	 * Returns a view of the subgraph containing only actors and actor-actor edges.
+	 */
+	public Graph actorGraph()
+	{
+		return FilteredGraph.actorGraph(this);
+	}
+
+
+	/**
+	 * Returns a view of the subgraph containing only actor-meme and meme-actor edges.
+	 */
+	public Graph actorMemeGraph()
+	{
+		return FilteredGraph.actorMemeGraph(this);
+	}
+
+
+	/**
+	 * Snapshots are read-only.
+	 */
+	public void add(Edge e)
+	{
+		throw new UnsupportedOperationException("graph snapshot '" + path + "' is read-only");
+	}
+
+
+	/**
+	 * Snapshots are read-only.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		throw new UnsupportedOperationException("graph snapshot '" + path + "' is read-only");
+	}
+
+
+	/**
+	 * Drops the mapping and leaves the graph empty, so that the memory can be reclaimed.  The in-memory copy is
+	 * closed, since it may hold a laid-out Gephi copy of its own.
+	 */
+	public void clear()
+	{
+		if (copy != null)
+			copy.close();
+
+		IntBuffer    noInts    = IntBuffer.allocate(0);
+		DoubleBuffer noDoubles = DoubleBuffer.allocate(0);
+
+		nodeCount  = 0;
+		edgeCount  = 0;
+		nodeId     = nodeType  = nodeColor = nodeOrder = noInts;
+		edgeSrc    = edgeDst   = edgeStart = edgeEnd   = edgeColor = inEdge = noInts;
+		edgeWeight = edgeTrust = noDoubles;
+		outOffset  = inOffset  = IntBuffer.wrap(new int[1]);
+		copy       = null;
+		nodeKOut   = null;
+		++version;
+	}
+
+
+	/**
+	 * Drops the mapping and the in-memory copy.
+	 */
+	public void close()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Returns the Louvain community of each node, in index order, computed on the in-memory copy.
+	 */
+	public int[] communities()
+	{
+		return copy().communities();
+	}
+
+
+	/**
+	 * Returns the core number of each node, in index order, computed on the in-memory copy.
+	 */
+	public int[] cores()
+	{
+		return copy().cores();
+	}
+
+
+	/**
+	 * Returns a view of the k-core of the graph: the nodes whose core number is at least k, and the edges
+	 * among them.
+	 */
+	public Graph kcore(int k)
+	{
+		return FilteredGraph.kcore(this, k);
+	}
+
+
+	/**
+	 * Extracts a single component from the graph.
+	 */
+	public Graph component(int n)
+	{
+		return copy().component(n);
+	}
+
+
+	/**
+	 * Returns the number of weakly connected components in the graph.
+	 */
+	public int componentCount()
+	{
+		return copy().componentCount();
+	}
+
+
+	/**
+	 * Returns the number of the component containing the given node, or -1 if it isn't in the graph.
+	 */
+	public int componentOf(Node n)
+	{
+		return copy().componentOf(n);
+	}
+
+
+	/**
+	 * Returns an array containing the size of each component in the graph.
+	 */
+	public int[] componentSize()
+	{
+		return copy().componentSize();
+	}
+
+
+	/**
+	 * Returns the in-memory copy of the snapshot, which the native algorithms run on.
+	 */
+	public CsrGraph csr()
+	{
+		return copy();
+	}
+
+
+	/**
+	 * Returns the number of destination nodes in the graph.
+	 */
+	public int dstCount()
+	{
+		countDegrees();
+		return dstCount;
+	}
+
+
+	/**
+	 * Returns the in-degrees of every node, including zeros, in index order.
+	 */
+	public int[] dstK()
+	{
+		countDegrees();
+		return Arrays.copyOf(nodeKIn, nodeCount);
+	}
+
+
+	/**
+	 * Returns the in-degree of the given node.
+	 */
+	public int dstK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : inOffset.get(v + 1) - inOffset.get(v);
+	}
+
+
+	/**
+	 * Returns the in-strengths of every node, including zeros, in index order.
+	 */
+	public double[] dstS()
+	{
+		countDegrees();
+		return Arrays.copyOf(nodeSIn, nodeCount);
+	}
+
+
+	/**
+	 * Returns the in-strength of the given node.
+	 */
+	public double dstS(Node n)
+	{
+		countDegrees();
+
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSIn[v];
+	}
+
+
+	/**
+	 * Returns the total number of edges.
+	 */
+	public int edgeCount()
+	{
+		return edgeCount;
+	}
+
+
+	/**
+	 * Returns an iterable over the edges.
+	 */
+	public Iterable<Edge> edges()
+	{
+		return edgeRange(null, 0, edgeCount);
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a destination.
+	 */
+	public Iterable<Edge> edgesIn(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? edgeRange(null, 0, 0) : edgeRange(inEdge, inOffset.get(v), inOffset.get(v + 1));
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a source.
+	 */
+	public Iterable<Edge> edgesOut(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? edgeRange(null, 0, 0) : edgeRange(null, outOffset.get(v), outOffset.get(v + 1));
+	}
+
+
+	/**
+	 * Exports the graph in the given format.
+	 */
+	public boolean export(String path, String format)
+	{
+		return copy().export(path, format);
+	}
+
+
+	/**
+	 * Returns the given edge, or null if it isn't in the graph.
+	 */
+	public Edge getEdge(Edge e)
+	{
+		int i = edgeIndex(e);
+		return (i < 0) ? null : edge(i);
+	}
+
+
+	/**
+	 * Returns the given node, or null if it isn't in the graph.
+	 */
+	public Node getNode(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? null : node(v);
+	}
+
+
+	/**
+	 * Returns true if the given edge is part of the graph.
+	 */
+	public boolean hasEdge(Edge e)
+	{
+		return edgeIndex(e) >= 0;
+	}
+
+
+	/**
+	 * Returns true if the given node is part of the graph.
+	 */
+	public boolean hasNode(Node n)
+	{
+		return index(n) >= 0;
+	}
+
+
+	/**
+	 * Performs layout on the in-memory copy, which is also what gets exported.
+	 */
+	public void layout(VDictionary config)
+	{
+		copy().layout(config);
+	}
+
+
+	/**
+	 * Returns a view of the subgraph containing only meme-meme edges.
+	 */
+	public Graph memeGraph()
+	{
+		return FilteredGraph.memeGraph(this);
+	}
+
+
+	/**
+	 * Returns the number of nodes in the graph.
+	 */
+	public int nodeCount()
+	{
+		return nodeCount;
+	}
+
+
+	/**
+	 * Returns an iterable over the nodes.
+	 */
+	public Iterable<Node> nodes()
+	{
+		final int count = nodeCount;
+
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Iterator<Node>() {
+					int v = 0;
+
+					public boolean hasNext()
+					{
+						return v < count;
+					}
+
+					public Node next()
+					{
+						if (v >= count)
+							throw new NoSuchElementException();
+						return node(v++);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the number of source nodes in the graph.
+	 */
+	public int srcCount()
+	{
+		countDegrees();
+		return srcCount;
+	}
+
+
+	/**
+	 * Returns the out-degrees of every node, including zeros, in index order.
+	 */
+	public int[] srcK()
+	{
+		countDegrees();
+		return Arrays.copyOf(nodeKOut, nodeCount);
+	}
+
+
+	/**
+	 * Returns the out-degree of the given node.
+	 */
+	public int srcK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : outOffset.get(v + 1) - outOffset.get(v);
+	}
+
+
+	/**
+	 * Returns the out-strengths of every node, including zeros, in index order.
+	 */
+	public double[] srcS()
+	{
+		countDegrees();
+		return Arrays.copyOf(nodeSOut, nodeCount);
+	}
+
+
+	/**
+	 * Returns the out-strength of the given node.
+	 */
+	public double srcS(Node n)
+	{
+		countDegrees();
+
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSOut[v];
+	}
+
+
+	/**
+	 * These statistics are computed on the in-memory copy.
+	 */
+	public double statClustering() { return copy().statClustering(); }
+	public double statDiameter  () { return copy().statDiameter  (); }
+	public double statDstKPower () { return copy().statDstKPower (); }
+	public double statModularity() { return copy().statModularity(); }
+	public double statPathLength() { return copy().statPathLength(); }
+	public double statSrcKPower () { return copy().statSrcKPower (); }
+
+
+	/**
+	 * The power-law fits to the degree distributions are computed on the same copy.
+	 */
+	public PowerLaw statDstKFit() { return copy().statDstKFit(); }
+	public PowerLaw statSrcKFit() { return copy().statSrcKFit(); }
+
+
+	/**
+	 * Returns a view of the trusted subset of the graph.
+	 */
+	public Graph trustedGraph()
+	{
+		return FilteredGraph.trustedGraph(this);
+	}
+
+
+	/**
+	 * Returns the number of changes that have been made to the graph.
+	 */
+	public int version()
+	{
+		return version;
+	}
+
+
+	/**
+	 * Returns the total weight of the given edge.
+	 * Returns zero if there is no such edge.
+	 */
+	public double weight(Edge e)
+	{
+		int i = edgeIndex(e);
+		return (i < 0) ? 0.0 : edgeWeight.get(i);
+	}
+}
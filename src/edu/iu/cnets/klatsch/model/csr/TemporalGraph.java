@@ -0,0 +1,264 @@
+package edu.iu.cnets.klatsch.model.csr;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.Graph;
+
+
+/**
+ * This is a {@link CsrGraph} that also remembers when each of its edges was seen, so that the graph as it
+ * stood during any window of time can be pulled back out without going back to the feed.
+ *
+ * As a graph, it behaves exactly like a CSR graph holding every edge ever added, with repeats merged.  On
+ * the side, every call to {@link #addEdge} is also appended to a log of primitive columns, which is kept
+ * sorted by start time (edges from a feed nearly always arrive in order, so sorting is rarely needed).  A
+ * window query binary-searches the log and merges only the entries that fall inside it, so its cost is
+ * proportional to the number of edges in the window rather than the size of the whole graph.
+ *
+ * An entry belongs to the window [t0, t1] if its time span overlaps the window at all.  To find the entries
+ * that started before t0 but were still going, the search starts back at t0 minus the longest span in the
+ * log; feed edges are instantaneous, so that's normally no distance at all.
+ */
+public class TemporalGraph extends CsrGraph
+{
+	/** the number of entries in the log */
+	int      logCount;
+
+	/** the log columns, indexed by entry number, where the endpoints are dense node indices */
+	int[]    logSrc;
+	int[]    logDst;
+	int[]    logStart;
+	int[]    logEnd;
+	double[] logWeight;
+	double[] logTrust;
+	int[]    logColor;
+
+	/** the longest span (end time minus start time) of any entry in the log */
+	int      logSpan;
+
+	/** true if the log is known to be in order of start time */
+	boolean  logSorted;
+
+
+	/**
+	 * Basic constructor for an empty graph.
+	 */
+	public TemporalGraph()
+	{
+		super();
+	}
+
+
+	/**
+	 * Replaces the storage with empty columns of the given sizes, including an empty log.
+	 */
+	void allocate(int nodes, int edges)
+	{
+		super.allocate(nodes, edges);
+
+		edges     = Math.max(edges, 1);
+		logCount  = 0;
+		logSrc    = new int   [edges];
+		logDst    = new int   [edges];
+		logStart  = new int   [edges];
+		logEnd    = new int   [edges];
+		logWeight = new double[edges];
+		logTrust  = new double[edges];
+		logColor  = new int   [edges];
+		logSpan   = 0;
+		logSorted = true;
+	}
+
+
+	/**
+	 * Adds an edge in the manner of {@link CsrGraph#addEdge}, and records it in the log.
+	 *
+	 * @return the edge number
+	 */
+	public int addEdge(int src, int dst, int startTime, int endTime, double weight, double trust, int color)
+	{
+		int e = super.addEdge(src, dst, startTime, endTime, weight, trust, color);
+
+		if (logCount == logSrc.length) {
+			int size  = logCount * 2;
+			logSrc    = Arrays.copyOf(logSrc,    size);
+			logDst    = Arrays.copyOf(logDst,    size);
+			logStart  = Arrays.copyOf(logStart,  size);
+			logEnd    = Arrays.copyOf(logEnd,    size);
+			logWeight = Arrays.copyOf(logWeight, size);
+			logTrust  = Arrays.copyOf(logTrust,  size);
+			logColor  = Arrays.copyOf(logColor,  size);
+		}
+
+		if ((logCount > 0) && (startTime < logStart[logCount - 1]))
+			logSorted = false;
+
+		int i = logCount++;
+		logSrc   [i] = src;
+		logDst   [i] = dst;
+		logStart [i] = startTime;
+		logEnd   [i] = endTime;
+		logWeight[i] = weight;
+		logTrust [i] = trust;
+		logColor [i] = color;
+		logSpan      = Math.max(logSpan, endTime - startTime);
+
+		return e;
+	}
+
+
+	/**
+	 * Puts the log back in order of start time, if anything arrived out of order.  Entries with the same
+	 * start time keep the order in which they were added.
+	 */
+	void sortLog()
+	{
+		if (logSorted)
+			return;
+
+		// pack (start time, entry number) into longs, so that a primitive sort gives a stable order
+		long[] key = new long[logCount];
+		for (int i = 0; i < logCount; ++i)
+			key[i] = ((long) logStart[i] << 32) | i;
+		Arrays.sort(key);
+
+		int capacity = logSrc.length;
+		int[]    src    = new int   [capacity];
+		int[]    dst    = new int   [capacity];
+		int[]    start  = new int   [capacity];
+		int[]    end    = new int   [capacity];
+		double[] weight = new double[capacity];
+		double[] trust  = new double[capacity];
+		int[]    color  = new int   [capacity];
+
+		for (int i = 0; i < logCount; ++i) {
+			int j = (int) key[i];
+			src   [i] = logSrc   [j];
+			dst   [i] = logDst   [j];
+			start [i] = logStart [j];
+			end   [i] = logEnd   [j];
+			weight[i] = logWeight[j];
+			trust [i] = logTrust [j];
+			color [i] = logColor [j];
+		}
+
+		logSrc    = src;
+		logDst    = dst;
+		logStart  = start;
+		logEnd    = end;
+		logWeight = weight;
+		logTrust  = trust;
+		logColor  = color;
+		logSorted = true;
+	}
+
+
+	/**
+	 * Returns the first entry in the (sorted) log whose start time is at least t.
+	 */
+	int lowerBound(long t)
+	{
+		int lo = 0;
+		int hi = logCount;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (logStart[mid] < t)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		return lo;
+	}
+
+
+	/**
+	 * Returns the graph made of the edges seen during the window [t0, t1], with repeats merged in the manner
+	 * of {@link Edge#Edge(Edge, Edge)}.
+	 *
+	 * @param t0  the start of the window
+	 * @param t1  the end of the window, inclusive
+	 * @return a new graph, which the caller is free to modify
+	 */
+	public Graph window(int t0, int t1)
+	{
+		sortLog();
+
+		int      begin = lowerBound((long) t0 - logSpan);
+		int      end   = lowerBound((long) t1 + 1);
+		CsrGraph g     = new CsrGraph(16, Math.max(end - begin, 16));
+
+		for (int i = begin; i < end; ++i)
+			if (logEnd[i] >= t0) {
+				g.addEdge(copyNode(g, logSrc[i]), copyNode(g, logDst[i]),
+				          logStart[i], logEnd[i], logWeight[i], logTrust[i], logColor[i]);
+			}
+
+		return g;
+	}
+
+
+	/**
+	 * Returns the graphs for a sequence of sliding windows, the first covering [t0, t0 + width - 1] and each
+	 * later one starting step seconds after the one before, up to the last that starts no later than t1.
+	 * Each window is only built when the iterator reaches it.
+	 *
+	 * @param t0     the start of the first window
+	 * @param t1     the latest start time of any window
+	 * @param width  the length of each window
+	 * @param step   the distance between the starts of successive windows
+	 */
+	public Iterator<Graph> windows(final int t0, final int t1, final int width, final int step)
+	{
+		if ((width <= 0) || (step <= 0))
+			throw new IllegalArgumentException("window width and step must be positive");
+
+		return new Iterator<Graph>() {
+			long next = t0;
+
+			public boolean hasNext()
+			{
+				return next <= t1;
+			}
+
+			public Graph next()
+			{
+				if (next > t1)
+					throw new NoSuchElementException();
+
+				int start = (int) next;
+				next += step;
+				return window(start, (int) Math.min((long) start + width - 1, Integer.MAX_VALUE));
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the earliest start time in the log, or zero if it's empty.
+	 */
+	public int firstTime()
+	{
+		sortLog();
+		return (logCount == 0) ? 0 : logStart[0];
+	}
+
+
+	/**
+	 * Returns the latest start time in the log, or zero if it's empty.
+	 */
+	public int lastTime()
+	{
+		sortLog();
+		return (logCount == 0) ? 0 : logStart[logCount - 1];
+	}
+}
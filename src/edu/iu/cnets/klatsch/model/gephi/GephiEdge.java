@@ -63,6 +63,19 @@ public class GephiEdge extends Edge
 	}
 	
 	
+	/**
+	 * Returns the given edge as a GephiEdge, converting it if it came from another backend.
+	 */
+	public static GephiEdge valueOf(Edge e)
+	{
+		if (e instanceof GephiEdge)
+			return (GephiEdge) e;
+		
+		return new GephiEdge(GephiNode.valueOf(e.src()), GephiNode.valueOf(e.dst()),
+		                     e.startTime(), e.endTime(), e.weight(), e.trust(), e.color());
+	}
+	
+	
 	public org.gephi.graph.api.Edge toGephi(GephiGraph graph)
 	{
 	  org.gephi.graph.api.Node gSrc  = ((GephiNode) src).toGephi(graph);
@@ -0,0 +1,140 @@
+package edu.iu.cnets.klatsch.model.gephi;
+
+import org.gephi.graph.api.Attributes;
+
+
+/**
+ * This is a flyweight cursor over a set of Gephi edges, for Java code that wants to walk a large graph without
+ * building a {@link GephiEdge} (and two {@link GephiNode}s) for every edge.  The cursor is positioned before
+ * the first edge, and each call to {@link #next} moves it along; the accessors then read straight out of the
+ * Gephi attribute columns of the current edge.
+ *
+ * A typical loop looks like this:
+ *
+ * <pre>
+ *   GephiEdgeCursor c = g.cursor();
+ *   while (c.next())
+ *     total += c.weight();
+ * </pre>
+ */
+public class GephiEdgeCursor
+{
+	/** the graph that owns the edges */
+	GephiGraph                 graph;
+
+	/** the edges we're walking over */
+	org.gephi.graph.api.Edge[] gEdges;
+
+	/** the position of the current edge */
+	int                        index;
+
+	/** the current edge and its attributes, and those of its endpoints */
+	org.gephi.graph.api.Edge   gEdge;
+	Attributes                 attr;
+	Attributes                 srcAttr;
+	Attributes                 dstAttr;
+
+
+	/**
+	 * Builds a cursor over the given edges, which must belong to the given graph.
+	 */
+	GephiEdgeCursor(GephiGraph graph, org.gephi.graph.api.Edge[] gEdges)
+	{
+		this.graph  = graph;
+		this.gEdges = gEdges;
+		this.index  = -1;
+	}
+
+
+	/**
+	 * Moves to the next edge.
+	 *
+	 * @return false if there are no more edges
+	 */
+	public boolean next()
+	{
+		if (index + 1 >= gEdges.length) {
+			index = gEdges.length;
+			gEdge = null;
+			return false;
+		}
+
+		gEdge   = gEdges[++index];
+		attr    = gEdge.getEdgeData().getAttributes();
+		srcAttr = gEdge.getSource().getNodeData().getAttributes();
+		dstAttr = gEdge.getTarget().getNodeData().getAttributes();
+		return true;
+	}
+
+
+	/**
+	 * Returns the current edge as a freshly built {@link GephiEdge}, for when a real object is needed after all.
+	 */
+	public GephiEdge edge()
+	{
+		return new GephiEdge(graph, gEdge);
+	}
+
+
+	/** Returns the ID of the source node of the current edge. */
+	public int srcId()
+	{
+		return (Integer) srcAttr.getValue(graph.colNodeId);
+	}
+
+
+	/** Returns the type of the source node of the current edge. */
+	public int srcType()
+	{
+		return (Integer) srcAttr.getValue(graph.colNodeType);
+	}
+
+
+	/** Returns the ID of the destination node of the current edge. */
+	public int dstId()
+	{
+		return (Integer) dstAttr.getValue(graph.colNodeId);
+	}
+
+
+	/** Returns the type of the destination node of the current edge. */
+	public int dstType()
+	{
+		return (Integer) dstAttr.getValue(graph.colNodeType);
+	}
+
+
+	/** Returns the start time of the current edge. */
+	public int startTime()
+	{
+		return (Integer) attr.getValue(graph.colEdgeStartTime);
+	}
+
+
+	/** Returns the end time of the current edge. */
+	public int endTime()
+	{
+		return (Integer) attr.getValue(graph.colEdgeEndTime);
+	}
+
+
+	/** Returns the weight of the current edge. */
+	public double weight()
+	{
+		return (Double) attr.getValue(graph.colEdgeWeight);
+	}
+
+
+	/** Returns the trusted weight of the current edge. */
+	public double trust()
+	{
+		return (Double) attr.getValue(graph.colEdgeTrust);
+	}
+
+
+	/** Returns the color of the current edge. */
+	public int color()
+	{
+		return (Integer) attr.getValue(graph.colEdgeColor);
+	}
+}
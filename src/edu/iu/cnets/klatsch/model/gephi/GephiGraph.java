@@ -4,13 +4,15 @@ import java.awt.Color;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
+import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.project.api.ProjectController;
 import org.gephi.graph.api.DirectedGraph;
@@ -39,11 +41,6 @@ import org.gephi.preview.api.PreviewController;
 import org.gephi.preview.api.PreviewModel;
 import org.gephi.preview.util.color.SimpleColor;
 import org.gephi.project.api.Workspace;
-import org.gephi.statistics.plugin.ClusteringCoefficient;
-import org.gephi.statistics.plugin.ConnectedComponents;
-import org.gephi.statistics.plugin.DegreeDistribution;
-import org.gephi.statistics.plugin.GraphDistance;
-import org.gephi.statistics.plugin.Modularity;
 import org.openide.util.Lookup;
 
 import edu.iu.cnets.klatsch.exception.EvaluationException;
@@ -51,9 +48,21 @@ import edu.iu.cnets.klatsch.lang.VBoolean;
 import edu.iu.cnets.klatsch.lang.VDictionary;
 import edu.iu.cnets.klatsch.lang.VNumber;
 import edu.iu.cnets.klatsch.lang.VString;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.model.ComponentTable;
+import edu.iu.cnets.klatsch.model.DegreeTable;
 import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.EdgeBatch;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.FilteredGraph;
 import edu.iu.cnets.klatsch.model.Graph;
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeIndex;
+import edu.iu.cnets.klatsch.model.StatCache;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.model.csr.SnapshotGraph;
+import edu.iu.cnets.klatsch.stat.DegreeHistogram;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
 
 
 public class GephiGraph implements Graph
@@ -66,6 +75,15 @@ public class GephiGraph implements Graph
     pc.newProject();
 	}
 	
+	/** the most idle workspaces kept for reuse; any more are deleted when they're released */
+	static final int       POOL_SIZE = 8;
+	
+	/** empty workspaces handed back by closed graphs, waiting to be reused */
+	static List<Workspace> pool      = new ArrayList<Workspace>();
+	
+	/** workspaces of graphs that were dropped without being closed, waiting for the next acquire() to empty them */
+	static List<Workspace> abandoned = new ArrayList<Workspace>();
+	
 	/** the columns in which we store Klatsch's private attributes */ 
 	int            colNodeType;
 	int            colNodeId;
@@ -87,6 +105,30 @@ public class GephiGraph implements Graph
 	
 	/** the workspace for the graph */
 	Workspace      gWorkspace;
+	
+	/** the running degree and strength of each node */
+	DegreeTable    degrees    = new DegreeTable();
+	
+	/** the weakly connected components, kept up to date as edges are added */
+	ComponentTable components = new ComponentTable();
+	
+	/** a dense numbering of the endpoints of the edges, for keying the edge index */
+	NodeIndex      nodeIndex  = new NodeIndex();
+	
+	/** maps from an edge's (source index, destination index) key to its position in {@link #gEdges} */
+	LongIntHashMap edgeIndex  = new LongIntHashMap();
+	
+	/** the current Gephi object for each edge, so that lookups don't have to go through node labels */
+	List<org.gephi.graph.api.Edge> gEdges = new ArrayList<org.gephi.graph.api.Edge>();
+	
+	/** bumped by every change to the graph */
+	int            version;
+	
+	/** the statistics computed for the current version of the graph */
+	StatCache      stats      = new StatCache(this);
+	
+	/** an empty edge array, for views of nodes that aren't in the graph */
+	static final org.gephi.graph.api.Edge[] NO_EDGES = new org.gephi.graph.api.Edge[0];
 			
 	
 	/**
@@ -94,23 +136,23 @@ public class GephiGraph implements Graph
 	 */
 	public GephiGraph()
 	{
-		gWorkspace = pc.newWorkspace(pc.getCurrentProject());
-		pc.openWorkspace(gWorkspace);
+		gWorkspace = acquire();
 		
-		gModel = Lookup.getDefault().lookup(GraphController.class).getModel();
+		gModel = Lookup.getDefault().lookup(GraphController.class).getModel(gWorkspace);
 		gGraph = gModel.getDirectedGraph();
 
-		gAttributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+		gAttributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(gWorkspace);
 
-		colNodeType      = gAttributeModel.getNodeTable().addColumn("type",  AttributeType.INT)   .getIndex();
-		colNodeId        = gAttributeModel.getNodeTable().addColumn("nid",   AttributeType.INT)   .getIndex();
-		colNodeColor     = gAttributeModel.getNodeTable().addColumn("color", AttributeType.INT)   .getIndex();
+		// a reused workspace still has the columns from last time
+		colNodeType      = column(gAttributeModel.getNodeTable(), "type",  AttributeType.INT);
+		colNodeId        = column(gAttributeModel.getNodeTable(), "nid",   AttributeType.INT);
+		colNodeColor     = column(gAttributeModel.getNodeTable(), "color", AttributeType.INT);
 		
-		colEdgeStartTime = gAttributeModel.getEdgeTable().addColumn("start", AttributeType.INT)   .getIndex();
-		colEdgeEndTime   = gAttributeModel.getEdgeTable().addColumn("end",   AttributeType.INT)   .getIndex(); 
-		colEdgeWeight    = gAttributeModel.getEdgeTable().addColumn("w",     AttributeType.DOUBLE).getIndex();
-		colEdgeTrust     = gAttributeModel.getEdgeTable().addColumn("trust", AttributeType.DOUBLE).getIndex();
-		colEdgeColor     = gAttributeModel.getEdgeTable().addColumn("color", AttributeType.INT)   .getIndex();
+		colEdgeStartTime = column(gAttributeModel.getEdgeTable(), "start", AttributeType.INT);
+		colEdgeEndTime   = column(gAttributeModel.getEdgeTable(), "end",   AttributeType.INT);
+		colEdgeWeight    = column(gAttributeModel.getEdgeTable(), "w",     AttributeType.DOUBLE);
+		colEdgeTrust     = column(gAttributeModel.getEdgeTable(), "trust", AttributeType.DOUBLE);
+		colEdgeColor     = column(gAttributeModel.getEdgeTable(), "color", AttributeType.INT);
 	}
 
 
@@ -122,8 +164,32 @@ public class GephiGraph implements Graph
 	public GephiGraph(String path)
 	throws EvaluationException
 	{
-		Workspace space = pc.newWorkspace(pc.getCurrentProject());
-		pc.openWorkspace(space);
+		gWorkspace = acquire();
+		
+		// a failed import mustn't keep the workspace, or leave half a graph in it for the next one
+		boolean loaded = false;
+		try {
+			load(path);
+			loaded = true;
+		} finally {
+			if (!loaded) {
+				empty(gWorkspace);
+				release(gWorkspace);
+				gWorkspace = null;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Imports the given graph file into the workspace, and indexes what it holds.
+	 * 
+	 * @param path  path to the graph file
+	 */
+	void load(String path)
+	throws EvaluationException
+	{
+		Workspace space = gWorkspace;
 
 		ImportController importController = Lookup.getDefault().lookup(ImportController.class);
 		Container        container;
@@ -138,10 +204,10 @@ public class GephiGraph implements Graph
 
 		importController.process(container, new DefaultProcessor(), space);
 		
-		gModel = Lookup.getDefault().lookup(GraphController.class).getModel();
+		gModel = Lookup.getDefault().lookup(GraphController.class).getModel(space);
 		gGraph = gModel.getDirectedGraph();
 
-		gAttributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+		gAttributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(space);
 		
 		colNodeType      = gAttributeModel.getNodeTable().getColumn("type") .getIndex();
 		colNodeId        = gAttributeModel.getNodeTable().getColumn("nid")  .getIndex();
@@ -152,74 +218,193 @@ public class GephiGraph implements Graph
 		colEdgeWeight    = gAttributeModel.getEdgeTable().getColumn("w")    .getIndex();
 		colEdgeTrust     = gAttributeModel.getEdgeTable().getColumn("trust").getIndex();
 		colEdgeColor     = gAttributeModel.getEdgeTable().getColumn("color").getIndex();
+		
+		// the imported nodes and edges didn't come through add(), so count them up once here
+		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
+			GephiNode node = new GephiNode(this, gNode);
+			degrees.addNode(node);
+			components.add(node);
+		}
+		
+		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges()) {
+			GephiEdge edge = new GephiEdge(this, gEdge);
+			degrees.addEdge(edge.src(), edge.dst(), edge.weight(), true);
+			components.add(edge.src(), edge.dst());
+			edgeIndex.put(key(edge), gEdges.size());
+			gEdges.add(gEdge);
+		}
 	}
 	
 	
 	/**
-	 * Returns the subgraph containing only actors and actor-actor edges.
+	 * Returns an empty workspace, reusing an idle one from the pool if there is one, and makes it the current
+	 * workspace.
 	 */
-	public Graph actorGraph()
+	static synchronized Workspace acquire()
 	{
-		GephiGraph g = new GephiGraph();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
-			GephiNode node = new GephiNode(this, gNode);
-			if (node.type == Node.TYPE_ACTOR)
-				g.gGraph.addNode(node.toGephi(g));
+		// the finalizer thread only queues the workspaces of dropped graphs, since Gephi expects to be called from
+		// one thread at a time, so they're emptied and taken back here
+		for (Workspace space : abandoned) {
+			empty(space);
+			release(space);
 		}
-
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges())
-			if (((new GephiNode(this, gEdge.getSource())).type == Node.TYPE_ACTOR) &&
-					((new GephiNode(this, gEdge.getTarget())).type == Node.TYPE_ACTOR))
-				g.add(new GephiEdge(this, gEdge));
-
-		return g;
+		abandoned.clear();
+		
+		Workspace space = pool.isEmpty() ? pc.newWorkspace(pc.getCurrentProject()) : pool.remove(pool.size() - 1);
+		
+		pc.openWorkspace(space);
+		return space;
 	}
-
+	
 	
 	/**
-	 * Returns the subgraph containing only actor-meme and meme-actor edges.
+	 * Takes back the workspace of a closed graph, which must already be empty.  It's kept for reuse if the pool
+	 * has room, and deleted otherwise, so that the number of workspaces stays bounded however many graphs a
+	 * script goes through.
 	 */
-	public Graph actorMemeGraph()
+	static synchronized void release(Workspace space)
+	{
+		if (pool.size() < POOL_SIZE)
+			pool.add(space);
+		else
+			pc.deleteWorkspace(space);
+	}
+	
+	
+	/**
+	 * Removes every node and edge from the given workspace.
+	 */
+	static void empty(Workspace space)
+	{
+		Lookup.getDefault().lookup(GraphController.class).getModel(space).getDirectedGraph().clear();
+	}
+	
+	
+	/**
+	 * Returns the index of the named column of the given table, adding the column if it isn't there yet.
+	 */
+	static int column(AttributeTable table, String name, AttributeType type)
 	{
-		GephiGraph g = new GephiGraph();
+		AttributeColumn column = table.getColumn(name);
 		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
-			GephiNode node = new GephiNode(this, gNode);
-			g.gGraph.addNode(node.toGephi(g));
-		}
-
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges()) {
-			int srcType = new GephiNode(this, gEdge.getSource()).type;
-			int dstType = new GephiNode(this, gEdge.getTarget()).type;
-			if (((srcType == Node.TYPE_ACTOR) && (dstType == Node.TYPE_MEME)) ||
-					((srcType == Node.TYPE_MEME)  && (dstType == Node.TYPE_ACTOR)))
-				g.add(new GephiEdge(this, gEdge));
+		return ((column != null) ? column : table.addColumn(name, type)).getIndex();
+	}
+	
+	
+	/**
+	 * Returns a Gephi copy of the given graph, which may come from any backend.
+	 * 
+	 * @param g  the graph to copy
+	 */
+	public static GephiGraph copyOf(Graph g)
+	{
+		GephiGraph copy = new GephiGraph();
+		
+		for (Node n : g.nodes()) {
+			copy.gGraph.addNode(GephiNode.valueOf(n).toGephi(copy));
+			copy.degrees.addNode(n);
+			copy.components.add(n);
 		}
 		
-		return g;
+		for (Edge e : g.edges())
+			copy.add(GephiEdge.valueOf(e));
+		
+		return copy;
+	}
+	
+	
+	/**
+	 * Returns a view of the subgraph containing only actors and actor-actor edges.
+	 */
+	public Graph actorGraph()
+	{
+		return FilteredGraph.actorGraph(this);
+	}
+
+	
+	/**
+	 * Returns a view of the subgraph containing only actor-meme and meme-actor edges.
+	 */
+	public Graph actorMemeGraph()
+	{
+		return FilteredGraph.actorMemeGraph(this);
 	}
 
 	
 	/**
-	 * Adds the given edge to the graph. 
+	 * Adds the given edge to the graph.  An existing edge between the same nodes is found through the hash
+	 * index, and replaced by the merged edge.
 	 */
 	public void add(Edge e)
 	{
-		org.gephi.graph.api.Edge gEdge = ((GephiEdge) e).toGephi(this);
-		org.gephi.graph.api.Node gSrc  = gEdge.getSource();
-		org.gephi.graph.api.Node gDst  = gEdge.getTarget();
+		checkOpen();
+		
+		long      key   = key(e);
+		int       i     = edgeIndex.get(key);
+		boolean   isNew = (i == LongIntHashMap.NONE);
+		GephiEdge edge  = GephiEdge.valueOf(e);
 		
-		if (gGraph.contains(gEdge)) {
-			GephiEdge oldEdge = new GephiEdge(this, gGraph.getEdge(gSrc, gDst));
-			gGraph.removeEdge(gEdge);
-			gEdge = new GephiEdge(oldEdge, (GephiEdge) e).toGephi(this);
+		degrees.addEdge(e.src(), e.dst(), e.weight(), isNew);
+		components.add(e.src(), e.dst());
+		
+		if (!isNew) {
+			org.gephi.graph.api.Edge old = gEdges.get(i);
+			edge = new GephiEdge(new GephiEdge(this, old), edge);
+			gGraph.removeEdge(old);
 		}
 
+		org.gephi.graph.api.Edge gEdge = edge.toGephi(this);
+		org.gephi.graph.api.Node gSrc  = gEdge.getSource();
+		org.gephi.graph.api.Node gDst  = gEdge.getTarget();
+
 		if (!gGraph.contains(gSrc))  gGraph.addNode(gSrc);
 		if (!gGraph.contains(gDst))  gGraph.addNode(gDst);
 
 		gGraph.addEdge(gEdge);
+		if (isNew) {
+			edgeIndex.put(key, gEdges.size());
+			gEdges.add(gEdge);
+		} else
+			gEdges.set(i, gEdge);
+		++version;
+	}
+	
+	
+	/**
+	 * Returns the key of the given edge in the edge index, numbering its endpoints if they're new.
+	 */
+	long key(Edge e)
+	{
+		return LongIntHashMap.key(nodeIndex.add(e.src()), nodeIndex.add(e.dst()));
+	}
+	
+	
+	/**
+	 * Returns the position of the given edge in {@link #gEdges}, or -1 if it isn't part of the graph.  This
+	 * doesn't allocate anything, so it's cheap enough to call once per edge.
+	 */
+	int slot(Edge e)
+	{
+		int src = nodeIndex.get(e.src());
+		int dst = nodeIndex.get(e.dst());
+		
+		return ((src < 0) || (dst < 0)) ? -1 : edgeIndex.get(LongIntHashMap.key(src, dst));
+	}
+	
+	
+	/**
+	 * Adds every edge of every event from the given iterator.  Repeated edges are merged in an
+	 * {@link EdgeBatch} first, so that each distinct edge is inserted only once.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		checkOpen();
+		
+		EdgeBatch batch = new EdgeBatch(events);
+		
+		for (int i = 0; i < batch.size(); ++i)
+			add(new GephiEdge(GephiNode.valueOf(batch.src(i)), GephiNode.valueOf(batch.dst(i)), batch.startTime(i),
+			                  batch.endTime(i), batch.weight(i), batch.trust(i), batch.color(i)));
 	}
 	
 	
@@ -229,30 +414,96 @@ public class GephiGraph implements Graph
 	 */
 	public void clear()
 	{
+		checkOpen();
+		
 		gGraph.clear();
+		degrees.clear();
+		components.clear();
+		nodeIndex = new NodeIndex();
+		edgeIndex = new LongIntHashMap();
+		gEdges    = new ArrayList<org.gephi.graph.api.Edge>();
+		++version;
 	}
 	
-
+	
 	/**
-	 * Extract a single component from the graph.
+	 * Empties the graph and hands its workspace back to the pool, to be reused by the next new graph.  The
+	 * graph can't be used once it's closed, but closing it again does nothing.
 	 */
-	public Graph component(int n)
+	public void close()
 	{
-		// initialize the component column, just in case
-		componentCount();
-		
-		int        col = gAttributeModel.getNodeTable().getColumn("componentnumber").getIndex();
-		GephiGraph g   = new GephiGraph();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			if ((Integer) gNode.getNodeData().getAttributes().getValue(col) == n)
-				g.gGraph.addNode(new GephiNode(this, gNode).toGephi(g));
+		if (gWorkspace == null)
+			return;
 		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges())
-			if ((Integer) gEdge.getSource().getNodeData().getAttributes().getValue(col) == n)
-				g.add(new GephiEdge(this, gEdge));
+		clear();
+		release(gWorkspace);
 		
-		return g;
+		gWorkspace      = null;
+		gModel          = null;
+		gGraph          = null;
+		gAttributeModel = null;
+	}
+	
+	
+	/**
+	 * Fails if the graph has been closed, since its workspace may belong to another graph by now.
+	 */
+	void checkOpen()
+	{
+		if (gWorkspace == null)
+			throw new IllegalStateException("graph has been closed");
+	}
+	
+	
+	/**
+	 * Called to hand the workspace of a graph that was never closed back to the pool during object
+	 * finalization.
+	 */
+	protected void finalize()
+	throws Throwable
+	{
+		if (gWorkspace != null)
+			synchronized (GephiGraph.class) {
+				abandoned.add(gWorkspace);
+			}
+	}
+	
+
+	/**
+	 * Returns the Louvain community of each node, in the order of {@link #nodes}, computed natively on a CSR
+	 * copy.
+	 */
+	public int[] communities()
+	{
+		return csr().communities();
+	}
+	
+	
+	/**
+	 * Returns the core number of each node, in the order of {@link #nodes}, computed natively on a CSR copy.
+	 */
+	public int[] cores()
+	{
+		return csr().cores();
+	}
+	
+	
+	/**
+	 * Returns a view of the k-core of the graph: the nodes whose core number is at least k, and the edges
+	 * among them.
+	 */
+	public Graph kcore(int k)
+	{
+		return FilteredGraph.kcore(this, k);
+	}
+	
+	
+	/**
+	 * Returns a view of a single component of the graph.
+	 */
+	public Graph component(int n)
+	{
+		return FilteredGraph.component(this, frozenComponents(), n);
 	}
 	
 
@@ -261,9 +512,16 @@ public class GephiGraph implements Graph
 	 */
 	public int componentCount()
 	{
-		ConnectedComponents cc = new ConnectedComponents();
-		cc.execute(gModel, gAttributeModel);
-		return cc.getConnectedComponentsCount();
+		return components.count();
+	}
+	
+
+	/**
+	 * Returns the number of the component containing the given node, or -1 if it isn't in the graph.
+	 */
+	public int componentOf(Node n)
+	{
+		return components.label(n);
 	}
 	
 
@@ -272,13 +530,21 @@ public class GephiGraph implements Graph
 	 */
 	public int[] componentSize()
 	{
-		int[] size = new int[componentCount()];
-		int   col  = gAttributeModel.getNodeTable().getColumn("componentnumber").getIndex();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			size[(Integer) gNode.getNodeData().getAttributes().getValue(col)]++;
+		return components.sizes();
+	}
+	
+
+	/**
+	 * Returns a copy of the component table for component views, which mustn't renumber as the graph grows.
+	 * The copy is kept until the graph changes.
+	 */
+	ComponentTable frozenComponents()
+	{
+		ComponentTable table = (ComponentTable) stats.get("components");
+		if (table == null)
+			table = (ComponentTable) stats.put("components", new ComponentTable(components));
 		
-		return size;
+		return table;
 	}
 
 	
@@ -287,27 +553,16 @@ public class GephiGraph implements Graph
 	 */
 	public int dstCount()
 	{
-		int count = 0;
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			if (gGraph.getInDegree(gNode) > 0)
-				++count;
-		
-		return count;
+		return degrees.dstCount();
 	}
 	
 
 	/**
-	 * Returns an iterable over the in-degrees of the nodes in the graph.
+	 * Returns the in-degrees of the nodes in the graph.
 	 */
-	public Iterable<Integer> dstK()
+	public int[] dstK()
 	{
-		Map<org.gephi.graph.api.Node, Integer> map = new HashMap<org.gephi.graph.api.Node, Integer>();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			map.put(gNode, gGraph.getInDegree(gNode));
-		
-		return map.values();
+		return degrees.dstK();
 	}
 
 	
@@ -316,25 +571,16 @@ public class GephiGraph implements Graph
 	 */
 	public int dstK(Node n)
 	{
-		return gGraph.getInDegree(((GephiNode) n).toGephi(this));
+		return degrees.dstK(n);
 	}
 	
 	
 	/**
-	 * Returns an iterable over the in-strengths of the nodes in the graph.
+	 * Returns the in-strengths of the nodes in the graph.
 	 */
-	public Iterable<Double> dstS()
+	public double[] dstS()
 	{
-		Map<org.gephi.graph.api.Node, Double> map = new HashMap<org.gephi.graph.api.Node, Double>();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
-			double sum = 0.0;
-			for (org.gephi.graph.api.Edge gEdge : gGraph.getInEdges(gNode))
-				sum += gEdge.getWeight();
-			map.put(gNode, sum);
-		}
-		
-		return map.values();
+		return degrees.dstS();
 	}
 	
 	
@@ -343,12 +589,7 @@ public class GephiGraph implements Graph
 	 */
 	public double dstS(Node n)
 	{
-		double sum = 0.0;
-		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getInEdges(((GephiNode) n).toGephi(this)))
-			sum += gEdge.getWeight();
-
-		return sum;
+		return degrees.dstS(n);
 	}
 	
 	
@@ -357,21 +598,23 @@ public class GephiGraph implements Graph
 	 */
 	public int edgeCount()
 	{
+		checkOpen();
+		
 		return gGraph.getEdgeCount();
 	}
 	
 	
 	/**
 	 * Returns an iterable over the edges.
+	 * 
+	 * The view holds on to the Gephi edges as they were when it was made, so the graph may be changed while it's
+	 * being iterated over, and each {@link GephiEdge} is built only when it's asked for.
 	 */
 	public Iterable<Edge> edges()
 	{
-		Set<Edge> edges = new HashSet<Edge>();
+		checkOpen();
 		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges())
-			edges.add(new GephiEdge(this, gEdge));
-		
-		return edges;
+		return edgeView(gGraph.getEdges().toArray());
 	}
 	
 	
@@ -380,12 +623,8 @@ public class GephiGraph implements Graph
 	 */
 	public Iterable<Edge> edgesIn(Node n)
 	{
-		Set<Edge> edges = new HashSet<Edge>();
-		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getInEdges(((GephiNode) n).toGephi(this)))
-			edges.add(new GephiEdge(this, gEdge));
-		
-		return edges;
+		org.gephi.graph.api.Node gNode = find(n);
+		return edgeView((gNode == null) ? NO_EDGES : gGraph.getInEdges(gNode).toArray());
 	}
 	
 	
@@ -394,12 +633,72 @@ public class GephiGraph implements Graph
 	 */
 	public Iterable<Edge> edgesOut(Node n)
 	{
-		Set<Edge> edges = new HashSet<Edge>();
-		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getOutEdges(((GephiNode) n).toGephi(this)))
-			edges.add(new GephiEdge(this, gEdge));
+		org.gephi.graph.api.Node gNode = find(n);
+		return edgeView((gNode == null) ? NO_EDGES : gGraph.getOutEdges(gNode).toArray());
+	}
+	
+	
+	/**
+	 * Returns a lazy view of the given Gephi edges, which wraps each one only when it's asked for.
+	 */
+	Iterable<Edge> edgeView(final org.gephi.graph.api.Edge[] gEdges)
+	{
+		return new Iterable<Edge>() {
+			public Iterator<Edge> iterator()
+			{
+				return new Iterator<Edge>() {
+					int i = 0;
+
+					public boolean hasNext()
+					{
+						return i < gEdges.length;
+					}
+
+					public Edge next()
+					{
+						if (i >= gEdges.length)
+							throw new NoSuchElementException();
+						return new GephiEdge(GephiGraph.this, gEdges[i++]);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+	
+	
+	/**
+	 * Returns a flyweight cursor over the edges.
+	 */
+	public GephiEdgeCursor cursor()
+	{
+		checkOpen();
 		
-		return edges;
+		return new GephiEdgeCursor(this, gGraph.getEdges().toArray());
+	}
+	
+	
+	/**
+	 * Returns a flyweight cursor over the edges with this node as a destination.
+	 */
+	public GephiEdgeCursor cursorIn(Node n)
+	{
+		org.gephi.graph.api.Node gNode = find(n);
+		return new GephiEdgeCursor(this, (gNode == null) ? NO_EDGES : gGraph.getInEdges(gNode).toArray());
+	}
+	
+	
+	/**
+	 * Returns a flyweight cursor over the edges with this node as a source.
+	 */
+	public GephiEdgeCursor cursorOut(Node n)
+	{
+		org.gephi.graph.api.Node gNode = find(n);
+		return new GephiEdgeCursor(this, (gNode == null) ? NO_EDGES : gGraph.getOutEdges(gNode).toArray());
 	}
 	
 	
@@ -408,6 +707,11 @@ public class GephiGraph implements Graph
 	 */
 	public boolean export(String path, String format)
 	{
+		checkOpen();
+		
+		if (format.equals("snap"))
+			return SnapshotGraph.write(this, path + ".snap");
+		
     ExportController ec = Lookup.getDefault().lookup(ExportController.class);
 
     Exporter exp;
@@ -433,14 +737,26 @@ public class GephiGraph implements Graph
 	
 
 	/**
-	 * Returns the given edge.
+	 * Returns the Gephi node for the given node, or null if it isn't part of the graph.  Unlike
+	 * {@link GephiNode#toGephi}, this doesn't create the node or touch its attributes.
+	 */
+	org.gephi.graph.api.Node find(Node n)
+	{
+		checkOpen();
+		
+		return gGraph.getNode(Node.TYPE_CODE[n.type()] + Integer.toString(n.id()));
+	}
+	
+	
+	/**
+	 * Returns the given edge, or null if it isn't part of the graph.
 	 */
 	public Edge getEdge(Edge e)
 	{
-		GephiNode src = (GephiNode) ((GephiEdge) e).src();
-		GephiNode dst = (GephiNode) ((GephiEdge) e).dst();
+		checkOpen();
 		
-		return new GephiEdge(this, gGraph.getEdge(src.toGephi(this), dst.toGephi(this)));
+		int i = slot(e);
+		return (i < 0) ? null : new GephiEdge(this, gEdges.get(i));
 	}
 	
 	
@@ -449,7 +765,9 @@ public class GephiGraph implements Graph
 	 */
 	public Node getNode(Node n)
 	{
-		return new GephiNode(this, gGraph.getNode(((GephiNode) n).toString()));
+		checkOpen();
+		
+		return new GephiNode(this, gGraph.getNode(GephiNode.valueOf(n).toString()));
 	}
 	
 	
@@ -458,10 +776,9 @@ public class GephiGraph implements Graph
 	 */
 	public boolean hasEdge(Edge e)
 	{
-		GephiNode src = (GephiNode) ((GephiEdge) e).src();
-		GephiNode dst = (GephiNode) ((GephiEdge) e).dst();
+		checkOpen();
 		
-		return (gGraph.getEdge(src.toGephi(this), dst.toGephi(this)) != null);
+		return slot(e) >= 0;
 	}
 	
 
@@ -470,7 +787,7 @@ public class GephiGraph implements Graph
 	 */
 	public boolean hasNode(Node n)
 	{
-		return (gGraph.getNode(((GephiNode) n).toString()) != null);
+		return (find(n) != null);
 	}
 	
 	
@@ -482,6 +799,8 @@ public class GephiGraph implements Graph
 	 */
 	public void layout(VDictionary config)
 	{
+		checkOpen();
+		
 		// retrieve the layout parameters
 		float pDistance = 50.0f;
 		float pStep     = 20.0f;
@@ -497,13 +816,19 @@ public class GephiGraph implements Graph
 			System.err.println("Parameter error in configuration dictionary for Gephi layout.");
 		}
 		
-		// use the color attribute of each node to give it an RGB value
+		// use the color attribute of each node to give it an RGB value, and scatter any nodes that haven't been
+		// placed yet
 		for (org.gephi.graph.api.Node n : gGraph.getNodes()) {
 			NodeData data  = n.getNodeData();
 			int      color = (Integer) data.getAttributes().getValue(colNodeColor);
 			data.setR((float) (((color & 0xff0000) >> 16) / 255.0));
 			data.setG((float) (((color & 0x00ff00) >>  8) / 255.0));
 			data.setB((float) ( (color & 0x0000ff)        / 255.0));
+			
+			if ((data.x() == 0.0f) && (data.y() == 0.0f)) {
+				data.setX((float) Math.random() * 100);
+				data.setY((float) Math.random() * 100);
+			}
 		}
 		
 		// use the color attribute of each edge to give it an RGB value
@@ -571,24 +896,11 @@ public class GephiGraph implements Graph
 
 	
 	/**
-	 * Returns the subgraph containing only meme-meme edges.
+	 * Returns a view of the subgraph containing only meme-meme edges.
 	 */
 	public Graph memeGraph()
 	{
-		GephiGraph g = new GephiGraph();
-
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
-			GephiNode node = new GephiNode(this, gNode);
-			if (node.type == Node.TYPE_MEME)
-				g.gGraph.addNode(node.toGephi(g));
-		}
-
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getEdges())
-			if (((new GephiNode(this, gEdge.getSource())).type == Node.TYPE_MEME) &&
-					((new GephiNode(this, gEdge.getTarget())).type == Node.TYPE_MEME))
-				g.add(new GephiEdge(this, gEdge));
-
-		return g;
+		return FilteredGraph.memeGraph(this);
 	}
 	
 	
@@ -597,6 +909,8 @@ public class GephiGraph implements Graph
 	 */
 	public int nodeCount()
 	{
+		checkOpen();
+		
 		return gGraph.getNodeCount();
 	}
 	
@@ -606,12 +920,35 @@ public class GephiGraph implements Graph
 	 */
 	public Iterable<Node> nodes()
 	{
-		Set<Node> nodes = new HashSet<Node>();
+		checkOpen();
 		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			nodes.add(new GephiNode(this, gNode));
-		
-		return nodes;
+		final org.gephi.graph.api.Node[] gNodes = gGraph.getNodes().toArray();
+
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Iterator<Node>() {
+					int i = 0;
+
+					public boolean hasNext()
+					{
+						return i < gNodes.length;
+					}
+
+					public Node next()
+					{
+						if (i >= gNodes.length)
+							throw new NoSuchElementException();
+						return new GephiNode(GephiGraph.this, gNodes[i++]);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
 	}
 	
 	
@@ -620,27 +957,16 @@ public class GephiGraph implements Graph
 	 */
 	public int srcCount()
 	{
-		int count = 0;
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			if (gGraph.getOutDegree(gNode) > 0)
-				++count;
-		
-		return count;
+		return degrees.srcCount();
 	}
 	
 
 	/**
-	 * Returns an iterable over the out-degrees of the nodes in the graph.
+	 * Returns the out-degrees of the nodes in the graph.
 	 */
-	public Iterable<Integer> srcK()
+	public int[] srcK()
 	{
-		Map<org.gephi.graph.api.Node, Integer> map = new HashMap<org.gephi.graph.api.Node, Integer>();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes())
-			map.put(gNode, gGraph.getOutDegree(gNode));
-		
-		return map.values();
+		return degrees.srcK();
 	}
 
 	
@@ -649,25 +975,16 @@ public class GephiGraph implements Graph
 	 */
 	public int srcK(Node n)
 	{
-		return gGraph.getOutDegree(((GephiNode) n).toGephi(this));
+		return degrees.srcK(n);
 	}
 	
 	
 	/**
-	 * Returns an iterable over the out-strengths of the nodes in the graph.
+	 * Returns the out-strengths of the nodes in the graph.
 	 */
-	public Iterable<Double> srcS()
+	public double[] srcS()
 	{
-		Map<org.gephi.graph.api.Node, Double> map = new HashMap<org.gephi.graph.api.Node, Double>();
-		
-		for (org.gephi.graph.api.Node gNode : gGraph.getNodes()) {
-			double sum = 0.0;
-			for (org.gephi.graph.api.Edge gEdge : gGraph.getOutEdges(gNode))
-				sum += gEdge.getWeight();
-			map.put(gNode, sum);
-		}
-		
-		return map.values();
+		return degrees.srcS();
 	}
 	
 	
@@ -676,78 +993,116 @@ public class GephiGraph implements Graph
 	 */
 	public double srcS(Node n)
 	{
-		double sum = 0.0;
+		return degrees.srcS(n);
+	}
+	
+	
+	/**
+	 * Returns a CSR copy of the graph for the statistics that are computed natively, which is kept (along
+	 * with the statistics computed on it) until the graph changes.
+	 */
+	public CsrGraph csr()
+	{
+		checkOpen();
 		
-		for (org.gephi.graph.api.Edge gEdge : gGraph.getOutEdges(((GephiNode) n).toGephi(this)))
-			sum += gEdge.getWeight();
-
-		return sum;
+		CsrGraph copy = (CsrGraph) stats.get("csr");
+		if (copy == null)
+			copy = (CsrGraph) stats.put("csr", CsrGraph.of(this));
+		
+		return copy;
+	}
+	
+	
+	/**
+	 * Returns the in- and out-degree histograms, which both power-law fits start from.
+	 */
+	DegreeHistogram histogram()
+	{
+		DegreeHistogram histogram = (DegreeHistogram) stats.get("histogram");
+		if (histogram == null)
+			histogram = (DegreeHistogram) stats.put("histogram", degrees.histogram());
+		
+		return histogram;
+	}
+	
+	
+	/**
+	 * Returns a discrete power-law fit to the in-degrees.
+	 */
+	public PowerLaw statDstKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("dstfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("dstfit", new PowerLaw(histogram().getIn()));
+		
+		return fit;
+	}
+	
+	
+	/**
+	 * Returns a discrete power-law fit to the out-degrees.
+	 */
+	public PowerLaw statSrcKFit()
+	{
+		PowerLaw fit = (PowerLaw) stats.get("srcfit");
+		if (fit == null)
+			fit = (PowerLaw) stats.put("srcfit", new PowerLaw(histogram().getOut()));
+		
+		return fit;
 	}
 	
 	
 	/**
-	 * Returns the mean clustering coefficient of the graph. 
+	 * Returns the mean clustering coefficient of the graph, computed natively on a CSR copy.
 	 */
 	public double statClustering()
 	{
-    ClusteringCoefficient cc = new ClusteringCoefficient();
-    cc.execute(gModel, gAttributeModel);
-    return cc.getAverageClusteringCoefficient();
+		return csr().statClustering();
 	}
 	
 	
 	/**
-	 * Returns the largest finite diameter within the graph. (?)
+	 * Returns the largest finite diameter within the graph, computed natively on a CSR copy.
 	 */
 	public double statDiameter()
 	{
-		GraphDistance dist = new GraphDistance();
-		dist.execute(gModel, gAttributeModel);
-		return dist.getDiameter();
+		return csr().statDiameter();
 	}
 	
 	
 	/**
-	 * Returns an estimated power-law fit for in-degree.
+	 * Returns the maximum likelihood power-law exponent for in-degree.
 	 */
 	public double statDstKPower()
 	{
-		DegreeDistribution dd = new DegreeDistribution();
-		dd.execute(gModel, gAttributeModel);
-		return dd.getInPowerLaw();
+		return statDstKFit().getExponent();
 	}
 	
 	
 	/**
-	 * Returns a modularity measure for the graph. (?)
+	 * Returns the modularity of the graph's Louvain communities, computed natively on a CSR copy.
 	 */
 	public double statModularity()
 	{
-		Modularity mod = new Modularity();
-		mod.execute(gModel, gAttributeModel);
-		return mod.getModularity();
+		return csr().statModularity();
 	}
 	
 	
 	/**
-	 * Returns the mean path length within the components of the graph. (?)
+	 * Returns the mean path length within the components of the graph, computed natively on a CSR copy.
 	 */
 	public double statPathLength()
 	{
-		GraphDistance dist = new GraphDistance();
-		dist.execute(gModel, gAttributeModel);
-		return dist.getPathLength();
+		return csr().statPathLength();
 	}
 	
 	
 	/**
-	 * Returns an estimated power-law fit for out-degree.
+	 * Returns the maximum likelihood power-law exponent for out-degree.
 	 */
 	public double statSrcKPower()
 	{
-		DegreeDistribution dd = new DegreeDistribution();
-		dd.execute(gModel, gAttributeModel);
-		return dd.getOutPowerLaw();
+		return statSrcKFit().getExponent();
 	}
 	
 	
@@ -756,23 +1111,28 @@ public class GephiGraph implements Graph
 	 */
 	public Graph trustedGraph()
 	{
-		GephiGraph g = new GephiGraph();
-		
-		for (Edge e : edges())
-			if (e.trust() > 0.0)
-				g.add(e);
-		
-		return g;
+		return FilteredGraph.trustedGraph(this);
 	}
 
 	
+	/**
+	 * Returns the number of changes that have been made to the graph.
+	 */
+	public int version()
+	{
+		return version;
+	}
+	
+	
 	/**
 	 * Returns the total weight of the given edge.
 	 * Returns zero if there is no such edge.
 	 */
 	public double weight(Edge e)
 	{
-		return gGraph.getEdge(((GephiEdge) e).toGephi(this).getSource(),
-											    ((GephiEdge) e).toGephi(this).getTarget()).getWeight();
+		checkOpen();
+		
+		return gGraph.getEdge(GephiEdge.valueOf(e).toGephi(this).getSource(),
+											    GephiEdge.valueOf(e).toGephi(this).getTarget()).getWeight();
 	}
 }
@@ -4,6 +4,7 @@ import org.gephi.graph.api.Attributes;
 import org.gephi.graph.api.NodeData;
 
 import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeTable;
 
 
 /**
@@ -11,10 +12,13 @@ import edu.iu.cnets.klatsch.model.Node;
  */
 public class GephiNode extends Node
 {
-	int   id;
-	int   type;
-	int   color;
-	float x, y;
+	int     id;
+	int     type;
+	int     color;
+	float   x, y;
+	
+	/** true if this node has layout coordinates; the others get placed by {@link GephiGraph#layout} */
+	boolean placed;
 	
 	
 	public GephiNode(GephiGraph graph, org.gephi.graph.api.Node gNode)
@@ -24,8 +28,9 @@ public class GephiNode extends Node
 		id    = (Integer) attr.getValue(graph.colNodeId);
 		type  = (Integer) attr.getValue(graph.colNodeType);
 		color = (Integer) attr.getValue(graph.colNodeColor);
-		x     = data.x();
-		y     = data.y();
+		x      = data.x();
+		y      = data.y();
+		placed = true;
 	}
 	
 	
@@ -34,8 +39,6 @@ public class GephiNode extends Node
 		this.type  = type;
 		this.id    = id;
 		this.color = color;
-		this.x     = (float) Math.random() * 100;
-		this.y     = (float) Math.random() * 100;
 	}
 	
 	
@@ -45,6 +48,29 @@ public class GephiNode extends Node
 	}
 	
 	
+	/**
+	 * Returns the given node as a GephiNode, converting it if it came from another backend.
+	 */
+	public static GephiNode valueOf(Node n)
+	{
+		return (n instanceof GephiNode) ? (GephiNode) n : new GephiNode(n.type(), n.id(), n.color());
+	}
+	
+	
+	/**
+	 * Returns a new table for interning GephiNodes.
+	 */
+	public static NodeTable<GephiNode> table()
+	{
+		return new NodeTable<GephiNode>() {
+			protected GephiNode create(int type, int id)
+			{
+				return new GephiNode(type, id);
+			}
+		};
+	}
+	
+	
 	public int id()
 	{
 		return id;
@@ -66,8 +92,9 @@ public class GephiNode extends Node
 	public org.gephi.graph.api.Node toGephi(GephiGraph graph)
 	{
 		org.gephi.graph.api.Node gNode = graph.gGraph.getNode(toString());
+		boolean                  fresh = (gNode == null);
 
-		if (gNode == null)
+		if (fresh)
 			gNode = graph.gModel.factory().newNode(toString());
 
 		NodeData   data = gNode.getNodeData();
@@ -75,8 +102,15 @@ public class GephiNode extends Node
 		attr.setValue(graph.colNodeId,    id);
 		attr.setValue(graph.colNodeType,  type);
 		attr.setValue(graph.colNodeColor, color);
-		data.setX(x);
-		data.setY(y);
+		
+		// nodes without coordinates start at the origin, which tells the layout code to place them
+		if (placed) {
+			data.setX(x);
+			data.setY(y);
+		} else if (fresh) {
+			data.setX(0.0f);
+			data.setY(0.0f);
+		}
 		
 		return gNode;
 	}
@@ -0,0 +1,1106 @@
+package edu.iu.cnets.klatsch.model.window;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.lang.VDictionary;
+import edu.iu.cnets.klatsch.misc.LongIntHashMap;
+import edu.iu.cnets.klatsch.model.ComponentTable;
+import edu.iu.cnets.klatsch.model.DegreeTable;
+import edu.iu.cnets.klatsch.model.Edge;
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.FilteredGraph;
+import edu.iu.cnets.klatsch.model.Graph;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.StatCache;
+import edu.iu.cnets.klatsch.model.basic.BasicEdge;
+import edu.iu.cnets.klatsch.model.basic.BasicNode;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+import edu.iu.cnets.klatsch.model.csr.EdgeColumns;
+import edu.iu.cnets.klatsch.stat.PowerLaw;
+
+
+/**
+ * This is an implementation of {@link Graph} that only holds on to the edges seen during the most recent
+ * stretch of time, for watching a live feed without the graph growing forever.
+ *
+ * The graph keeps a clock, which is the latest start time of any edge added so far (or whatever it has been
+ * moved to by {@link #advance}).  Every edge added to the graph is recorded as an occurrence, and an
+ * occurrence expires once its end time is a full window behind the clock.  Repeats of an edge are merged in
+ * the manner of {@link Edge#Edge(Edge, Edge)}, and their weights come back off as they expire; an edge whose
+ * last occurrence expires is removed, as is a node whose last edge is removed.  Once an earlier occurrence of
+ * an edge has expired, its start time is moved up to the start of the window.
+ *
+ * Nodes and edges live in primitive columns indexed by slot, and the slots of removed nodes and edges are
+ * reused, so memory stays proportional to what's in the window.  Degrees and strengths are updated as edges
+ * come and go.  Components are tracked with a union-find structure as edges arrive; since union-find can't
+ * split a set, a removal just marks it stale, and it's rebuilt from the live edges the next time it's asked
+ * for.
+ *
+ * Subgraphs are views of the live graph, except for components, which are copied.  Statistics and export
+ * work on a temporary {@link CsrGraph} copy.  Since the graph won't hold still, layout works on a copy of the
+ * graph as it stands, which export uses for as long as the graph doesn't change.
+ */
+public class WindowGraph implements Graph
+{
+	/** the length of the window */
+	int            window;
+
+	/** the current time */
+	int            now;
+
+	/** the number of node slots in use, live or not */
+	int            nodeCount;
+
+	/** the number of live nodes */
+	int            liveNodes;
+
+	/** the node columns, indexed by slot */
+	int[]          nodeId;
+	int[]          nodeType;
+	int[]          nodeColor;
+
+	/** maps from a live node's (type, ID) key to its slot */
+	LongIntHashMap nodeIndex;
+
+	/** the current out-degree, in-degree, out-strength, and in-strength of each node */
+	int[]          nodeKOut;
+	int[]          nodeKIn;
+	double[]       nodeSOut;
+	double[]       nodeSIn;
+
+	/** the number of nodes with at least one outgoing or incoming edge */
+	int            srcCount;
+	int            dstCount;
+
+	/** the edge slots leaving and entering each node, and how many of each there are */
+	int[][]        outList;
+	int[]          outLen;
+	int[][]        inList;
+	int[]          inLen;
+
+	/** slots of removed nodes, ready for reuse */
+	int[]          freeNodes;
+	int            freeNodeCount;
+
+	/** the number of edge slots in use, live or not */
+	int            edgeCount;
+
+	/** the number of live edges */
+	int            liveEdges;
+
+	/** the endpoint columns, indexed by slot */
+	int[]          edgeSrc;
+	int[]          edgeDst;
+
+	/** the attribute columns, indexed by slot, which are kept off the heap */
+	EdgeColumns    edgeAttr;
+
+	/** the number of live occurrences of each edge, which is zero for a removed edge */
+	int[]          edgeHits;
+
+	/** the position of each edge in its source's {@link #outList} and its destination's {@link #inList} */
+	int[]          edgeOutPos;
+	int[]          edgeInPos;
+
+	/** maps from a live edge's (source slot, destination slot) key to its slot */
+	LongIntHashMap edgeIndex;
+
+	/** slots of removed edges, ready for reuse */
+	int[]          freeEdges;
+	int            freeEdgeCount;
+
+	/** the live occurrences, as a binary min-heap ordered by end time */
+	int            heapSize;
+	int[]          heapEnd;
+	int[]          heapEdge;
+	double[]       heapWeight;
+	double[]       heapTrust;
+
+	/** the union-find parent of each node slot */
+	int[]          parent;
+
+	/** the number of components, when the union-find structure is up to date */
+	int            components;
+
+	/** true if an edge or node has been removed since the union-find structure was built */
+	boolean        stale;
+
+	/** bumped by every occurrence that's added or expired */
+	int            version;
+
+	/** the statistics computed for the current version of the graph */
+	StatCache      stats;
+
+	/** the laid-out copy of the graph, if there is one, and the version it was copied from */
+	CsrGraph       render;
+	int            renderVersion;
+
+
+	/**
+	 * Creates an empty graph that keeps edges for the given length of time.
+	 *
+	 * @param window  the length of the window, in seconds
+	 */
+	public WindowGraph(int window)
+	{
+		if (window <= 0)
+			throw new IllegalArgumentException("window length must be positive");
+
+		this.window = window;
+		clear();
+		stats = new StatCache(this);
+	}
+
+
+	/*===================================================================
+	 * The clock.
+	 *===================================================================*/
+
+	/**
+	 * Returns the length of the window.
+	 */
+	public int window()
+	{
+		return window;
+	}
+
+
+	/**
+	 * Returns the current time, which is the latest start time seen so far.
+	 */
+	public int now()
+	{
+		return now;
+	}
+
+
+	/**
+	 * Moves the clock forward to the given time, if it's later than the current one, and expires whatever
+	 * falls out of the window as a result.
+	 */
+	public void advance(int time)
+	{
+		if (time <= now)
+			return;
+
+		now = time;
+
+		long cutoff = (long) now - window;
+		while ((heapSize > 0) && (heapEnd[0] <= cutoff))
+			expire();
+	}
+
+
+	/*===================================================================
+	 * Slot management.
+	 *===================================================================*/
+
+	/**
+	 * Returns the slot of the given node, adding it if it isn't live.
+	 */
+	int addNode(Node n)
+	{
+		long key = LongIntHashMap.key(n.type(), n.id());
+		int  v   = nodeIndex.get(key);
+
+		if (v != LongIntHashMap.NONE)
+			return v;
+
+		if (freeNodeCount > 0)
+			v = freeNodes[--freeNodeCount];
+		else {
+			if (nodeCount == nodeId.length) {
+				int size  = nodeCount * 2;
+				nodeId    = Arrays.copyOf(nodeId,    size);
+				nodeType  = Arrays.copyOf(nodeType,  size);
+				nodeColor = Arrays.copyOf(nodeColor, size);
+				nodeKOut  = Arrays.copyOf(nodeKOut,  size);
+				nodeKIn   = Arrays.copyOf(nodeKIn,   size);
+				nodeSOut  = Arrays.copyOf(nodeSOut,  size);
+				nodeSIn   = Arrays.copyOf(nodeSIn,   size);
+				outList   = Arrays.copyOf(outList,   size);
+				outLen    = Arrays.copyOf(outLen,    size);
+				inList    = Arrays.copyOf(inList,    size);
+				inLen     = Arrays.copyOf(inLen,     size);
+				parent    = Arrays.copyOf(parent,    size);
+			}
+			v = nodeCount++;
+		}
+
+		nodeId   [v] = n.id();
+		nodeType [v] = n.type();
+		nodeColor[v] = n.color();
+		if (outList[v] == null) {
+			outList[v] = new int[2];
+			inList [v] = new int[2];
+		}
+		nodeIndex.put(key, v);
+		++liveNodes;
+
+		parent[v] = v;
+		++components;
+
+		return v;
+	}
+
+
+	/**
+	 * Removes the given node, whose last edge has just gone.
+	 */
+	void removeNode(int v)
+	{
+		nodeIndex.remove(LongIntHashMap.key(nodeType[v], nodeId[v]));
+		nodeSOut[v] = 0.0;
+		nodeSIn [v] = 0.0;
+		--liveNodes;
+		stale = true;
+
+		// drop oversized adjacency lists, so that a hub that has gone quiet gives its memory back
+		if (outList[v].length > 16)  outList[v] = new int[2];
+		if (inList [v].length > 16)  inList [v] = new int[2];
+
+		if (freeNodeCount == freeNodes.length)
+			freeNodes = Arrays.copyOf(freeNodes, freeNodeCount * 2);
+		freeNodes[freeNodeCount++] = v;
+	}
+
+
+	/**
+	 * Adds a new edge between the given node slots, returning its slot.
+	 */
+	int addEdge(int src, int dst, int startTime, int endTime, int color)
+	{
+		int e;
+
+		if (freeEdgeCount > 0)
+			e = freeEdges[--freeEdgeCount];
+		else {
+			if (edgeCount == edgeSrc.length) {
+				int size   = edgeCount * 2;
+				edgeSrc    = Arrays.copyOf(edgeSrc,    size);
+				edgeDst    = Arrays.copyOf(edgeDst,    size);
+				edgeHits   = Arrays.copyOf(edgeHits,   size);
+				edgeOutPos = Arrays.copyOf(edgeOutPos, size);
+				edgeInPos  = Arrays.copyOf(edgeInPos,  size);
+				edgeAttr.grow(size);
+			}
+			e = edgeCount++;
+		}
+
+		edgeSrc [e] = src;
+		edgeDst [e] = dst;
+		edgeHits[e] = 0;
+		edgeAttr.set(e, startTime, endTime, 0.0, 0.0, color);
+		edgeIndex.put(LongIntHashMap.key(src, dst), e);
+		++liveEdges;
+
+		if (outLen[src] == outList[src].length)  outList[src] = Arrays.copyOf(outList[src], outLen[src] * 2);
+		if (inLen [dst] == inList [dst].length)  inList [dst] = Arrays.copyOf(inList [dst], inLen [dst] * 2);
+		edgeOutPos[e] = outLen[src];
+		edgeInPos [e] = inLen [dst];
+		outList[src][outLen[src]++] = e;
+		inList [dst][inLen [dst]++] = e;
+
+		if (nodeKOut[src]++ == 0)  ++srcCount;
+		if (nodeKIn [dst]++ == 0)  ++dstCount;
+
+		if (!stale)
+			union(src, dst);
+
+		return e;
+	}
+
+
+	/**
+	 * Removes the given edge, whose last occurrence has just expired, along with any endpoint it leaves bare.
+	 */
+	void removeEdge(int e)
+	{
+		int src = edgeSrc[e];
+		int dst = edgeDst[e];
+
+		edgeIndex.remove(LongIntHashMap.key(src, dst));
+		--liveEdges;
+		stale = true;
+
+		// swap the last entry of each adjacency list into the removed edge's place
+		int last = outList[src][--outLen[src]];
+		outList[src][edgeOutPos[e]] = last;
+		edgeOutPos[last] = edgeOutPos[e];
+
+		last = inList[dst][--inLen[dst]];
+		inList[dst][edgeInPos[e]] = last;
+		edgeInPos[last] = edgeInPos[e];
+
+		if (--nodeKOut[src] == 0)  --srcCount;
+		if (--nodeKIn [dst] == 0)  --dstCount;
+
+		if (freeEdgeCount == freeEdges.length)
+			freeEdges = Arrays.copyOf(freeEdges, freeEdgeCount * 2);
+		freeEdges[freeEdgeCount++] = e;
+
+		if (nodeKOut[src] + nodeKIn[src] == 0)
+			removeNode(src);
+		if ((dst != src) && (nodeKOut[dst] + nodeKIn[dst] == 0))
+			removeNode(dst);
+	}
+
+
+	/*===================================================================
+	 * Occurrences.
+	 *===================================================================*/
+
+	/**
+	 * Records an occurrence of edge e, which lasts until the given end time.
+	 */
+	void push(int e, int endTime, double weight, double trust)
+	{
+		if (heapSize == heapEnd.length) {
+			int size   = heapSize * 2;
+			heapEnd    = Arrays.copyOf(heapEnd,    size);
+			heapEdge   = Arrays.copyOf(heapEdge,   size);
+			heapWeight = Arrays.copyOf(heapWeight, size);
+			heapTrust  = Arrays.copyOf(heapTrust,  size);
+		}
+
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heapEnd[up] <= endTime)
+				break;
+			move(up, i);
+			i = up;
+		}
+
+		heapEnd   [i] = endTime;
+		heapEdge  [i] = e;
+		heapWeight[i] = weight;
+		heapTrust [i] = trust;
+	}
+
+
+	/**
+	 * Expires the occurrence that ends soonest, taking its weight back off its edge and the edge's endpoints.
+	 */
+	void expire()
+	{
+		int    e      = heapEdge  [0];
+		double weight = heapWeight[0];
+		double trust  = heapTrust [0];
+
+		// sift the last occurrence down from the top
+		int    end     = heapEnd   [--heapSize];
+		int    lastE   = heapEdge  [heapSize];
+		double lastW   = heapWeight[heapSize];
+		double lastT   = heapTrust [heapSize];
+		int    i       = 0;
+
+		while (true) {
+			int down = 2 * i + 1;
+			if (down >= heapSize)
+				break;
+			if ((down + 1 < heapSize) && (heapEnd[down + 1] < heapEnd[down]))
+				++down;
+			if (end <= heapEnd[down])
+				break;
+			move(down, i);
+			i = down;
+		}
+
+		heapEnd   [i] = end;
+		heapEdge  [i] = lastE;
+		heapWeight[i] = lastW;
+		heapTrust [i] = lastT;
+
+		nodeSOut[edgeSrc[e]] -= weight;
+		nodeSIn [edgeDst[e]] -= weight;
+		++version;
+
+		if (--edgeHits[e] == 0)
+			removeEdge(e);
+		else {
+			edgeAttr.add(e, -weight, -trust);
+			edgeAttr.setStart(e, Math.max(edgeAttr.start(e), now - window + 1));
+		}
+	}
+
+
+	/**
+	 * Copies heap entry i to position j.
+	 */
+	void move(int i, int j)
+	{
+		heapEnd   [j] = heapEnd   [i];
+		heapEdge  [j] = heapEdge  [i];
+		heapWeight[j] = heapWeight[i];
+		heapTrust [j] = heapTrust [i];
+	}
+
+
+	/*===================================================================
+	 * Components.
+	 *===================================================================*/
+
+	/**
+	 * Returns the root of the set containing node slot v, halving the path as it goes.
+	 */
+	int find(int v)
+	{
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v         = parent[v];
+		}
+
+		return v;
+	}
+
+
+	/**
+	 * Merges the sets containing node slots a and b.
+	 */
+	void union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+
+		if (a != b) {
+			parent[Math.max(a, b)] = Math.min(a, b);
+			--components;
+		}
+	}
+
+
+	/**
+	 * Rebuilds the union-find structure from the live edges, if anything has been removed since it was built.
+	 */
+	void refreshComponents()
+	{
+		if (!stale)
+			return;
+
+		for (int v = 0; v < nodeCount; ++v)
+			parent[v] = v;
+		components = liveNodes;
+		stale      = false;
+
+		for (int e = 0; e < edgeCount; ++e)
+			if (edgeHits[e] > 0)
+				union(edgeSrc[e], edgeDst[e]);
+	}
+
+
+	/*===================================================================
+	 * Object construction.
+	 *===================================================================*/
+
+	/**
+	 * Returns the slot of the given node, or -1 if it isn't live.
+	 */
+	int index(Node n)
+	{
+		return nodeIndex.get(LongIntHashMap.key(n.type(), n.id()));
+	}
+
+
+	/**
+	 * Returns the slot of the given edge, or -1 if it isn't live.
+	 */
+	int edgeIndex(Edge e)
+	{
+		int src = index(e.src());
+		int dst = index(e.dst());
+
+		return ((src < 0) || (dst < 0)) ? -1 : edgeIndex.get(LongIntHashMap.key(src, dst));
+	}
+
+
+	/** Builds a {@link Node} object for the node in the given slot. */
+	Node node(int v)
+	{
+		return new BasicNode(nodeType[v], nodeId[v], nodeColor[v]);
+	}
+
+
+	/** Builds an {@link Edge} object for the edge in the given slot. */
+	Edge edge(int e)
+	{
+		return new BasicEdge(node(edgeSrc[e]), node(edgeDst[e]),
+		                     edgeAttr.start(e), edgeAttr.end(e), edgeAttr.weight(e), edgeAttr.trust(e),
+		                     edgeAttr.color(e));
+	}
+
+
+	/**
+	 * Builds an iterable over the edges in the given slots.
+	 */
+	Iterable<Edge> edgeList(final int[] slots)
+	{
+		return new Iterable<Edge>() {
+			public Iterator<Edge> iterator()
+			{
+				return new Iterator<Edge>() {
+					int i = 0;
+
+					public boolean hasNext()
+					{
+						return i < slots.length;
+					}
+
+					public Edge next()
+					{
+						if (i >= slots.length)
+							throw new NoSuchElementException();
+						return edge(slots[i++]);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/*===================================================================
+	 * The Graph interface.
+	 *===================================================================*/
+
+	/**
+	 * Returns a live view of the subgraph containing only actors and actor-actor edges.
+	 */
+	public Graph actorGraph()
+	{
+		return FilteredGraph.actorGraph(this);
+	}
+
+
+	/**
+	 * Returns a live view of the subgraph containing only actor-meme and meme-actor edges.
+	 */
+	public Graph actorMemeGraph()
+	{
+		return FilteredGraph.actorMemeGraph(this);
+	}
+
+
+	/**
+	 * Adds the given edge, first moving the clock up to its start time.  An edge that has already ended by
+	 * the start of the window is ignored.
+	 */
+	public void add(Edge e)
+	{
+		advance(e.startTime());
+
+		if (e.endTime() <= (long) now - window)
+			return;
+
+		int  src = addNode(e.src());
+		int  dst = addNode(e.dst());
+		int  i   = edgeIndex.get(LongIntHashMap.key(src, dst));
+
+		if (i == LongIntHashMap.NONE)
+			i = addEdge(src, dst, e.startTime(), e.endTime(), e.color());
+
+		++edgeHits[i];
+		edgeAttr.merge(i, e.startTime(), e.endTime(), e.weight(), e.trust());
+		nodeSOut[src] += e.weight();
+		nodeSIn [dst] += e.weight();
+
+		push(i, e.endTime(), e.weight(), e.trust());
+		++version;
+	}
+
+
+	/**
+	 * Adds every edge of every event from the given iterator, in order.  Since each occurrence has to be
+	 * tracked for expiry anyway, there's nothing to gain from merging repeats first.
+	 */
+	public void addAll(Iterator<Event> events)
+	{
+		while (events.hasNext()) {
+			Iterator<Edge> edges = events.next().edges();
+			while (edges.hasNext())
+				add(edges.next());
+		}
+	}
+
+
+	/**
+	 * Empties the graph and resets the clock, in an effort to make its memory reclaimable by the Java garbage
+	 * collector.
+	 */
+	public void clear()
+	{
+		now           = Integer.MIN_VALUE;
+
+		nodeCount     = 0;
+		liveNodes     = 0;
+		nodeId        = new int   [16];
+		nodeType      = new int   [16];
+		nodeColor     = new int   [16];
+		nodeIndex     = new LongIntHashMap();
+		nodeKOut      = new int   [16];
+		nodeKIn       = new int   [16];
+		nodeSOut      = new double[16];
+		nodeSIn       = new double[16];
+		srcCount      = 0;
+		dstCount      = 0;
+		outList       = new int   [16][];
+		outLen        = new int   [16];
+		inList        = new int   [16][];
+		inLen         = new int   [16];
+		freeNodes     = new int   [16];
+		freeNodeCount = 0;
+
+		edgeCount     = 0;
+		liveEdges     = 0;
+		edgeSrc       = new int   [16];
+		edgeDst       = new int   [16];
+		edgeHits      = new int   [16];
+		edgeOutPos    = new int   [16];
+		edgeInPos     = new int   [16];
+		edgeAttr      = new EdgeColumns(16);
+		edgeIndex     = new LongIntHashMap();
+		freeEdges     = new int   [16];
+		freeEdgeCount = 0;
+
+		heapSize      = 0;
+		heapEnd       = new int   [16];
+		heapEdge      = new int   [16];
+		heapWeight    = new double[16];
+		heapTrust     = new double[16];
+
+		parent        = new int   [16];
+		components    = 0;
+		stale         = false;
+		dropRender();
+		++version;
+	}
+
+
+	/**
+	 * Closes the laid-out copy, if there is one, so that its Gephi workspace can be reused.
+	 */
+	void dropRender()
+	{
+		if (render != null) {
+			render.close();
+			render = null;
+		}
+	}
+
+
+	/**
+	 * Empties the graph, which also closes the laid-out copy.
+	 */
+	public void close()
+	{
+		clear();
+	}
+
+
+	/**
+	 * Returns the Louvain community of each node, in the order of {@link #nodes}, computed on a copy of the
+	 * graph as it stands now.
+	 */
+	public int[] communities()
+	{
+		return csr().communities();
+	}
+
+
+	/**
+	 * Returns the core number of each node, in the order of {@link #nodes}, computed on a copy of the graph
+	 * as it stands now.
+	 */
+	public int[] cores()
+	{
+		return csr().cores();
+	}
+
+
+	/**
+	 * Returns a live view of the k-core of the graph: the nodes whose core number is at least k as the graph
+	 * stands now, and the edges among them.
+	 */
+	public Graph kcore(int k)
+	{
+		return FilteredGraph.kcore(this, k);
+	}
+
+
+	/**
+	 * Returns a copy of a single component of the graph as it stands now.
+	 */
+	public Graph component(int n)
+	{
+		return CsrGraph.of(FilteredGraph.component(this, components(), n));
+	}
+
+
+	/**
+	 * Returns the number of weakly connected components in the graph.
+	 */
+	public int componentCount()
+	{
+		refreshComponents();
+		return components;
+	}
+
+
+	/**
+	 * Returns the number of the component containing the given node, or -1 if it isn't in the graph.
+	 */
+	public int componentOf(Node n)
+	{
+		return components().label(n);
+	}
+
+
+	/**
+	 * Returns an array containing the size of each component in the graph.
+	 */
+	public int[] componentSize()
+	{
+		return components().sizes();
+	}
+
+
+	/**
+	 * Returns the labelled components of the graph, which are kept until the next occurrence is added or
+	 * expired.
+	 */
+	ComponentTable components()
+	{
+		ComponentTable table = (ComponentTable) stats.get("components");
+		if (table == null)
+			table = (ComponentTable) stats.put("components", new ComponentTable(this));
+
+		return table;
+	}
+
+
+	/**
+	 * Returns the number of destination nodes in the graph.
+	 */
+	public int dstCount()
+	{
+		return dstCount;
+	}
+
+
+	/**
+	 * Returns the in-degrees of the nodes in the window, including zeros, in slot order.
+	 */
+	public int[] dstK()
+	{
+		return DegreeTable.select(nodeKIn, nodeKOut, nodeKIn, nodeCount, liveNodes);
+	}
+
+
+	/**
+	 * Returns the in-degree of the given node.
+	 */
+	public int dstK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : nodeKIn[v];
+	}
+
+
+	/**
+	 * Returns the in-strengths of the nodes in the window, including zeros, in slot order.
+	 */
+	public double[] dstS()
+	{
+		return DegreeTable.select(nodeSIn, nodeKOut, nodeKIn, nodeCount, liveNodes);
+	}
+
+
+	/**
+	 * Returns the in-strength of the given node.
+	 */
+	public double dstS(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSIn[v];
+	}
+
+
+	/**
+	 * Returns the number of edges in the window.
+	 */
+	public int edgeCount()
+	{
+		return liveEdges;
+	}
+
+
+	/**
+	 * Returns an iterable over the edges in the window.
+	 */
+	public Iterable<Edge> edges()
+	{
+		int[] slots = new int[liveEdges];
+		int   count = 0;
+
+		for (int e = 0; e < edgeCount; ++e)
+			if (edgeHits[e] > 0)
+				slots[count++] = e;
+
+		return edgeList(slots);
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a destination.
+	 */
+	public Iterable<Edge> edgesIn(Node n)
+	{
+		int v = index(n);
+		return edgeList((v < 0) ? new int[0] : Arrays.copyOf(inList[v], inLen[v]));
+	}
+
+
+	/**
+	 * Returns an iterable over the edges with this node as a source.
+	 */
+	public Iterable<Edge> edgesOut(Node n)
+	{
+		int v = index(n);
+		return edgeList((v < 0) ? new int[0] : Arrays.copyOf(outList[v], outLen[v]));
+	}
+
+
+	/**
+	 * Exports the laid-out copy of the graph if it's still current, or else a copy of the graph as it stands
+	 * now.
+	 */
+	public boolean export(String path, String format)
+	{
+		if ((render != null) && (renderVersion == version))
+			return render.export(path, format);
+
+		return CsrGraph.of(this).export(path, format);
+	}
+
+
+	/**
+	 * Returns the given edge, or null if it isn't in the window.
+	 */
+	public Edge getEdge(Edge e)
+	{
+		int i = edgeIndex(e);
+		return (i < 0) ? null : edge(i);
+	}
+
+
+	/**
+	 * Returns the given node, or null if it isn't in the window.
+	 */
+	public Node getNode(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? null : node(v);
+	}
+
+
+	/**
+	 * Returns true if the given edge is in the window.
+	 */
+	public boolean hasEdge(Edge e)
+	{
+		return edgeIndex(e) >= 0;
+	}
+
+
+	/**
+	 * Returns true if the given node is in the window.
+	 */
+	public boolean hasNode(Node n)
+	{
+		return index(n) >= 0;
+	}
+
+
+	/**
+	 * Lays out a copy of the graph as it stands now, which is kept for {@link #export} until the graph changes.
+	 */
+	public void layout(VDictionary config)
+	{
+		dropRender();
+		render        = CsrGraph.of(this);
+		renderVersion = version;
+		render.layout(config);
+	}
+
+
+	/**
+	 * Returns a live view of the subgraph containing only meme-meme edges.
+	 */
+	public Graph memeGraph()
+	{
+		return FilteredGraph.memeGraph(this);
+	}
+
+
+	/**
+	 * Returns the number of nodes in the window.
+	 */
+	public int nodeCount()
+	{
+		return liveNodes;
+	}
+
+
+	/**
+	 * Returns an iterable over the nodes in the window.
+	 */
+	public Iterable<Node> nodes()
+	{
+		final int[] slots = new int[liveNodes];
+		int         count = 0;
+
+		for (int v = 0; v < nodeCount; ++v)
+			if (nodeKOut[v] + nodeKIn[v] > 0)
+				slots[count++] = v;
+
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Iterator<Node>() {
+					int i = 0;
+
+					public boolean hasNext()
+					{
+						return i < slots.length;
+					}
+
+					public Node next()
+					{
+						if (i >= slots.length)
+							throw new NoSuchElementException();
+						return node(slots[i++]);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the number of source nodes in the graph.
+	 */
+	public int srcCount()
+	{
+		return srcCount;
+	}
+
+
+	/**
+	 * Returns the out-degrees of the nodes in the window, including zeros, in slot order.
+	 */
+	public int[] srcK()
+	{
+		return DegreeTable.select(nodeKOut, nodeKOut, nodeKIn, nodeCount, liveNodes);
+	}
+
+
+	/**
+	 * Returns the out-degree of the given node.
+	 */
+	public int srcK(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0 : nodeKOut[v];
+	}
+
+
+	/**
+	 * Returns the out-strengths of the nodes in the window, including zeros, in slot order.
+	 */
+	public double[] srcS()
+	{
+		return DegreeTable.select(nodeSOut, nodeKOut, nodeKIn, nodeCount, liveNodes);
+	}
+
+
+	/**
+	 * Returns the out-strength of the given node.
+	 */
+	public double srcS(Node n)
+	{
+		int v = index(n);
+		return (v < 0) ? 0.0 : nodeSOut[v];
+	}
+
+
+	/**
+	 * Returns a copy of the graph as it stands now, which is kept (along with the statistics computed on it)
+	 * until the next occurrence is added or expired.
+	 */
+	public CsrGraph csr()
+	{
+		CsrGraph copy = (CsrGraph) stats.get("csr");
+		if (copy == null)
+			copy = (CsrGraph) stats.put("csr", CsrGraph.of(this));
+
+		return copy;
+	}
+
+
+	/**
+	 * These statistics are computed on a copy of the graph as it stands now.
+	 */
+	public double statClustering() { return csr().statClustering(); }
+	public double statDiameter  () { return csr().statDiameter  (); }
+	public double statDstKPower () { return csr().statDstKPower (); }
+	public double statModularity() { return csr().statModularity(); }
+	public double statPathLength() { return csr().statPathLength(); }
+	public double statSrcKPower () { return csr().statSrcKPower (); }
+
+
+	/**
+	 * The power-law fits to the degree distributions are computed on the same copy.
+	 */
+	public PowerLaw statDstKFit() { return csr().statDstKFit(); }
+	public PowerLaw statSrcKFit() { return csr().statSrcKFit(); }
+
+
+	/**
+	 * Returns a live view of the trusted subset of the graph.
+	 */
+	public Graph trustedGraph()
+	{
+		return FilteredGraph.trustedGraph(this);
+	}
+
+
+	/**
+	 * Returns the number of changes that have been made to the graph.
+	 */
+	public int version()
+	{
+		return version;
+	}
+
+
+	/**
+	 * Returns the total weight of the given edge within the window.
+	 * Returns zero if there is no such edge.
+	 */
+	public double weight(Edge e)
+	{
+		int i = edgeIndex(e);
+		return (i < 0) ? 0.0 : edgeAttr.weight(i);
+	}
+}
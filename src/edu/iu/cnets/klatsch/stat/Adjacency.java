@@ -0,0 +1,172 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.Arrays;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This is a bare adjacency structure over the dense node indices of a {@link CsrGraph}: the neighbors of node
+ * v are target[offset[v]] through target[offset[v + 1] - 1], in increasing order, and weight holds the
+ * weight of the edge to each one.
+ *
+ * The statistics work on these arrays rather than through the graph's accessors, so that their inner loops
+ * are nothing but array reads, and so that several threads can share one without touching the graph.
+ */
+public class Adjacency
+{
+	/** the number of nodes */
+	int      n;
+
+	/** the first position in {@link #target} for each node, with a sentinel at the end */
+	int[]    offset;
+
+	/** the neighbors of each node */
+	int[]    target;
+
+	/** the weight of the edge to each neighbor */
+	double[] weight;
+
+
+	/**
+	 * Wraps the given arrays.
+	 */
+	Adjacency(int n, int[] offset, int[] target, double[] weight)
+	{
+		this.n      = n;
+		this.offset = offset;
+		this.target = target;
+		this.weight = weight;
+	}
+
+
+	/**
+	 * Returns the outgoing adjacency of the given graph, weighted by edge weight.
+	 */
+	public static Adjacency out(CsrGraph g)
+	{
+		return out(g, false);
+	}
+
+
+	/**
+	 * Returns the outgoing adjacency of the given graph, weighted by edge trust if trust is true and by edge
+	 * weight otherwise.
+	 */
+	public static Adjacency out(CsrGraph g, boolean trust)
+	{
+		int      n      = g.nodeCount();
+		int      m      = g.edgeCount();
+		int[]    offset = new int[n + 1];
+		int[]    target = new int[m];
+		double[] weight = new double[m];
+
+		g.compact();
+		for (int v = 0; v < n; ++v)
+			offset[v + 1] = g.outEnd(v);
+		for (int e = 0; e < m; ++e) {
+			target[e] = g.edgeDst(e);
+			weight[e] = trust ? g.edgeTrust(e) : g.edgeWeight(e);
+		}
+
+		return new Adjacency(n, offset, target, weight);
+	}
+
+
+	/**
+	 * Returns the incoming adjacency of the given graph, weighted by edge weight.
+	 */
+	public static Adjacency in(CsrGraph g)
+	{
+		return in(g, false);
+	}
+
+
+	/**
+	 * Returns the incoming adjacency of the given graph, weighted by edge trust if trust is true and by edge
+	 * weight otherwise.
+	 */
+	public static Adjacency in(CsrGraph g, boolean trust)
+	{
+		int      n      = g.nodeCount();
+		int      m      = g.edgeCount();
+		int[]    offset = new int[n + 1];
+		int[]    target = new int[m];
+		double[] weight = new double[m];
+
+		g.compact();
+		for (int v = 0; v < n; ++v)
+			offset[v + 1] = g.inEnd(v);
+		for (int i = 0; i < m; ++i) {
+			int e = g.inEdge(i);
+			target[i] = g.edgeSrc(e);
+			weight[i] = trust ? g.edgeTrust(e) : g.edgeWeight(e);
+		}
+
+		return new Adjacency(n, offset, target, weight);
+	}
+
+
+	/**
+	 * Returns the undirected adjacency of the given graph: each node's neighbors are the distinct nodes it
+	 * has an edge to or from, not counting itself, and the weight to each is the total weight of the edges
+	 * between them in both directions.
+	 */
+	public static Adjacency undirected(CsrGraph g)
+	{
+		Adjacency out = out(g);
+		Adjacency in  = in(g);
+		int       n   = out.n;
+
+		int[]     offset = new int[n + 1];
+		int[]     target = new int[out.target.length + in.target.length];
+		double[]  weight = new double[target.length];
+		int       pos    = 0;
+
+		// both lists are sorted, so a merge gives the distinct neighbors in order
+		for (int v = 0; v < n; ++v) {
+			int i = out.offset[v], iEnd = out.offset[v + 1];
+			int j = in .offset[v], jEnd = in .offset[v + 1];
+
+			while ((i < iEnd) || (j < jEnd)) {
+				int    w;
+				double x;
+
+				if ((j >= jEnd) || ((i < iEnd) && (out.target[i] < in.target[j]))) {
+					w = out.target[i];
+					x = out.weight[i++];
+				} else if ((i >= iEnd) || (in.target[j] < out.target[i])) {
+					w = in.target[j];
+					x = in.weight[j++];
+				} else {
+					w = out.target[i];
+					x = out.weight[i++] + in.weight[j++];
+				}
+
+				if (w != v) {
+					target[pos] = w;
+					weight[pos] = x;
+					++pos;
+				}
+			}
+
+			offset[v + 1] = pos;
+		}
+
+		return new Adjacency(n, offset, Arrays.copyOf(target, pos), Arrays.copyOf(weight, pos));
+	}
+
+
+	/** Returns the number of nodes. */
+	public int nodeCount()
+	{
+		return n;
+	}
+
+
+	/** Returns the number of neighbors of node v. */
+	public int degree(int v)
+	{
+		return offset[v + 1] - offset[v];
+	}
+}
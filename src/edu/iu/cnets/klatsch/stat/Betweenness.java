@@ -0,0 +1,234 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.iu.cnets.klatsch.model.NodeIndex;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class computes the betweenness centrality of every node of a directed graph with Brandes' algorithm,
+ * running a breadth-first search from each source on several threads.
+ *
+ * Like {@link GraphDistance}, it follows Gephi's definitions for directed graphs: paths follow the direction
+ * of the edges and ignore their weights, and a node's betweenness is the sum over ordered pairs of other
+ * nodes of the fraction of shortest paths between them that pass through it.
+ *
+ * On large graphs, the searches can be limited to a random sample of source nodes (pivots), scaling the
+ * result up by n / k for k pivots, which gives an unbiased estimate (Brandes and Pich, 2007).  The number of
+ * pivots can be given outright or derived from an error target with {@link #pivots}.
+ *
+ * Each thread keeps its own totals, which are added together at the end, so the results only depend on the
+ * number of threads up to rounding.  Every thread needs five arrays the size of the graph.
+ */
+public class Betweenness
+{
+	/** the betweenness of each node */
+	double[]  score;
+
+	/** the number of sources searched from */
+	int       pivots;
+
+	/** the graph's numbering of the nodes */
+	NodeIndex nodes;
+
+
+	/**
+	 * Computes the exact betweenness of the nodes of the given graph, using one thread per processor.
+	 */
+	public Betweenness(CsrGraph g)
+	{
+		this(g, g.nodeCount(), 0L, Parallel.threads());
+	}
+
+
+	/**
+	 * Estimates the betweenness of the nodes of the given graph by searching from the given number of pivots,
+	 * chosen at random with the given seed, using the given number of threads.  If there are at least as many
+	 * pivots as nodes, every node is a source and the result is exact.
+	 */
+	public Betweenness(CsrGraph g, int pivots, long seed, int threads)
+	{
+		final Adjacency out = Adjacency.out(g);
+		final int       n   = out.n;
+
+		nodes = g.nodeIndex();
+
+		// a partial Fisher-Yates shuffle picks the pivots without replacement
+		int[] source = new int[n];
+		for (int v = 0; v < n; ++v)
+			source[v] = v;
+
+		this.pivots = Math.max(0, Math.min(pivots, n));
+		if (this.pivots < n) {
+			Random random = new Random(seed);
+			for (int i = 0; i < this.pivots; ++i) {
+				int j = i + random.nextInt(n - i);
+				int t = source[i];
+				source[i] = source[j];
+				source[j] = t;
+			}
+			source = Arrays.copyOf(source, this.pivots);
+		}
+
+		List<Search> workers = new ArrayList<Search>();
+		for (int i = 0; i < Math.max(1, Math.min(threads, this.pivots)); ++i)
+			workers.add(new Search(out, source));
+		Parallel.run(this.pivots, 16, workers);
+
+		score = new double[n];
+		for (Search search : workers)
+			for (int v = 0; v < n; ++v)
+				score[v] += search.score[v];
+
+		if ((this.pivots > 0) && (this.pivots < n)) {
+			double scale = (double) n / this.pivots;
+			for (int v = 0; v < n; ++v)
+				score[v] *= scale;
+		}
+	}
+
+
+	/**
+	 * Returns the number of pivots needed for every node's estimate to be within the given error of its
+	 * betweenness, with the given probability.  The error is relative to n(n - 2), the most betweenness any
+	 * node can have in a graph with n nodes.  Each pivot's contribution to a node lies between zero and
+	 * n - 2, so Hoeffding's inequality, with a union bound over the nodes, calls for ln(2n / (1 - p)) / 2e^2
+	 * pivots.
+	 *
+	 * @param n           the number of nodes
+	 * @param error       the largest acceptable error, between zero and one
+	 * @param confidence  the probability that every estimate is within the error, between zero and one
+	 */
+	public static int pivots(int n, double error, double confidence)
+	{
+		double k = Math.log(2.0 * n / (1.0 - confidence)) / (2.0 * error * error);
+		return (int) Math.min(n, Math.ceil(k));
+	}
+
+
+	/**
+	 * The per-thread state of the searches, and the betweenness accumulated from the sources that thread has
+	 * searched from.
+	 */
+	static class Search extends Parallel.Worker
+	{
+		/** the graph */
+		Adjacency out;
+
+		/** the sources to search from */
+		int[]     source;
+
+		/** the distance to each node from the current source, or -1 if it hasn't been reached */
+		int[]     distance;
+
+		/** the number of shortest paths to each node from the current source */
+		double[]  paths;
+
+		/** the dependency of the current source on each node */
+		double[]  dependency;
+
+		/** the nodes reached from the current source, in the order in which they were reached */
+		int[]     order;
+
+		/** the betweenness accumulated so far */
+		double[]  score;
+
+
+		Search(Adjacency out, int[] source)
+		{
+			this.out        = out;
+			this.source     = source;
+			this.distance   = new int   [out.n];
+			this.paths      = new double[out.n];
+			this.dependency = new double[out.n];
+			this.order      = new int   [out.n];
+			this.score      = new double[out.n];
+
+			Arrays.fill(distance, -1);
+		}
+
+
+		protected void process(int begin, int end)
+		{
+			for (int i = begin; i < end; ++i)
+				search(source[i]);
+		}
+
+
+		/**
+		 * Adds the dependencies of the given source to the running totals.
+		 */
+		void search(int s)
+		{
+			int[] offset = out.offset;
+			int[] target = out.target;
+
+			// the order array doubles as the queue for the search
+			int head = 0;
+			int tail = 0;
+
+			distance[s]     = 0;
+			paths[s]        = 1.0;
+			order[tail++]   = s;
+
+			while (head < tail) {
+				int v = order[head++];
+				for (int i = offset[v]; i < offset[v + 1]; ++i) {
+					int w = target[i];
+					if (distance[w] < 0) {
+						distance[w]   = distance[v] + 1;
+						order[tail++] = w;
+					}
+					if (distance[w] == distance[v] + 1)
+						paths[w] += paths[v];
+				}
+			}
+
+			// in reverse order, each node's successors on shortest paths are finished before it is
+			for (int j = tail - 1; j >= 0; --j) {
+				int    v     = order[j];
+				double total = 0.0;
+
+				for (int i = offset[v]; i < offset[v + 1]; ++i) {
+					int w = target[i];
+					if (distance[w] == distance[v] + 1)
+						total += (1.0 + dependency[w]) / paths[w];
+				}
+
+				dependency[v] = paths[v] * total;
+				if (v != s)
+					score[v] += dependency[v];
+			}
+
+			// reset only what the search touched
+			for (int j = 0; j < tail; ++j) {
+				int v = order[j];
+				distance  [v] = -1;
+				paths     [v] = 0.0;
+				dependency[v] = 0.0;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the betweenness of each node.
+	 */
+	public NodeScores getScores()
+	{
+		return new NodeScores(nodes, score.clone());
+	}
+
+
+	/**
+	 * Returns the number of sources that were searched from.
+	 */
+	public int getPivots()
+	{
+		return pivots;
+	}
+}
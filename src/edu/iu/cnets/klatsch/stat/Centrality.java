@@ -0,0 +1,379 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.Collections;
+
+import edu.iu.cnets.klatsch.model.NodeIndex;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class ranks the nodes of a directed graph by PageRank, by hub and authority scores (HITS), and by
+ * eigenvector centrality, each computed by power iteration on several threads.
+ *
+ * The edges are weighted either by their weight or by their trust.  Edges whose weight comes out zero or
+ * negative are left out, since none of the three is defined for them.  In every pass, each node pulls its new
+ * score from its neighbors' old ones, so a thread only ever writes to its own nodes.  The sums that decide
+ * when to stop are kept per chunk of nodes and added up in order at the end of the pass, so the results don't
+ * depend on the number of threads.
+ *
+ * Each computation stops once the scores change by less than the tolerance in total (the sum of the absolute
+ * changes over all the nodes), or after the given number of iterations, whichever comes first.
+ */
+public class Centrality
+{
+	/** the number of nodes handed to a thread at a time, which is also the span of each partial sum */
+	static final int           CHUNK      = 4096;
+
+	/** the default limits on the iteration */
+	public static final double TOLERANCE  = 1e-8;
+	public static final int    ITERATIONS = 200;
+
+	/** the default damping factor for PageRank */
+	public static final double DAMPING    = 0.85;
+
+	/** the graph's edges, as seen from their targets and from their sources */
+	Adjacency in;
+	Adjacency out;
+
+	/** the total weight of each node's out-edges */
+	double[]  strength;
+
+	/** the number of nodes, and the graph's numbering of them */
+	int       n;
+	NodeIndex nodes;
+
+	/** the number of threads to use */
+	int       threads;
+
+	/** how the last computation went */
+	int       iterations;
+	boolean   converged;
+
+	/** the arrays the current pass reads and writes, which are set before each pass */
+	double[]  x;
+	double[]  y;
+	double[]  z;
+	double[]  w;
+	Adjacency adjacency;
+	boolean   self;
+	double    scale;
+
+	/** the constant part of each node's PageRank in the current pass, and the damping factor */
+	double    base;
+	double    damping;
+
+	/** the per-chunk sums from the current pass */
+	double[]  sum;
+	double[]  dangling;
+
+
+	/**
+	 * Prepares to rank the nodes of the given graph, with edges weighted by weight, using one thread per
+	 * processor.
+	 */
+	public Centrality(CsrGraph g)
+	{
+		this(g, false, Parallel.threads());
+	}
+
+
+	/**
+	 * Prepares to rank the nodes of the given graph, with edges weighted by trust if trust is true and by
+	 * weight otherwise, using the given number of threads.
+	 */
+	public Centrality(CsrGraph g, boolean trust, int threads)
+	{
+		in           = positive(Adjacency.in (g, trust));
+		out          = positive(Adjacency.out(g, trust));
+		n            = in.n;
+		this.threads = Math.max(1, threads);
+
+		nodes    = g.nodeIndex();
+		strength = new double[n];
+		for (int v = 0; v < n; ++v)
+			for (int i = out.offset[v]; i < out.offset[v + 1]; ++i)
+				strength[v] += out.weight[i];
+
+		sum      = new double[(n + CHUNK - 1) / CHUNK];
+		dangling = new double[sum.length];
+	}
+
+
+	/**
+	 * Returns a copy of the given adjacency without the entries whose weight isn't positive.
+	 */
+	static Adjacency positive(Adjacency a)
+	{
+		int[]    offset = new int   [a.n + 1];
+		int[]    target = new int   [a.target.length];
+		double[] weight = new double[a.target.length];
+		int      pos    = 0;
+
+		for (int v = 0; v < a.n; ++v) {
+			for (int i = a.offset[v]; i < a.offset[v + 1]; ++i)
+				if (a.weight[i] > 0.0) {
+					target[pos] = a.target[i];
+					weight[pos] = a.weight[i];
+					++pos;
+				}
+			offset[v + 1] = pos;
+		}
+
+		return (pos == target.length) ? a : new Adjacency(a.n, offset, target, weight);
+	}
+
+
+	/**
+	 * Returns the PageRank of each node.  A node's rank is split among its out-edges in proportion to their
+	 * weights, and the rank of nodes without out-edges is spread evenly over the whole graph.  The ranks add
+	 * up to one.
+	 *
+	 * @param damping        the probability of following an edge rather than jumping to a random node
+	 * @param tolerance      the total change in rank at which to stop
+	 * @param maxIterations  the most iterations to run
+	 */
+	public NodeScores pagerank(double damping, double tolerance, int maxIterations)
+	{
+		double[] rank      = new double[n];
+		double[] next      = new double[n];
+		double[] share     = new double[n];
+		double[] nextShare = new double[n];
+		double   lost      = 0.0;
+
+		for (int v = 0; v < n; ++v) {
+			rank[v] = 1.0 / n;
+			if (strength[v] > 0.0)
+				share[v] = rank[v] / strength[v];
+			else
+				lost += rank[v];
+		}
+
+		this.damping = damping;
+		iterations   = 0;
+		converged    = false;
+
+		while ((iterations < maxIterations) && !converged) {
+			x    = rank;
+			y    = next;
+			z    = share;
+			w    = nextShare;
+			base = ((1.0 - damping) + damping * lost) / n;
+			run(new Parallel.Worker() {
+				protected void process(int begin, int end)
+				{
+					rank(begin, end);
+				}
+			});
+
+			next      = rank;
+			rank      = y;
+			nextShare = share;
+			share     = w;
+			lost      = total(dangling);
+
+			++iterations;
+			converged = (total(sum) < tolerance);
+		}
+
+		return new NodeScores(nodes, rank);
+	}
+
+
+	/**
+	 * Computes the new PageRank of nodes begin through end - 1.
+	 */
+	void rank(int begin, int end)
+	{
+		double change = 0.0;
+		double lost   = 0.0;
+
+		for (int v = begin; v < end; ++v) {
+			double total = 0.0;
+			for (int i = in.offset[v]; i < in.offset[v + 1]; ++i)
+				total += in.weight[i] * z[in.target[i]];
+
+			y[v]    = base + damping * total;
+			change += Math.abs(y[v] - x[v]);
+
+			if (strength[v] > 0.0)
+				w[v] = y[v] / strength[v];
+			else
+				lost += y[v];
+		}
+
+		sum     [begin / CHUNK] = change;
+		dangling[begin / CHUNK] = lost;
+	}
+
+
+	/**
+	 * Returns the hub and authority scores of each node, in that order.  A node's authority is the total
+	 * weight of the edges to it from good hubs, and its hub score is the total weight of the edges from it
+	 * to good authorities.  Both are scaled to unit length.
+	 *
+	 * @param tolerance      the total change in the scores at which to stop
+	 * @param maxIterations  the most iterations to run
+	 */
+	public NodeScores[] hits(double tolerance, int maxIterations)
+	{
+		double[] hub      = new double[n];
+		double[] auth     = new double[n];
+		double[] nextHub  = new double[n];
+		double[] nextAuth = new double[n];
+
+		for (int v = 0; v < n; ++v)
+			hub[v] = 1.0 / Math.sqrt(n);
+
+		iterations = 0;
+		converged  = false;
+
+		while ((iterations < maxIterations) && !converged) {
+			double authNorm = pull(in,  false, hub,      nextAuth);
+			double hubNorm  = pull(out, false, nextAuth, nextHub);
+			double change   = rescale(nextAuth, authNorm, auth) + rescale(nextHub, hubNorm, hub);
+
+			double[] t;
+			t = auth;  auth = nextAuth;  nextAuth = t;
+			t = hub;   hub  = nextHub;   nextHub  = t;
+
+			++iterations;
+			converged = (change < tolerance);
+		}
+
+		return new NodeScores[] { new NodeScores(nodes, hub), new NodeScores(nodes, auth) };
+	}
+
+
+	/**
+	 * Returns the eigenvector centrality of each node: the principal eigenvector of the transposed weighted
+	 * adjacency matrix, so that a node is central if the nodes with edges to it are, scaled to unit length.
+	 * Each iteration also adds the old scores to the new ones (i.e., it iterates with A + I rather than A),
+	 * which leaves the eigenvector alone but keeps the iteration from cycling on periodic graphs.
+	 *
+	 * @param tolerance      the total change in the scores at which to stop
+	 * @param maxIterations  the most iterations to run
+	 */
+	public NodeScores eigenvector(double tolerance, int maxIterations)
+	{
+		double[] score = new double[n];
+		double[] next  = new double[n];
+
+		for (int v = 0; v < n; ++v)
+			score[v] = 1.0 / Math.sqrt(n);
+
+		iterations = 0;
+		converged  = false;
+
+		while ((iterations < maxIterations) && !converged) {
+			double norm   = pull(in, true, score, next);
+			double change = rescale(next, norm, score);
+
+			double[] t = score;
+			score = next;
+			next  = t;
+
+			++iterations;
+			converged = (change < tolerance);
+		}
+
+		return new NodeScores(nodes, score);
+	}
+
+
+	/**
+	 * Sets each entry of to to the weighted sum of the entries of from over the node's neighbors in the given
+	 * adjacency, plus its own entry of from if loops is true, and returns the length of the result.
+	 */
+	double pull(Adjacency a, boolean loops, double[] from, double[] to)
+	{
+		adjacency = a;
+		self      = loops;
+		x         = from;
+		y         = to;
+		run(new Parallel.Worker() {
+			protected void process(int begin, int end)
+			{
+				double squares = 0.0;
+
+				for (int v = begin; v < end; ++v) {
+					double total = self ? x[v] : 0.0;
+					for (int i = adjacency.offset[v]; i < adjacency.offset[v + 1]; ++i)
+						total += adjacency.weight[i] * x[adjacency.target[i]];
+
+					y[v]     = total;
+					squares += total * total;
+				}
+
+				sum[begin / CHUNK] = squares;
+			}
+		});
+
+		return Math.sqrt(total(sum));
+	}
+
+
+	/**
+	 * Divides each entry of scores by the given length (or zeroes it if the length is zero), and returns the
+	 * total change from the entries of old.
+	 */
+	double rescale(double[] scores, double length, double[] old)
+	{
+		scale = (length > 0.0) ? 1.0 / length : 0.0;
+		x     = old;
+		y     = scores;
+		run(new Parallel.Worker() {
+			protected void process(int begin, int end)
+			{
+				double change = 0.0;
+
+				for (int v = begin; v < end; ++v) {
+					y[v]   *= scale;
+					change += Math.abs(y[v] - x[v]);
+				}
+
+				sum[begin / CHUNK] = change;
+			}
+		});
+
+		return total(sum);
+	}
+
+
+	/**
+	 * Runs a pass over all the nodes.  The worker keeps nothing of its own, so every thread can share it.
+	 */
+	void run(Parallel.Worker worker)
+	{
+		Parallel.run(n, CHUNK, Collections.nCopies(threads, worker));
+	}
+
+
+	/**
+	 * Returns the sum of the per-chunk sums, in order.
+	 */
+	static double total(double[] partial)
+	{
+		double total = 0.0;
+		for (double p : partial)
+			total += p;
+		return total;
+	}
+
+
+	/**
+	 * Returns the number of iterations the last computation ran.
+	 */
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+
+	/**
+	 * Returns true if the last computation reached its tolerance before running out of iterations.
+	 */
+	public boolean isConverged()
+	{
+		return converged;
+	}
+}
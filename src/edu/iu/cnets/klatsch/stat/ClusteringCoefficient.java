@@ -0,0 +1,120 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class computes the average clustering coefficient of a directed graph by counting triangles on
+ * several threads.
+ *
+ * It follows the definition used by Gephi's ClusteringCoefficient statistic for directed graphs, so the two
+ * give the same answer: a node's neighborhood is the set of distinct nodes it has an edge to or from, and its
+ * coefficient is half the number of directed edges among its neighbors, divided by k(k - 1) for a
+ * neighborhood of size k.  Nodes with fewer than two neighbors contribute zero, but still count toward the
+ * average.  Like Gephi, the coefficients are kept in single precision and summed in node order.
+ *
+ * Each node's triangles are counted by marking its neighbors and then walking the out-edges of each of them
+ * looking for marks, so every thread needs a scratch array the size of the graph.
+ */
+public class ClusteringCoefficient
+{
+	/** the clustering coefficient of each node, or -1 for a node with fewer than two neighbors */
+	float[] coefficient;
+
+	/** the average over all nodes */
+	double  average;
+
+
+	/**
+	 * Computes the clustering coefficients of the given graph, using one thread per processor.
+	 */
+	public ClusteringCoefficient(CsrGraph g)
+	{
+		this(g, Parallel.threads());
+	}
+
+
+	/**
+	 * Computes the clustering coefficients of the given graph, using the given number of threads.
+	 */
+	public ClusteringCoefficient(CsrGraph g, int threads)
+	{
+		final Adjacency both = Adjacency.undirected(g);
+		final Adjacency out  = Adjacency.out(g);
+		final int       n    = both.n;
+
+		coefficient = new float[n];
+
+		List<Parallel.Worker> workers = new ArrayList<Parallel.Worker>();
+		for (int i = 0; i < threads; ++i)
+			workers.add(new Parallel.Worker() {
+				int[] mark = new int[n];
+
+				protected void process(int begin, int end)
+				{
+					for (int v = begin; v < end; ++v)
+						coefficient[v] = node(both, out, mark, v);
+				}
+			});
+		Parallel.run(n, 1024, workers);
+
+		float total = 0;
+		for (int v = 0; v < n; ++v)
+			if (coefficient[v] > -1)
+				total += coefficient[v];
+
+		average = total / n;
+	}
+
+
+	/**
+	 * Returns the clustering coefficient of node v, or -1 if it has fewer than two neighbors.  The mark array
+	 * must not already hold v + 1 anywhere.
+	 */
+	static float node(Adjacency both, Adjacency out, int[] mark, int v)
+	{
+		int begin = both.offset[v];
+		int end   = both.offset[v + 1];
+		int k     = end - begin;
+
+		if (k < 2)
+			return -1.0f;
+
+		int stamp = v + 1;
+		for (int i = begin; i < end; ++i)
+			mark[both.target[i]] = stamp;
+
+		long edges = 0;
+		for (int i = begin; i < end; ++i) {
+			int a = both.target[i];
+			for (int j = out.offset[a]; j < out.offset[a + 1]; ++j) {
+				int b = out.target[j];
+				if ((mark[b] == stamp) && (b != a))
+					++edges;
+			}
+		}
+
+		return (edges / 2.0f) / ((float) k * (k - 1));
+	}
+
+
+	/**
+	 * Returns the average clustering coefficient over all nodes.
+	 */
+	public double getAverageClusteringCoefficient()
+	{
+		return average;
+	}
+
+
+	/**
+	 * Returns the clustering coefficient of node v, or -1 if it has fewer than two neighbors.
+	 */
+	public double getCoefficient(int v)
+	{
+		return coefficient[v];
+	}
+}
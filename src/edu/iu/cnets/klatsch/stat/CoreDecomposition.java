@@ -0,0 +1,110 @@
+package edu.iu.cnets.klatsch.stat;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class finds the core number of every node of a graph: the largest k such that the node belongs to
+ * the k-core, the largest subgraph in which every node has at least k neighbors.  The largest core number
+ * is the degeneracy of the graph.
+ *
+ * Edge directions are ignored, as they are for communities: a node's neighbors are the distinct nodes it has
+ * an edge to or from, not counting itself.  The cores are peeled with the bucket algorithm of Batagelj and
+ * Zaversnik, which keeps the nodes sorted by their remaining degree in a single array, and so takes time
+ * linear in the size of the graph.
+ */
+public class CoreDecomposition
+{
+	/** the core number of each node */
+	int[] core;
+
+	/** the largest core number */
+	int   degeneracy;
+
+
+	/**
+	 * Finds the core numbers of the nodes of the given graph.
+	 */
+	public CoreDecomposition(CsrGraph g)
+	{
+		this(Adjacency.undirected(g));
+	}
+
+
+	/**
+	 * Finds the core numbers of the nodes of the given adjacency.
+	 */
+	CoreDecomposition(Adjacency a)
+	{
+		int n   = a.n;
+		int max = 0;
+
+		core = new int[n];
+		for (int v = 0; v < n; ++v) {
+			core[v] = a.degree(v);
+			max     = Math.max(max, core[v]);
+		}
+
+		// bucket sort the nodes by degree: start[d] is where the nodes of degree d begin in order
+		int[] start = new int[max + 2];
+		int[] order = new int[n];
+		int[] pos   = new int[n];
+
+		for (int v = 0; v < n; ++v)
+			++start[core[v] + 1];
+		for (int d = 0; d <= max; ++d)
+			start[d + 1] += start[d];
+		for (int v = 0; v < n; ++v) {
+			pos[v]        = start[core[v]]++;
+			order[pos[v]] = v;
+		}
+		for (int d = max; d > 0; --d)
+			start[d] = start[d - 1];
+		start[0] = 0;
+
+		// peel the nodes in order of degree, moving each neighbor with a higher degree down a bucket by
+		// swapping it with the first node of its bucket and moving the bucket's start past it
+		for (int i = 0; i < n; ++i) {
+			int v = order[i];
+
+			for (int j = a.offset[v]; j < a.offset[v + 1]; ++j) {
+				int w = a.target[j];
+				if (core[w] > core[v]) {
+					int dw    = core[w];
+					int first = start[dw];
+					int u     = order[first];
+
+					if (u != w) {
+						order[pos[w]] = u;
+						pos[u]        = pos[w];
+						order[first]  = w;
+						pos[w]        = first;
+					}
+
+					++start[dw];
+					--core[w];
+				}
+			}
+
+			degeneracy = Math.max(degeneracy, core[v]);
+		}
+	}
+
+
+	/**
+	 * Returns the core number of each node, in index order.
+	 */
+	public int[] getCores()
+	{
+		return core.clone();
+	}
+
+
+	/**
+	 * Returns the largest core number, or zero for a graph without edges.
+	 */
+	public int getDegeneracy()
+	{
+		return degeneracy;
+	}
+}
@@ -0,0 +1,119 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * This class counts the number of nodes with each in-degree and out-degree, in one pass over a graph's
+ * degree arrays on several threads.  Each thread fills histograms of its own, which are added together at
+ * the end.
+ */
+public class DegreeHistogram
+{
+	/** the number of nodes with each out-degree and in-degree */
+	long[] out;
+	long[] in;
+
+
+	/**
+	 * Counts the first count entries of the given degree arrays, using one thread per processor.
+	 */
+	public DegreeHistogram(int[] kOut, int[] kIn, int count)
+	{
+		this(kOut, kIn, count, Parallel.threads());
+	}
+
+
+	/**
+	 * Counts the first count entries of the given degree arrays, using the given number of threads.
+	 */
+	public DegreeHistogram(int[] kOut, int[] kIn, int count, int threads)
+	{
+		List<Counter> workers = new ArrayList<Counter>();
+		for (int i = 0; i < Math.max(1, threads); ++i)
+			workers.add(new Counter(kOut, kIn));
+		Parallel.run(count, 65536, workers);
+
+		out = new long[1];
+		in  = new long[1];
+		for (Counter counter : workers) {
+			out = add(out, counter.out);
+			in  = add(in,  counter.in);
+		}
+	}
+
+
+	/**
+	 * The per-thread part of the count.
+	 */
+	static class Counter extends Parallel.Worker
+	{
+		/** the degree arrays */
+		int[]  kOut;
+		int[]  kIn;
+
+		/** this thread's histograms, which grow to fit the largest degree seen */
+		long[] out = new long[64];
+		long[] in  = new long[64];
+
+
+		Counter(int[] kOut, int[] kIn)
+		{
+			this.kOut = kOut;
+			this.kIn  = kIn;
+		}
+
+
+		protected void process(int begin, int end)
+		{
+			for (int v = begin; v < end; ++v) {
+				int a = kOut[v];
+				int b = kIn [v];
+
+				if (a >= out.length)  out = Arrays.copyOf(out, Math.max(a + 1, out.length * 2));
+				if (b >= in .length)  in  = Arrays.copyOf(in,  Math.max(b + 1, in .length * 2));
+
+				++out[a];
+				++in [b];
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the sum of two histograms, reusing the first if it's long enough.
+	 */
+	static long[] add(long[] sum, long[] h)
+	{
+		int last = h.length - 1;
+		while ((last > 0) && (h[last] == 0))
+			--last;
+
+		if (last >= sum.length)
+			sum = Arrays.copyOf(sum, last + 1);
+		for (int k = 0; k <= last; ++k)
+			sum[k] += h[k];
+
+		return sum;
+	}
+
+
+	/**
+	 * Returns the number of nodes with each out-degree, up to the largest.
+	 */
+	public long[] getOut()
+	{
+		return out.clone();
+	}
+
+
+	/**
+	 * Returns the number of nodes with each in-degree, up to the largest.
+	 */
+	public long[] getIn()
+	{
+		return in.clone();
+	}
+}
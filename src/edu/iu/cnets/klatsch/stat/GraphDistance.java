@@ -0,0 +1,172 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class computes the diameter and average shortest path length of a directed graph, by breadth-first
+ * search from every node on several threads.
+ *
+ * It follows the definitions used by Gephi's GraphDistance statistic for directed graphs, so the two give
+ * the same answer: distances follow the direction of the edges and ignore their weights, the diameter is the
+ * longest finite distance between two nodes, and the average path length is taken over every ordered pair
+ * of distinct nodes with a path between them.
+ *
+ * The searches run 64 sources at a time, with one bit per source in each node's word (the "multi-source BFS"
+ * technique).  One sweep over the frontier advances all 64 searches by a level, which spares the 63 passes
+ * over the same edges that separate searches would make.  Each thread runs its own batches of sources, and
+ * needs three long arrays the size of the graph.
+ */
+public class GraphDistance
+{
+	/** the longest finite distance */
+	int    diameter;
+
+	/** the average finite distance between distinct nodes */
+	double pathLength;
+
+
+	/**
+	 * Computes the distances in the given graph, using one thread per processor.
+	 */
+	public GraphDistance(CsrGraph g)
+	{
+		this(g, Parallel.threads());
+	}
+
+
+	/**
+	 * Computes the distances in the given graph, using the given number of threads.
+	 */
+	public GraphDistance(CsrGraph g, int threads)
+	{
+		final Adjacency out     = Adjacency.out(g);
+		final int       n       = out.n;
+		final int       batches = (n + 63) / 64;
+
+		List<Search> workers = new ArrayList<Search>();
+		for (int i = 0; i < Math.max(1, Math.min(threads, batches)); ++i)
+			workers.add(new Search(out));
+		Parallel.run(batches, 1, workers);
+
+		long pairs = 0;
+		long total = 0;
+		for (Search search : workers) {
+			diameter  = Math.max(diameter, search.diameter);
+			pairs    += search.pairs;
+			total    += search.total;
+		}
+
+		pathLength = (double) total / pairs;
+	}
+
+
+	/**
+	 * The per-thread state of the search, and the running totals for the batches that thread has done.
+	 */
+	static class Search extends Parallel.Worker
+	{
+		/** the graph */
+		Adjacency out;
+
+		/** the sources that have reached each node */
+		long[]    seen;
+
+		/** the sources whose frontier includes each node */
+		long[]    visit;
+
+		/** the sources whose next frontier includes each node */
+		long[]    next;
+
+		/** the longest distance found so far */
+		int       diameter;
+
+		/** the number of (source, destination) pairs reached so far, and the sum of their distances */
+		long      pairs;
+		long      total;
+
+
+		Search(Adjacency out)
+		{
+			this.out   = out;
+			this.seen  = new long[out.n];
+			this.visit = new long[out.n];
+			this.next  = new long[out.n];
+		}
+
+
+		protected void process(int begin, int end)
+		{
+			for (int batch = begin; batch < end; ++batch)
+				search(batch * 64, Math.min(batch * 64 + 64, out.n));
+		}
+
+
+		/**
+		 * Runs the searches from sources first through last - 1, which must be at most 64 of them.
+		 */
+		void search(int first, int last)
+		{
+			int   n      = out.n;
+			int[] offset = out.offset;
+			int[] target = out.target;
+
+			Arrays.fill(seen,  0L);
+			Arrays.fill(visit, 0L);
+			for (int s = first; s < last; ++s) {
+				seen [s] = 1L << (s - first);
+				visit[s] = seen[s];
+			}
+
+			for (int level = 1; ; ++level) {
+				for (int v = 0; v < n; ++v) {
+					long bits = visit[v];
+					if (bits != 0)
+						for (int i = offset[v]; i < offset[v + 1]; ++i)
+							next[target[i]] |= bits;
+				}
+
+				boolean found = false;
+				for (int v = 0; v < n; ++v) {
+					long fresh = next[v] & ~seen[v];
+					next [v] = 0L;
+					visit[v] = fresh;
+
+					if (fresh != 0) {
+						int count = Long.bitCount(fresh);
+						seen[v] |= fresh;
+						pairs   += count;
+						total   += (long) count * level;
+						found    = true;
+					}
+				}
+
+				if (!found)
+					break;
+				diameter = Math.max(diameter, level);
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the longest finite distance between two nodes.
+	 */
+	public double getDiameter()
+	{
+		return diameter;
+	}
+
+
+	/**
+	 * Returns the average distance between pairs of distinct nodes with a path between them.
+	 */
+	public double getPathLength()
+	{
+		return pathLength;
+	}
+}
@@ -0,0 +1,312 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class approximates the neighborhood function of a directed graph with HyperANF (Boldi, Rosa, and
+ * Vigna, 2011), for graphs too large to search from every node.  From that it estimates the average path
+ * length and the effective diameter, and gives a lower bound on the diameter.
+ *
+ * Every node gets a HyperLogLog counter with 2^p registers, which starts out holding only the node itself.
+ * On each iteration, a node's counter takes the union of its own counter and those of the nodes it has
+ * edges to, so after t iterations it estimates the number of nodes within distance t.  The sum of the
+ * estimates over all nodes is N(t), the number of ordered pairs at distance t or less.  Once no counter
+ * changes, the number of iterations is taken as the diameter; since a counter can miss an increase, that
+ * may fall short of the true diameter, but never exceeds it.
+ *
+ * Each estimate has a relative standard error of about 1.04 / sqrt(2^p), so each step of the precision
+ * halves the error's square and doubles the memory, which is two sets of n * 2^p bytes.  The counters are
+ * kept in chunks of a fixed number of nodes, so that their total size isn't limited by the largest array.
+ */
+public class HyperAnf
+{
+	/** the base-two logarithm of the number of bytes of counters in a chunk */
+	static final int CHUNK_BITS = 26;
+
+	/** the number of registers per counter, and its base-two logarithm */
+	int      registers;
+	int      precision;
+
+	/** the base-two logarithm of the number of nodes in a chunk, and the mask for a node's place in its chunk */
+	int      shift;
+	int      mask;
+
+	/** the estimate of N(t), for t from zero up to the diameter */
+	double[] neighborhood;
+
+
+	/**
+	 * Runs HyperANF on the given graph with 2^precision registers per counter, using one thread per processor.
+	 */
+	public HyperAnf(CsrGraph g, int precision)
+	{
+		this(g, precision, Parallel.threads());
+	}
+
+
+	/**
+	 * Runs HyperANF on the given graph with 2^precision registers per counter, using the given number of
+	 * threads.
+	 */
+	public HyperAnf(CsrGraph g, int precision, int threads)
+	{
+		if ((precision < 4) || (precision > 16))
+			throw new IllegalArgumentException("precision must be between 4 and 16");
+
+		this.precision = precision;
+		this.registers = 1 << precision;
+
+		final Adjacency out = Adjacency.out(g);
+		final int       n   = out.n;
+		final int       m   = registers;
+
+		if (2L * n * m > Runtime.getRuntime().maxMemory())
+			throw new IllegalArgumentException("not enough memory for this precision; try a lower one");
+
+		this.shift = CHUNK_BITS - precision;
+		this.mask  = (1 << shift) - 1;
+
+		byte[][]       current  = counters(n);
+		byte[][]       next     = counters(n);
+		final double[] estimate = new double[n];
+		List<Double>   sums     = new ArrayList<Double>();
+
+		for (int v = 0; v < n; ++v) {
+			add(current[v >>> shift], (v & mask) * m, v);
+			estimate[v] = estimate(current[v >>> shift], (v & mask) * m, m);
+		}
+		sums.add(sum(estimate, 0.0));
+
+		List<Union> workers = new ArrayList<Union>();
+		for (int i = 0; i < Math.max(1, threads); ++i)
+			workers.add(new Union(out, m, shift, estimate));
+
+		while (true) {
+			for (Union worker : workers) {
+				worker.current = current;
+				worker.next    = next;
+				worker.changed = false;
+			}
+			Parallel.run(n, 1024, workers);
+
+			boolean changed = false;
+			for (Union worker : workers)
+				changed |= worker.changed;
+			if (!changed)
+				break;
+
+			// registers only grow, but the small-range correction can make an estimate dip as it switches over
+			sums.add(sum(estimate, sums.get(sums.size() - 1)));
+
+			byte[][] swap = current;
+			current = next;
+			next    = swap;
+		}
+
+		neighborhood = new double[sums.size()];
+		for (int t = 0; t < neighborhood.length; ++t)
+			neighborhood[t] = sums.get(t);
+	}
+
+
+	/**
+	 * Returns zeroed counters for n nodes, in chunks of 2^shift nodes apiece (the last may be shorter).
+	 */
+	byte[][] counters(int n)
+	{
+		int      per    = 1 << shift;
+		byte[][] chunks = new byte[(n + per - 1) >>> shift][];
+
+		for (int c = 0; c < chunks.length; ++c)
+			chunks[c] = new byte[Math.min(per, n - c * per) * registers];
+
+		return chunks;
+	}
+
+
+	/**
+	 * The per-thread part of an iteration, which updates the counters of a range of nodes.
+	 */
+	static class Union extends Parallel.Worker
+	{
+		/** the graph */
+		Adjacency out;
+
+		/** the number of registers per counter */
+		int       m;
+
+		/** the base-two logarithm of the number of nodes per chunk, and the mask for a node's place in it */
+		int       shift;
+		int       mask;
+
+		/** the estimate for each node's counter, which is updated as the counter changes */
+		double[]  estimate;
+
+		/** the counters before and after this iteration */
+		byte[][]  current;
+		byte[][]  next;
+
+		/** set if any counter in this worker's ranges changed */
+		boolean   changed;
+
+
+		Union(Adjacency out, int m, int shift, double[] estimate)
+		{
+			this.out      = out;
+			this.m        = m;
+			this.shift    = shift;
+			this.mask     = (1 << shift) - 1;
+			this.estimate = estimate;
+		}
+
+
+		protected void process(int begin, int end)
+		{
+			for (int v = begin; v < end; ++v) {
+				byte[]  from  = current[v >>> shift];
+				byte[]  to    = next   [v >>> shift];
+				int     base  = (v & mask) * m;
+				boolean grown = false;
+
+				System.arraycopy(from, base, to, base, m);
+				for (int i = out.offset[v]; i < out.offset[v + 1]; ++i) {
+					int    w     = out.target[i];
+					byte[] src   = current[w >>> shift];
+					int    other = (w & mask) * m;
+					for (int j = 0; j < m; ++j)
+						if (src[other + j] > to[base + j]) {
+							to[base + j] = src[other + j];
+							grown        = true;
+						}
+				}
+
+				if (grown) {
+					estimate[v] = estimate(to, base, m);
+					changed     = true;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Adds node v to the counter starting at the given position of a chunk.
+	 */
+	void add(byte[] counter, int base, int v)
+	{
+		// a SplitMix64 finalizer spreads consecutive indices over the whole range of hashes
+		long h = (v + 1) * 0x9e3779b97f4a7c15L;
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		h =  h ^ (h >>> 31);
+
+		int  j   = (int) (h >>> (64 - precision));
+		long w   = h << precision;
+		int  rho = Math.min(Long.numberOfLeadingZeros(w) + 1, 64 - precision + 1);
+
+		counter[base + j] = (byte) Math.max(counter[base + j], rho);
+	}
+
+
+	/**
+	 * Returns the HyperLogLog estimate of the number of elements in the counter of m registers starting at the
+	 * given position.
+	 */
+	static double estimate(byte[] counter, int base, int m)
+	{
+		double sum   = 0.0;
+		int    zeros = 0;
+
+		for (int j = 0; j < m; ++j) {
+			sum += 1.0 / (1L << counter[base + j]);
+			if (counter[base + j] == 0)
+				++zeros;
+		}
+
+		double alpha = (m == 16) ? 0.673 : (m == 32) ? 0.697 : (m == 64) ? 0.709 : 0.7213 / (1.0 + 1.079 / m);
+		double raw   = alpha * m * m / sum;
+
+		// small cardinalities are estimated far better by counting the empty registers
+		if ((raw <= 2.5 * m) && (zeros > 0))
+			return m * Math.log((double) m / zeros);
+
+		return raw;
+	}
+
+
+	/**
+	 * Returns the sum of the given estimates, or the floor if that's larger.
+	 */
+	static double sum(double[] estimate, double floor)
+	{
+		double total = 0.0;
+		for (double x : estimate)
+			total += x;
+
+		return Math.max(total, floor);
+	}
+
+
+	/**
+	 * Returns the estimated number of ordered pairs of nodes at distance t or less, for t from zero up to the
+	 * diameter.
+	 */
+	public double[] neighborhoodFunction()
+	{
+		return neighborhood.clone();
+	}
+
+
+	/**
+	 * Returns a lower bound on the diameter: the number of iterations before the counters stopped changing.
+	 */
+	public double getDiameter()
+	{
+		return neighborhood.length - 1;
+	}
+
+
+	/**
+	 * Returns the effective diameter: the (interpolated) distance within which the given fraction of all
+	 * connected pairs lie.
+	 */
+	public double getEffectiveDiameter(double fraction)
+	{
+		double target = fraction * neighborhood[neighborhood.length - 1];
+
+		for (int t = 0; t < neighborhood.length; ++t)
+			if (neighborhood[t] >= target) {
+				if (t == 0)
+					return 0.0;
+				return (t - 1) + (target - neighborhood[t - 1]) / (neighborhood[t] - neighborhood[t - 1]);
+			}
+
+		return neighborhood.length - 1;
+	}
+
+
+	/**
+	 * Returns the estimated average distance between pairs of distinct nodes with a path between them.
+	 */
+	public double getPathLength()
+	{
+		double sum = 0.0;
+		for (int t = 1; t < neighborhood.length; ++t)
+			sum += t * (neighborhood[t] - neighborhood[t - 1]);
+
+		return sum / (neighborhood[neighborhood.length - 1] - neighborhood[0]);
+	}
+
+
+	/**
+	 * Returns the relative standard error of each counter's estimate.
+	 */
+	public double getRelativeError()
+	{
+		return 1.04 / Math.sqrt(registers);
+	}
+}
@@ -0,0 +1,476 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class finds communities in a graph with the Louvain method (Blondel et al., 2008), treating each
+ * edge as undirected and weighting it by the total weight of the edges between its endpoints in both
+ * directions.  Self-loops in the original graph are ignored.
+ *
+ * Each level starts with every node in a community of its own and moves nodes between neighboring
+ * communities for as long as that raises the modularity, then collapses each community into a single node
+ * and repeats on the smaller graph, until a level makes no moves.
+ *
+ * The local moves are split into two phases per pass, so that most of the work runs on several threads.
+ * First, every node works out whether it would gain by joining a neighboring community, in parallel and
+ * against the communities as they stood at the start of the pass.  Then the nodes that would move are taken
+ * in node order and moved to whichever community is best for them by then, exactly as in the sequential
+ * method.  After the first pass, only the neighbors of nodes that moved in the pass before are looked at,
+ * since nothing has changed for the rest.  Since the threads only ever read the communities, the result
+ * doesn't depend on how many of them there are.
+ */
+public class Louvain
+{
+	/** the smallest gain in modularity for which another pass is worth making */
+	static final double EPSILON = 1e-7;
+
+	/** the resolution, which scales the penalty for large communities (1 gives ordinary modularity) */
+	double resolution;
+
+	/** the community of each node */
+	int[]  community;
+
+	/** the number of nodes in each community */
+	int[]  size;
+
+	/** the modularity of the communities, at a resolution of 1 */
+	double modularity;
+
+
+	/**
+	 * Finds the communities of the given graph at the ordinary resolution, using one thread per processor.
+	 */
+	public Louvain(CsrGraph g)
+	{
+		this(g, 1.0, Parallel.threads());
+	}
+
+
+	/**
+	 * Finds the communities of the given graph at the given resolution, using the given number of threads.
+	 */
+	public Louvain(CsrGraph g, double resolution, int threads)
+	{
+		if (resolution <= 0.0)
+			throw new IllegalArgumentException("resolution must be positive");
+
+		this.resolution = resolution;
+
+		Level bottom = new Level(Adjacency.undirected(g));
+		Level level  = bottom;
+		int   n      = bottom.n;
+
+		// the community of each original node, in terms of the nodes of the current level
+		community = new int[n];
+		for (int v = 0; v < n; ++v)
+			community[v] = v;
+
+		while (true) {
+			int[] assign = level.move(threads);
+			int   count  = renumber(assign);
+
+			for (int v = 0; v < n; ++v)
+				community[v] = assign[community[v]];
+
+			if (count == level.n)
+				break;
+
+			level = level.collapse(assign, count, threads);
+		}
+
+		int count = renumber(community);
+		size = new int[count];
+		for (int v = 0; v < n; ++v)
+			++size[community[v]];
+
+		modularity = modularity(bottom, community, 1.0);
+	}
+
+
+	/**
+	 * Replaces the labels in the given array with dense ones, in order of first appearance, and returns the
+	 * number of distinct labels.
+	 */
+	static int renumber(int[] label)
+	{
+		int[] number = new int[label.length];
+		int   count  = 0;
+
+		Arrays.fill(number, -1);
+		for (int v = 0; v < label.length; ++v) {
+			if (number[label[v]] < 0)
+				number[label[v]] = count++;
+			label[v] = number[label[v]];
+		}
+
+		return count;
+	}
+
+
+	/**
+	 * Returns the modularity of the given communities of the given graph, at the given resolution.
+	 */
+	static double modularity(Level level, int[] community, double resolution)
+	{
+		if (level.total == 0.0)
+			return 0.0;
+
+		double[] tot    = new double[level.n];
+		double   inside = 0.0;
+
+		for (int v = 0; v < level.n; ++v) {
+			tot[community[v]] += level.k[v];
+			inside            += level.self[v];
+			for (int i = level.offset[v]; i < level.offset[v + 1]; ++i)
+				if (community[level.target[i]] == community[v])
+					inside += level.weight[i];
+		}
+
+		double q = inside / level.total;
+		for (int c = 0; c < level.n; ++c)
+			q -= resolution * (tot[c] / level.total) * (tot[c] / level.total);
+
+		return q;
+	}
+
+
+	/**
+	 * One level of the method: a weighted undirected graph whose nodes are the communities of the level
+	 * below, with the weight inside each one kept as a self-loop.
+	 */
+	class Level
+	{
+		/** the number of nodes */
+		int      n;
+
+		/** the neighbors of each node, and the weights to them, as in {@link Adjacency} */
+		int[]    offset;
+		int[]    target;
+		double[] weight;
+
+		/** the weight of each node's self-loop, counted in both directions */
+		double[] self;
+
+		/** the weighted degree of each node, including its self-loop */
+		double[] k;
+
+		/** the sum of the weighted degrees, which is twice the total weight */
+		double   total;
+
+
+		/**
+		 * Creates the bottom level from the undirected adjacency of the graph.
+		 */
+		Level(Adjacency adj)
+		{
+			this(adj.n, adj.offset, adj.target, adj.weight, new double[adj.n]);
+		}
+
+
+		/**
+		 * Creates a level from its arrays.
+		 */
+		Level(int n, int[] offset, int[] target, double[] weight, double[] self)
+		{
+			this.n      = n;
+			this.offset = offset;
+			this.target = target;
+			this.weight = weight;
+			this.self   = self;
+			this.k      = new double[n];
+
+			for (int v = 0; v < n; ++v) {
+				k[v] = self[v];
+				for (int i = offset[v]; i < offset[v + 1]; ++i)
+					k[v] += weight[i];
+				total += k[v];
+			}
+		}
+
+
+		/**
+		 * Moves nodes between communities until the modularity stops rising, and returns the community of
+		 * each node.
+		 */
+		int[] move(int threads)
+		{
+			final int[]     comm     = new int[n];
+			final double[]  tot      = new double[n];
+			final int[]     proposal = new int[n];
+			final boolean[] active   = new boolean[n];
+			final boolean[] next     = new boolean[n];
+
+			for (int v = 0; v < n; ++v) {
+				comm  [v] = v;
+				tot   [v] = k[v];
+				active[v] = true;
+			}
+
+			if (total == 0.0)
+				return comm;
+
+			List<Proposer> workers = new ArrayList<Proposer>();
+			for (int i = 0; i < Math.max(1, threads); ++i)
+				workers.add(new Proposer(this, comm, tot, proposal, active));
+
+			Proposer mover = workers.get(0);
+
+			while (true) {
+				Parallel.run(n, 1024, workers);
+
+				// the communities may have changed since the proposals, so each move is worked out afresh
+				double gain = 0.0;
+				for (int v = 0; v < n; ++v) {
+					if (proposal[v] == comm[v])
+						continue;
+
+					int a = comm[v];
+					int c = mover.best(v);
+					if (c != a) {
+						tot[a] -= k[v];
+						tot[c] += k[v];
+						comm[v] = c;
+						gain   += 2.0 * mover.delta / total;
+
+						// only the neighbors of a node that moved can have anything new to gain
+						for (int i = offset[v]; i < offset[v + 1]; ++i)
+							next[target[i]] = true;
+					}
+				}
+
+				if (gain < EPSILON)
+					break;
+
+				System.arraycopy(next, 0, active, 0, n);
+				Arrays.fill(next, false);
+			}
+
+			return comm;
+		}
+
+
+		/**
+		 * Returns the gain (in units of half the total weight times the change in modularity) from putting a
+		 * node of weighted degree kv into a community of total degree tot, to which it has the given weight.
+		 */
+		double gain(double weightTo, double tot, double kv)
+		{
+			return weightTo - resolution * tot * kv / total;
+		}
+
+
+		/**
+		 * Returns the level above this one, in which each of the given communities is a node.
+		 */
+		Level collapse(final int[] comm, final int count, int threads)
+		{
+			// group the nodes by community, so that each community's row can be built on its own
+			final int[] memberOffset = new int[count + 1];
+			final int[] member       = new int[n];
+
+			for (int v = 0; v < n; ++v)
+				memberOffset[comm[v] + 1]++;
+			for (int c = 0; c < count; ++c)
+				memberOffset[c + 1] += memberOffset[c];
+
+			int[] next = Arrays.copyOf(memberOffset, count);
+			for (int v = 0; v < n; ++v)
+				member[next[comm[v]]++] = v;
+
+			final int[][]    rowTarget = new int   [count][];
+			final double[][] rowWeight = new double[count][];
+			final double[]   rowSelf   = new double[count];
+
+			List<Parallel.Worker> workers = new ArrayList<Parallel.Worker>();
+			for (int i = 0; i < Math.max(1, threads); ++i)
+				workers.add(new Parallel.Worker() {
+					double[]  acc     = new double [count];
+					int[]     touched = new int    [count];
+					boolean[] seen    = new boolean[count];
+
+					protected void process(int begin, int end)
+					{
+						for (int c = begin; c < end; ++c) {
+							int    touches = 0;
+							double inside  = 0.0;
+
+							for (int j = memberOffset[c]; j < memberOffset[c + 1]; ++j) {
+								int v = member[j];
+								inside += self[v];
+								for (int i = offset[v]; i < offset[v + 1]; ++i) {
+									int d = comm[target[i]];
+									if (d == c)
+										inside += weight[i];
+									else {
+										if (!seen[d]) {
+											seen[d]            = true;
+											touched[touches++] = d;
+										}
+										acc[d] += weight[i];
+									}
+								}
+							}
+
+							// the rows have to be sorted, like those of an Adjacency
+							Arrays.sort(touched, 0, touches);
+							rowTarget[c] = Arrays.copyOf(touched, touches);
+							rowWeight[c] = new double[touches];
+							for (int i = 0; i < touches; ++i) {
+								rowWeight[c][i] = acc[touched[i]];
+								acc [touched[i]] = 0.0;
+								seen[touched[i]] = false;
+							}
+							rowSelf[c] = inside;
+						}
+					}
+				});
+			Parallel.run(count, 256, workers);
+
+			int[] upOffset = new int[count + 1];
+			for (int c = 0; c < count; ++c)
+				upOffset[c + 1] = upOffset[c] + rowTarget[c].length;
+
+			int[]    upTarget = new int   [upOffset[count]];
+			double[] upWeight = new double[upOffset[count]];
+			for (int c = 0; c < count; ++c) {
+				System.arraycopy(rowTarget[c], 0, upTarget, upOffset[c], rowTarget[c].length);
+				System.arraycopy(rowWeight[c], 0, upWeight, upOffset[c], rowWeight[c].length);
+			}
+
+			return new Level(count, upOffset, upTarget, upWeight, rowSelf);
+		}
+	}
+
+
+	/**
+	 * The per-thread part of the first phase of a pass, which finds the best community for a range of nodes.
+	 * The first one is also used by the second phase.
+	 */
+	static class Proposer extends Parallel.Worker
+	{
+		/** the level */
+		Level     level;
+
+		/** the community of each node, and the total degree of each community, at the start of the pass */
+		int[]     comm;
+		double[]  tot;
+
+		/** the best community for each node */
+		int[]     proposal;
+
+		/** whether each node needs to be looked at in this pass */
+		boolean[] active;
+
+		/** the weight from the current node to each community, and the communities it has weight to */
+		double[]  acc;
+		int[]     touched;
+		boolean[] seen;
+
+		/** the gain from the last move returned by {@link #best} */
+		double    delta;
+
+
+		Proposer(Level level, int[] comm, double[] tot, int[] proposal, boolean[] active)
+		{
+			this.level    = level;
+			this.comm     = comm;
+			this.tot      = tot;
+			this.proposal = proposal;
+			this.active   = active;
+			this.acc      = new double [level.n];
+			this.touched  = new int    [level.n];
+			this.seen     = new boolean[level.n];
+		}
+
+
+		protected void process(int begin, int end)
+		{
+			for (int v = begin; v < end; ++v)
+				proposal[v] = active[v] ? best(v) : comm[v];
+		}
+
+
+		/**
+		 * Returns the best community for node v, given the communities as they stand, and sets {@link #delta}
+		 * to the gain from moving there.
+		 */
+		int best(int v)
+		{
+			int    a       = comm[v];
+			double kv      = level.k[v];
+			int    touches = 0;
+
+			for (int i = level.offset[v]; i < level.offset[v + 1]; ++i) {
+				int c = comm[level.target[i]];
+				if (!seen[c]) {
+					seen[c]            = true;
+					touched[touches++] = c;
+				}
+				acc[c] += level.weight[i];
+			}
+
+			// staying put is the move to beat, and ties between moves go to the lowest-numbered community
+			int    best     = a;
+			double stay     = level.gain(acc[a], tot[a] - kv, kv);
+			double bestGain = stay;
+
+			for (int j = 0; j < touches; ++j) {
+				int    c = touched[j];
+				double g = level.gain(acc[c], tot[c], kv);
+				if ((c != a) && ((g > bestGain) || ((g == bestGain) && (best != a) && (c < best)))) {
+					best     = c;
+					bestGain = g;
+				}
+			}
+
+			for (int j = 0; j < touches; ++j) {
+				acc [touched[j]] = 0.0;
+				seen[touched[j]] = false;
+			}
+
+			delta = bestGain - stay;
+			return best;
+		}
+	}
+
+
+	/**
+	 * Returns the modularity of the communities, at a resolution of 1.
+	 */
+	public double getModularity()
+	{
+		return modularity;
+	}
+
+
+	/**
+	 * Returns the number of communities.
+	 */
+	public int getCommunityCount()
+	{
+		return size.length;
+	}
+
+
+	/**
+	 * Returns the community of each node, numbered from zero in order of each community's lowest node index.
+	 */
+	public int[] getCommunities()
+	{
+		return community.clone();
+	}
+
+
+	/**
+	 * Returns the number of nodes in each community.
+	 */
+	public int[] getSizes()
+	{
+		return size.clone();
+	}
+}
@@ -0,0 +1,201 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.NodeIndex;
+import edu.iu.cnets.klatsch.model.basic.BasicNode;
+
+
+/**
+ * This class maps the nodes of a graph to scores, such as their centralities.  The scores are an array of
+ * doubles indexed by the graph's own dense numbering of its nodes, which the mapping shares rather than
+ * copies, so a score for every node of a large graph costs eight bytes a node rather than a pair of objects.
+ *
+ * The numbering may have grown since the scores were computed, if nodes have been added to the graph since;
+ * the mapping covers only the nodes that were there at the time.
+ */
+public class NodeScores
+{
+	/** the numbering of the nodes */
+	NodeIndex nodes;
+
+	/** the score of each node */
+	double[]  score;
+
+
+	/**
+	 * Wraps the given scores of the first score.length nodes of the given numbering.  The mapping takes over
+	 * the array.
+	 */
+	public NodeScores(NodeIndex nodes, double[] score)
+	{
+		this.nodes = nodes;
+		this.score = score;
+	}
+
+
+	/**
+	 * Returns the number of nodes.
+	 */
+	public int size()
+	{
+		return score.length;
+	}
+
+
+	/**
+	 * Returns node i.
+	 */
+	public Node node(int i)
+	{
+		return new BasicNode(nodes.type(i), nodes.id(i));
+	}
+
+
+	/**
+	 * Returns the score of node i.
+	 */
+	public double score(int i)
+	{
+		return score[i];
+	}
+
+
+	/**
+	 * Returns the score of the given node, or NaN if it isn't in the mapping.
+	 */
+	public double get(Node n)
+	{
+		int i = nodes.get(n);
+		return ((i < 0) || (i >= score.length)) ? Double.NaN : score[i];
+	}
+
+
+	/**
+	 * Returns a copy of the scores, in node order.
+	 */
+	public double[] scores()
+	{
+		return score.clone();
+	}
+
+
+	/**
+	 * Returns the nodes, in order.
+	 */
+	public Iterable<Node> nodes()
+	{
+		return new Iterable<Node>() {
+			public Iterator<Node> iterator()
+			{
+				return new Iterator<Node>() {
+					int i = 0;
+
+					public boolean hasNext()
+					{
+						return i < score.length;
+					}
+
+					public Node next()
+					{
+						if (i >= score.length)
+							throw new NoSuchElementException();
+						return node(i++);
+					}
+
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the numbers of the k nodes with the highest scores, highest first, breaking ties in favor of
+	 * the lower number.  This keeps a heap of the best k seen so far, so it takes O(n log k) time.
+	 */
+	public int[] top(int k)
+	{
+		k = Math.max(0, Math.min(k, score.length));
+
+		// a min-heap, so the worst of the best k is at the root
+		int[] heap = new int[k];
+		int   size = 0;
+
+		for (int i = 0; i < score.length; ++i) {
+			if (size < k) {
+				heap[size] = i;
+				up(heap, size++);
+			} else if ((k > 0) && better(i, heap[0])) {
+				heap[0] = i;
+				down(heap, 0, size);
+			}
+		}
+
+		// popping the root repeatedly leaves the best at the front
+		for (int end = size - 1; end > 0; --end) {
+			int t = heap[0];
+			heap[0]   = heap[end];
+			heap[end] = t;
+			down(heap, 0, end);
+		}
+
+		return heap;
+	}
+
+
+	/**
+	 * Returns true if node i ranks ahead of node j.
+	 */
+	boolean better(int i, int j)
+	{
+		return (score[i] > score[j]) || ((score[i] == score[j]) && (i < j));
+	}
+
+
+	/**
+	 * Moves the entry at position p of the heap toward the root until its parent is worse than it.
+	 */
+	void up(int[] heap, int p)
+	{
+		while (p > 0) {
+			int parent = (p - 1) / 2;
+			if (!better(heap[parent], heap[p]))
+				break;
+
+			int t = heap[p];
+			heap[p]      = heap[parent];
+			heap[parent] = t;
+			p            = parent;
+		}
+	}
+
+
+	/**
+	 * Moves the entry at position p of the first size entries of the heap away from the root until both of
+	 * its children are better than it.
+	 */
+	void down(int[] heap, int p, int size)
+	{
+		while (true) {
+			int worst = p;
+			int left  = 2 * p + 1;
+			int right = left + 1;
+
+			if ((left  < size) && better(heap[worst], heap[left]))   worst = left;
+			if ((right < size) && better(heap[worst], heap[right]))  worst = right;
+			if (worst == p)
+				break;
+
+			int t = heap[p];
+			heap[p]     = heap[worst];
+			heap[worst] = t;
+			p           = worst;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * This class runs a loop over a range of integers (usually node indices) on several threads at once.
+ *
+ * Each thread gets its own {@link Worker}, which can keep whatever scratch arrays and running totals it needs
+ * without any locking.  The range is handed out in chunks from a shared counter, so that threads that draw
+ * cheap chunks simply take more of them.  Once the loop is done, the caller combines the workers' results.
+ *
+ * The threads come from one shared pool, so that algorithms that run a loop per iteration don't start and
+ * stop a set of threads every time.
+ */
+public class Parallel
+{
+	/**
+	 * The per-thread part of a loop.
+	 */
+	public static abstract class Worker
+	{
+		/** Processes items begin through end - 1. */
+		protected abstract void process(int begin, int end);
+	}
+
+
+	/** the threads that run the loops, created the first time one is needed */
+	static ExecutorService pool;
+
+
+	/**
+	 * Returns the shared pool, creating it the first time.  Threads are started as they're needed and reused
+	 * from one loop to the next; they're daemons, so they never keep the interpreter from exiting, and any
+	 * that sit idle for a minute are let go.
+	 */
+	static synchronized ExecutorService pool()
+	{
+		if (pool == null)
+			pool = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable task)
+				{
+					Thread thread = new Thread(task, "parallel");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+		return pool;
+	}
+
+
+	/**
+	 * Returns the number of threads to use by default, which is one per processor.
+	 */
+	public static int threads()
+	{
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+
+	/**
+	 * Runs the loop over items 0 through count - 1, with one thread per worker, and returns once every item
+	 * has been processed.
+	 *
+	 * @param count    the number of items
+	 * @param chunk    the number of items handed to a worker at a time
+	 * @param workers  the workers, one per thread
+	 */
+	public static void run(final int count, final int chunk, List<? extends Worker> workers)
+	{
+		final AtomicInteger next = new AtomicInteger(0);
+
+		// a single worker may as well run on this thread
+		if (workers.size() == 1) {
+			for (int i = 0; i < count; i += chunk)
+				workers.get(0).process(i, Math.min(i + chunk, count));
+			return;
+		}
+
+		ExecutorService      pool    = pool();
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+
+		try {
+			for (final Worker worker : workers)
+				futures.add(pool.submit(new Callable<Object>() {
+					public Object call()
+					{
+						int begin;
+						while ((begin = next.getAndAdd(chunk)) < count)
+							worker.process(begin, Math.min(begin + chunk, count));
+						return null;
+					}
+				}));
+
+			for (Future<Object> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while computing statistics", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			// if the loop failed, the other workers stop at their next chunk
+			next.set(count);
+			for (Future<Object> future : futures)
+				future.cancel(true);
+		}
+	}
+}
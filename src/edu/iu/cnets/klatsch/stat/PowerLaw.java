@@ -0,0 +1,219 @@
+package edu.iu.cnets.klatsch.stat;
+
+
+/**
+ * This class fits a discrete power law, p(k) ~ k^-alpha for k >= xmin, to the tail of a degree histogram,
+ * following Clauset, Shalizi, and Newman (2009).  For each candidate xmin, alpha is the maximum likelihood
+ * estimate for the tail at and above it, and the chosen xmin is the one whose fit is closest to the data by
+ * the Kolmogorov-Smirnov statistic.  Degrees of zero are never part of the tail.
+ *
+ * Everything is computed from the histogram, so the cost depends on the number of distinct degrees rather
+ * than the number of nodes: the sums behind each likelihood are running totals over the histogram, and each
+ * KS scan stops once both tails are too thin to beat the distance found so far.
+ */
+public class PowerLaw
+{
+	/** the fewest values a tail may have to be considered, unless no tail is that large */
+	static final int    MIN_TAIL  = 10;
+
+	/** the range searched for alpha, and how closely it's pinned down */
+	static final double MIN_ALPHA = 1.0001;
+	static final double MAX_ALPHA = 20.0;
+	static final double TOLERANCE = 1e-7;
+
+	/** the fitted exponent, or NaN if there's nothing to fit */
+	double exponent = Double.NaN;
+
+	/** the start of the fitted tail */
+	int    xmin;
+
+	/** the Kolmogorov-Smirnov distance between the tail and the fit */
+	double ks       = Double.NaN;
+
+	/** the number of values in the tail */
+	long   tail;
+
+
+	/**
+	 * Fits a power law to the given histogram, in which entry k holds the number of values equal to k.
+	 */
+	public PowerLaw(long[] histogram)
+	{
+		// the distinct positive values, and the count and sum of logs of the values at and above each one
+		int count = 0;
+		for (int k = 1; k < histogram.length; ++k)
+			if (histogram[k] > 0)
+				++count;
+
+		if (count < 2)
+			return;
+
+		int[]    value = new int   [count];
+		long[]   n     = new long  [count + 1];
+		double[] logs  = new double[count + 1];
+
+		for (int k = 1, i = 0; k < histogram.length; ++k)
+			if (histogram[k] > 0)
+				value[i++] = k;
+		for (int i = count - 1; i >= 0; --i) {
+			n   [i] = n   [i + 1] + histogram[value[i]];
+			logs[i] = logs[i + 1] + histogram[value[i]] * Math.log(value[i]);
+		}
+
+		// the last value on its own would have alpha run off to infinity
+		for (int i = 0; i < count - 1; ++i) {
+			if ((n[i] < MIN_TAIL) && (i > 0))
+				break;
+
+			double alpha = fit(value[i], n[i], logs[i]);
+			double d     = distance(histogram, value, i, n[i], alpha);
+
+			if (!(d >= ks)) {
+				exponent = alpha;
+				xmin     = value[i];
+				ks       = d;
+				tail     = n[i];
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the maximum likelihood estimate of alpha for a tail starting at xmin with the given number of
+	 * values and sum of their logs, by golden-section search (the log-likelihood is concave in alpha).
+	 */
+	static double fit(int xmin, long n, double logs)
+	{
+		double ratio = (Math.sqrt(5.0) - 1.0) / 2.0;
+		double lo    = MIN_ALPHA;
+		double hi    = MAX_ALPHA;
+		double a     = hi - ratio * (hi - lo);
+		double b     = lo + ratio * (hi - lo);
+		double fa    = likelihood(a, xmin, n, logs);
+		double fb    = likelihood(b, xmin, n, logs);
+
+		while (hi - lo > TOLERANCE) {
+			if (fa < fb) {
+				lo = a;
+				a  = b;
+				fa = fb;
+				b  = lo + ratio * (hi - lo);
+				fb = likelihood(b, xmin, n, logs);
+			} else {
+				hi = b;
+				b  = a;
+				fb = fa;
+				a  = hi - ratio * (hi - lo);
+				fa = likelihood(a, xmin, n, logs);
+			}
+		}
+
+		return (lo + hi) / 2.0;
+	}
+
+
+	/**
+	 * Returns the log-likelihood of alpha for the tail.
+	 */
+	static double likelihood(double alpha, int xmin, long n, double logs)
+	{
+		return -n * Math.log(zeta(alpha, xmin)) - alpha * logs;
+	}
+
+
+	/**
+	 * Returns the Kolmogorov-Smirnov distance between the tail starting at value[first] and the power law with
+	 * the given exponent.
+	 */
+	static double distance(long[] histogram, int[] value, int first, long n, double alpha)
+	{
+		double norm = zeta(alpha, value[first]);
+		double max  = 0.0;
+		long   seen = 0;
+
+		for (int i = first; i < value.length; ++i) {
+			seen += histogram[value[i]];
+
+			// both distributions are steps between the observed values, so the gaps can only be widest at
+			// an observed value or just before the next one
+			double empirical = (double) seen / n;
+			double fitted    = 1.0 - zeta(alpha, value[i] + 1) / norm;
+			max = Math.max(max, Math.abs(empirical - fitted));
+
+			if (i + 1 < value.length) {
+				double before = 1.0 - zeta(alpha, value[i + 1]) / norm;
+				max = Math.max(max, Math.abs(empirical - before));
+
+				// once both tails are thinner than the widest gap so far, no later gap can be wider
+				if ((1.0 - empirical < max) && (1.0 - before < max))
+					break;
+			}
+		}
+
+		return max;
+	}
+
+
+	/**
+	 * Returns the Hurwitz zeta function, the sum of (q + k)^-s over k >= 0, for s > 1 and q >= 1.  The first
+	 * few terms are summed directly and the rest by the Euler-Maclaurin formula.
+	 */
+	static double zeta(double s, double q)
+	{
+		double sum = 0.0;
+		while (q < 10.0) {
+			sum += Math.pow(q, -s);
+			q   += 1.0;
+		}
+
+		double power = Math.pow(q, -s);
+		sum += q * power / (s - 1.0) + power / 2.0;
+
+		// the Bernoulli-number corrections, B(2j) / (2j)!
+		double[] b    = { 1.0 / 12.0, -1.0 / 720.0, 1.0 / 30240.0, -1.0 / 1209600.0, 1.0 / 47900160.0 };
+		double   term = s * power / q;
+
+		for (int j = 0; j < b.length; ++j) {
+			sum  += b[j] * term;
+			term *= (s + 2 * j + 1) * (s + 2 * j + 2) / (q * q);
+		}
+
+		return sum;
+	}
+
+
+	/**
+	 * Returns the fitted exponent alpha, or NaN if there were fewer than two distinct positive values.
+	 */
+	public double getExponent()
+	{
+		return exponent;
+	}
+
+
+	/**
+	 * Returns the smallest value in the fitted tail.
+	 */
+	public int getXmin()
+	{
+		return xmin;
+	}
+
+
+	/**
+	 * Returns the Kolmogorov-Smirnov distance between the fitted tail and the power law.
+	 */
+	public double getKsDistance()
+	{
+		return ks;
+	}
+
+
+	/**
+	 * Returns the number of values in the fitted tail.
+	 */
+	public long getTailSize()
+	{
+		return tail;
+	}
+}
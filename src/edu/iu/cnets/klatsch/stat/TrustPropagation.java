@@ -0,0 +1,245 @@
+package edu.iu.cnets.klatsch.stat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import edu.iu.cnets.klatsch.model.Event;
+import edu.iu.cnets.klatsch.model.Graph;
+import edu.iu.cnets.klatsch.model.Node;
+import edu.iu.cnets.klatsch.model.basic.BasicEdge;
+import edu.iu.cnets.klatsch.model.basic.BasicEvent;
+import edu.iu.cnets.klatsch.model.csr.CsrGraph;
+
+
+/**
+ * This class decides which edges of a graph built from a feed deserve more trust, by the rules that
+ * {@link edu.iu.cnets.klatsch.feed.Truthy#updateTrust} describes: an edge that isn't completely trusted
+ * becomes so if it's already partly trusted, if it's an actor->actor edge whose reverse is also in the
+ * graph, or if it's a meme->actor edge and the actor has a trusted edge to an actor.
+ *
+ * Rather than walking the edges of each actor once per meme->actor edge into it, each round first flags the
+ * actors that have a trusted edge to an actor, in one parallel pass over the nodes, and then decides every
+ * edge at once, in a parallel pass over the edges.  Each round sees the trust as it was at the start of the
+ * round.  Upgrading an actor->actor edge can vouch for more actors, so the rounds can be repeated until
+ * nothing changes.  The upgrades are only applied to a graph once they've all been decided.
+ */
+public class TrustPropagation
+{
+	/** the number of nodes or edges handed to a thread at a time */
+	static final int CHUNK = 4096;
+
+	/** the graph */
+	CsrGraph  g;
+
+	/** the type of each node */
+	int[]     type;
+
+	/** the first edge leaving each node, with a sentinel at the end */
+	int[]     offset;
+
+	/** the endpoints of each edge */
+	int[]     src;
+	int[]     dst;
+
+	/** true for each edge with some trust */
+	boolean[] trusted;
+
+	/** true for each edge that's less than completely trusted */
+	boolean[] pending;
+
+	/** true for each edge that is to be upgraded */
+	boolean[] upgrade;
+
+	/** true for each node with a trusted edge to an actor */
+	boolean[] vouched;
+
+	/** the number of threads to use */
+	int       threads;
+
+	/** the number of rounds run, and the number of edges to upgrade */
+	int       rounds;
+	int       count;
+
+
+	/**
+	 * Decides which edges of the given graph to upgrade, using the given number of threads.
+	 *
+	 * @param g         the graph, which is compacted first
+	 * @param fixpoint  true to repeat rounds until no more edges qualify, false for a single round
+	 * @param threads   the number of threads
+	 */
+	public TrustPropagation(CsrGraph g, boolean fixpoint, int threads)
+	{
+		g.compact();
+
+		int n = g.nodeCount();
+		int m = g.edgeCount();
+
+		this.g       = g;
+		this.threads = Math.max(1, threads);
+
+		type   = new int[n];
+		offset = new int[n + 1];
+		for (int v = 0; v < n; ++v) {
+			type  [v]     = g.nodeType(v);
+			offset[v + 1] = g.outEnd(v);
+		}
+
+		src     = new int    [m];
+		dst     = new int    [m];
+		trusted = new boolean[m];
+		pending = new boolean[m];
+		upgrade = new boolean[m];
+		vouched = new boolean[n];
+		for (int e = 0; e < m; ++e) {
+			src    [e] = g.edgeSrc(e);
+			dst    [e] = g.edgeDst(e);
+			trusted[e] = g.edgeTrust(e) > 0.0;
+			pending[e] = g.edgeTrust(e) < g.edgeWeight(e);
+		}
+
+		int changed;
+		do {
+			++rounds;
+			flag();
+			changed = decide();
+			count  += changed;
+		} while (fixpoint && (changed > 0));
+	}
+
+
+	/**
+	 * Flags every node that has a trusted edge to an actor.
+	 */
+	void flag()
+	{
+		Parallel.run(type.length, CHUNK, Collections.nCopies(threads, new Parallel.Worker() {
+			protected void process(int begin, int end)
+			{
+				for (int v = begin; v < end; ++v) {
+					boolean found = false;
+					for (int e = offset[v]; (e < offset[v + 1]) && !found; ++e)
+						found = trusted[e] && (type[dst[e]] == Node.TYPE_ACTOR);
+					vouched[v] = found;
+				}
+			}
+		}));
+	}
+
+
+	/**
+	 * Decides which of the pending edges to upgrade this round, given the current flags.
+	 *
+	 * @return the number of edges newly chosen
+	 */
+	int decide()
+	{
+		List<Decide> workers = new ArrayList<Decide>();
+		for (int i = 0; i < threads; ++i)
+			workers.add(new Decide());
+		Parallel.run(src.length, CHUNK, workers);
+
+		int changed = 0;
+		for (Decide worker : workers)
+			changed += worker.changed;
+		return changed;
+	}
+
+
+	/**
+	 * The per-thread part of a decision pass, which counts the edges it chooses.
+	 */
+	class Decide extends Parallel.Worker
+	{
+		/** the number of edges this worker has chosen */
+		int changed;
+
+
+		/**
+		 * Decides edges begin through end - 1.  Only this worker touches their entries.
+		 */
+		protected void process(int begin, int end)
+		{
+			for (int e = begin; e < end; ++e) {
+				if (!pending[e])
+					continue;
+
+				int s = type[src[e]];
+				int d = type[dst[e]];
+
+				if (trusted[e] ||
+				    ((s == Node.TYPE_ACTOR) && (d == Node.TYPE_ACTOR) && (g.edgeIndex(dst[e], src[e]) >= 0)) ||
+				    ((s == Node.TYPE_MEME)  && (d == Node.TYPE_ACTOR) && vouched[dst[e]])) {
+					pending[e] = false;
+					trusted[e] = true;
+					upgrade[e] = true;
+					++changed;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Applies the upgrades to the given graph, which should be the graph they were decided on or the one it
+	 * was copied from, by adding the missing trust to each upgraded edge.  The upgrades go to the graph in
+	 * one {@link Graph#addAll} call, as one event per edge, so that backends that add in bulk can do so.
+	 */
+	public void apply(Graph target)
+	{
+		target.addAll(new Iterator<Event>() {
+			/** the next upgraded edge, or the number of edges once there are no more */
+			int e = skip(0);
+
+			int skip(int from)
+			{
+				while ((from < upgrade.length) && !upgrade[from])
+					++from;
+				return from;
+			}
+
+			public boolean hasNext()
+			{
+				return e < upgrade.length;
+			}
+
+			public Event next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				BasicEdge edge = new BasicEdge(g.node(src[e]), g.node(dst[e]), g.edgeStart(e), g.edgeEnd(e),
+				                               0.0, g.edgeWeight(e) - g.edgeTrust(e));
+				e = skip(e + 1);
+				return new BasicEvent(edge.startTime(), edge);
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the number of edges to upgrade.
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+
+
+	/**
+	 * Returns the number of rounds that were run, including the last one, which changes nothing if the
+	 * rounds ran to a fixpoint.
+	 */
+	public int getRounds()
+	{
+		return rounds;
+	}
+}
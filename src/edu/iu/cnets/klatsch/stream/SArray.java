@@ -0,0 +1,82 @@
+package edu.iu.cnets.klatsch.stream;
+
+import edu.iu.cnets.klatsch.exception.EvaluationException;
+import edu.iu.cnets.klatsch.lang.Value;
+import edu.iu.cnets.klatsch.lang.VNumber;
+
+
+/**
+ * This class wraps a stream around a primitive array of numbers, so that large numeric results don't have
+ * to be boxed before anybody asks for them.
+ */
+public class SArray extends Stream
+{
+	/** the array we're iterating over, if it holds ints */
+	int[]    ints;
+	
+	/** the array we're iterating over, if it holds doubles */
+	double[] doubles;
+	
+	/** the number of elements */
+	int      length;
+	
+	/** our current index in the array (the next one to be returned) */
+	int      index;
+	
+	
+	/**
+	 * Builds a new stream from the given array of ints.
+	 */
+	public SArray(int[] ints)
+	{
+		this.ints   = ints;
+		this.length = ints.length;
+	}
+	
+	
+	/**
+	 * Builds a new stream from the given array of doubles.
+	 */
+	public SArray(double[] doubles)
+	{
+		this.doubles = doubles;
+		this.length  = doubles.length;
+	}
+	
+	
+	/**
+	 * Gets the next value in the array, if possible.
+	 * 
+	 * @return the value
+	 */
+	public Value getNext()
+	throws EvaluationException
+	{
+		if (index >= length)
+			throw new EvaluationException("end of stream");
+		
+		return (ints != null) ? new VNumber(ints[index++]) : new VNumber(doubles[index++]);
+	}
+	
+	
+	/**
+	 * Sees whether we're at the end of the stream.
+	 * 
+	 * @return true for end-of-stream
+	 */
+	public boolean done()
+	{
+		return (index >= length);
+	}
+	
+	
+	/**
+	 * Provides an indication of internal state.
+	 * 
+	 * @return the stream in string form
+	 */
+	public String toString()
+	{
+		return "array @ " + index;
+	}
+}